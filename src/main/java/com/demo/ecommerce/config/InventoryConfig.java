@@ -2,13 +2,42 @@ package com.demo.ecommerce.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
 
 @Configuration
 @ConfigurationProperties(prefix = "app.inventory")
 public class InventoryConfig {
 
+    /**
+     * How orders decide and persist stock.
+     * DIRECT: one guarded UPDATE per order.
+     * ENGINE: in-memory counters, local journal, asynchronous write-behind to the database.
+     * GROUP_COMMIT: orders per item are queued and decided in small batches, one UPDATE per batch.
+     * LEDGER: orders are appended to the order_ledger table; quantities are projected from it in the background.
+     */
+    public enum Mode {
+        DIRECT,
+        ENGINE,
+        GROUP_COMMIT,
+        LEDGER
+    }
+
     private int minimumStock = 2;
     private int lowStockThreshold = 10;
+    private Mode mode = Mode.DIRECT;
+    private final Engine engine = new Engine();
+    private final GroupCommit groupCommit = new GroupCommit();
+    private final Ledger ledger = new Ledger();
+    private final Reservation reservation = new Reservation();
+    private final Grpc grpc = new Grpc();
+    private final ItemCache itemCache = new ItemCache();
+    private final StockEvents stockEvents = new StockEvents();
+    private final Search search = new Search();
+    private final Snapshot snapshot = new Snapshot();
+    private final Images images = new Images();
+    private final BulkImport bulkImport = new BulkImport();
 
     public int getMinimumStock() {
         return minimumStock;
@@ -25,4 +54,464 @@ public class InventoryConfig {
     public void setLowStockThreshold(int lowStockThreshold) {
         this.lowStockThreshold = lowStockThreshold;
     }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public GroupCommit getGroupCommit() {
+        return groupCommit;
+    }
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    public Grpc getGrpc() {
+        return grpc;
+    }
+
+    public ItemCache getItemCache() {
+        return itemCache;
+    }
+
+    public StockEvents getStockEvents() {
+        return stockEvents;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public Images getImages() {
+        return images;
+    }
+
+    public BulkImport getBulkImport() {
+        return bulkImport;
+    }
+
+    public static class Engine {
+
+        private String journalDir = "data/inventory-journal";
+        private long flushIntervalMs = 100;
+        private boolean fsync = true;
+
+        public String getJournalDir() {
+            return journalDir;
+        }
+
+        public void setJournalDir(String journalDir) {
+            this.journalDir = journalDir;
+        }
+
+        public long getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+
+        public boolean isFsync() {
+            return fsync;
+        }
+
+        public void setFsync(boolean fsync) {
+            this.fsync = fsync;
+        }
+    }
+
+    public static class GroupCommit {
+
+        private long windowMicros = 1000;
+        private int maxBatchSize = 64;
+        private int drainerThreads = 4;
+        private long commitTimeoutMs = 5000;
+
+        public long getWindowMicros() {
+            return windowMicros;
+        }
+
+        public void setWindowMicros(long windowMicros) {
+            this.windowMicros = windowMicros;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public int getDrainerThreads() {
+            return drainerThreads;
+        }
+
+        public void setDrainerThreads(int drainerThreads) {
+            this.drainerThreads = drainerThreads;
+        }
+
+        public long getCommitTimeoutMs() {
+            return commitTimeoutMs;
+        }
+
+        public void setCommitTimeoutMs(long commitTimeoutMs) {
+            this.commitTimeoutMs = commitTimeoutMs;
+        }
+    }
+
+    public static class Ledger {
+
+        private int maxBatchSize = 256;
+        private long projectIntervalMs = 200;
+        private boolean rebuildOnStart = false;
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public long getProjectIntervalMs() {
+            return projectIntervalMs;
+        }
+
+        public void setProjectIntervalMs(long projectIntervalMs) {
+            this.projectIntervalMs = projectIntervalMs;
+        }
+
+        public boolean isRebuildOnStart() {
+            return rebuildOnStart;
+        }
+
+        public void setRebuildOnStart(boolean rebuildOnStart) {
+            this.rebuildOnStart = rebuildOnStart;
+        }
+    }
+
+    public static class Reservation {
+
+        private Duration ttl = Duration.ofMinutes(10);
+        private long tickMs = 100;
+        private int wheelSize = 512;
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public long getTickMs() {
+            return tickMs;
+        }
+
+        public void setTickMs(long tickMs) {
+            this.tickMs = tickMs;
+        }
+
+        public int getWheelSize() {
+            return wheelSize;
+        }
+
+        public void setWheelSize(int wheelSize) {
+            this.wheelSize = wheelSize;
+        }
+    }
+
+    /**
+     * InventoryService gRPC server. A WatchStock subscriber that has not accepted messages for
+     * slow-consumer-timeout, or falls more than max-pending-per-watcher items behind, is disconnected.
+     */
+    public static class Grpc {
+
+        private boolean enabled = false;
+        private int port = 9091;
+        private int maxItemsPerRequest = 1_000;
+        private int maxPendingPerWatcher = 10_000;
+        private Duration slowConsumerTimeout = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public int getMaxItemsPerRequest() {
+            return maxItemsPerRequest;
+        }
+
+        public void setMaxItemsPerRequest(int maxItemsPerRequest) {
+            this.maxItemsPerRequest = maxItemsPerRequest;
+        }
+
+        public int getMaxPendingPerWatcher() {
+            return maxPendingPerWatcher;
+        }
+
+        public void setMaxPendingPerWatcher(int maxPendingPerWatcher) {
+            this.maxPendingPerWatcher = maxPendingPerWatcher;
+        }
+
+        public Duration getSlowConsumerTimeout() {
+            return slowConsumerTimeout;
+        }
+
+        public void setSlowConsumerTimeout(Duration slowConsumerTimeout) {
+            this.slowConsumerTimeout = slowConsumerTimeout;
+        }
+    }
+
+    public static class ItemCache {
+
+        private boolean enabled = true;
+        private long maxEntries = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class StockEvents {
+
+        private int bufferSize = 4096;
+        private int maxConnections = 10_000;
+        private Duration heartbeatInterval = Duration.ofSeconds(20);
+        private Duration connectionTimeout = Duration.ofMinutes(30);
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Duration getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(Duration connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+    }
+
+    public static class Search {
+
+        private int maxCandidates = 2_000;
+
+        public int getMaxCandidates() {
+            return maxCandidates;
+        }
+
+        public void setMaxCandidates(int maxCandidates) {
+            this.maxCandidates = maxCandidates;
+        }
+    }
+
+    public static class Snapshot {
+
+        private boolean enabled = true;
+        private Duration refreshInterval = Duration.ofMillis(250);
+        private boolean gzip = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public boolean isGzip() {
+            return gzip;
+        }
+
+        public void setGzip(boolean gzip) {
+            this.gzip = gzip;
+        }
+    }
+
+    public static class Images {
+
+        private String dir = "data/item-images";
+        private DataSize maxUploadSize = DataSize.ofMegabytes(5);
+        private DataSize cacheSize = DataSize.ofMegabytes(32);
+        private DataSize cacheMaxImageSize = DataSize.ofKilobytes(256);
+        private long pointerCacheSize = 10_000;
+        private Duration maxAge = Duration.ofHours(1);
+        private int variantWorkers = 2;
+        private int variantQueueCapacity = 64;
+        private float variantQuality = 0.8f;
+
+        public String getDir() {
+            return dir;
+        }
+
+        public void setDir(String dir) {
+            this.dir = dir;
+        }
+
+        public DataSize getMaxUploadSize() {
+            return maxUploadSize;
+        }
+
+        public void setMaxUploadSize(DataSize maxUploadSize) {
+            this.maxUploadSize = maxUploadSize;
+        }
+
+        public DataSize getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(DataSize cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public DataSize getCacheMaxImageSize() {
+            return cacheMaxImageSize;
+        }
+
+        public void setCacheMaxImageSize(DataSize cacheMaxImageSize) {
+            this.cacheMaxImageSize = cacheMaxImageSize;
+        }
+
+        public long getPointerCacheSize() {
+            return pointerCacheSize;
+        }
+
+        public void setPointerCacheSize(long pointerCacheSize) {
+            this.pointerCacheSize = pointerCacheSize;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public int getVariantWorkers() {
+            return variantWorkers;
+        }
+
+        public void setVariantWorkers(int variantWorkers) {
+            this.variantWorkers = variantWorkers;
+        }
+
+        public int getVariantQueueCapacity() {
+            return variantQueueCapacity;
+        }
+
+        public void setVariantQueueCapacity(int variantQueueCapacity) {
+            this.variantQueueCapacity = variantQueueCapacity;
+        }
+
+        public float getVariantQuality() {
+            return variantQuality;
+        }
+
+        public void setVariantQuality(float variantQuality) {
+            this.variantQuality = variantQuality;
+        }
+    }
+
+    public static class BulkImport {
+
+        private int chunkSize = 1_000;
+        private int maxErrors = 1_000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxErrors() {
+            return maxErrors;
+        }
+
+        public void setMaxErrors(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+    }
 }
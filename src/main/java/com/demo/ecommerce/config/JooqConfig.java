@@ -6,6 +6,7 @@ import org.jooq.impl.DSL;
 import org.jooq.impl.DefaultConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 
 import javax.sql.DataSource;
 
@@ -19,8 +20,10 @@ public class JooqConfig {
                 .withFetchSize(500)
                 .withQueryTimeout(10);
 
+        // Transaction-aware so jOOQ statements join the surrounding @Transactional
+        // connection instead of borrowing a fresh one per statement
         var config = new DefaultConfiguration()
-                .set(dataSource)
+                .set(new TransactionAwareDataSourceProxy(dataSource))
                 .set(SQLDialect.MYSQL)
                 .set(settings);
 
@@ -0,0 +1,351 @@
+package com.demo.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.notification")
+public class NotificationConfig {
+
+    /**
+     * What to do when the dispatch queue is full.
+     * DROP_NEWEST: reject the new notification.
+     * DROP_OLDEST: evict the oldest queued notification to make room.
+     */
+    public enum OverflowPolicy {
+        DROP_NEWEST,
+        DROP_OLDEST
+    }
+
+    /**
+     * How notifications travel.
+     * UNARY: one NotifyInsufficientStock call per notification.
+     * STREAM: notifications coalesced into batches on a long-lived NotifyInsufficientStockBatch stream
+     * (falls back to UNARY if the server does not implement it).
+     */
+    public enum Transport {
+        UNARY,
+        STREAM
+    }
+
+    /**
+     * Where notifications go once they are due.
+     * OUTBOX: a row in notification_outbox, written in the caller's transaction and sent by the relay.
+     * QUEUE: the in-memory dispatcher queue (lost on restart).
+     */
+    public enum Delivery {
+        OUTBOX,
+        QUEUE
+    }
+
+    private Delivery delivery = Delivery.OUTBOX;
+    private int queueCapacity = 10_000;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+    private int maxInFlight = 64;
+    private Duration deadline = Duration.ofSeconds(2);
+    private int maxAttempts = 4;
+    private Duration initialBackoff = Duration.ofMillis(200);
+    private Duration maxBackoff = Duration.ofSeconds(5);
+    private Transport transport = Transport.STREAM;
+    private int batchSize = 100;
+    private Duration batchWindow = Duration.ofMillis(20);
+    private int streamMaxMessages = 5_000;
+    private Duration streamMaxAge = Duration.ofSeconds(30);
+    private Duration dedupeWindow = Duration.ofSeconds(30);
+    private final Outbox outbox = new Outbox();
+    private final Channel channel = new Channel();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final StandIn standIn = new StandIn();
+
+    public Delivery getDelivery() {
+        return delivery;
+    }
+
+    public void setDelivery(Delivery delivery) {
+        this.delivery = delivery;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(Duration deadline) {
+        this.deadline = deadline;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getBatchWindow() {
+        return batchWindow;
+    }
+
+    public void setBatchWindow(Duration batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    public int getStreamMaxMessages() {
+        return streamMaxMessages;
+    }
+
+    public void setStreamMaxMessages(int streamMaxMessages) {
+        this.streamMaxMessages = streamMaxMessages;
+    }
+
+    public Duration getStreamMaxAge() {
+        return streamMaxAge;
+    }
+
+    public void setStreamMaxAge(Duration streamMaxAge) {
+        this.streamMaxAge = streamMaxAge;
+    }
+
+    public Duration getDedupeWindow() {
+        return dedupeWindow;
+    }
+
+    public void setDedupeWindow(Duration dedupeWindow) {
+        this.dedupeWindow = dedupeWindow;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public StandIn getStandIn() {
+        return standIn;
+    }
+
+    public static class Outbox {
+
+        private int batchSize = 200;
+        private Duration pollInterval = Duration.ofMillis(200);
+        private Duration retention = Duration.ofHours(24);
+        private Duration lease = Duration.ofMinutes(1);
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Duration getLease() {
+            return lease;
+        }
+
+        public void setLease(Duration lease) {
+            this.lease = lease;
+        }
+    }
+
+    /**
+     * Transparent retries done by the gRPC channel itself (service config). Off by default (max-attempts 1):
+     * the dispatcher and the outbox relay retry on their own, and both layers at once multiply the attempts.
+     * A non-zero hedging-delay switches NotifyInsufficientStock from retry to hedging: another attempt is sent
+     * every hedging-delay until one answers or max-attempts are out.
+     */
+    public static class Channel {
+
+        private int maxAttempts = 1;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        private double backoffMultiplier = 2.0;
+        private List<String> retryableStatusCodes = List.of("UNAVAILABLE");
+        private Duration hedgingDelay = Duration.ZERO;
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public double getBackoffMultiplier() {
+            return backoffMultiplier;
+        }
+
+        public void setBackoffMultiplier(double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+        }
+
+        public List<String> getRetryableStatusCodes() {
+            return retryableStatusCodes;
+        }
+
+        public void setRetryableStatusCodes(List<String> retryableStatusCodes) {
+            this.retryableStatusCodes = retryableStatusCodes;
+        }
+
+        public Duration getHedgingDelay() {
+            return hedgingDelay;
+        }
+
+        public void setHedgingDelay(Duration hedgingDelay) {
+            this.hedgingDelay = hedgingDelay;
+        }
+    }
+
+    /**
+     * Opens after failure-threshold consecutive failed calls; calls then fail fast until open-duration has passed
+     * and a single trial call is let through.
+     */
+    public static class CircuitBreaker {
+
+        private boolean enabled = true;
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+    }
+
+    public static class StandIn {
+
+        private boolean enabled = false;
+        private String name = "notification-stand-in";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
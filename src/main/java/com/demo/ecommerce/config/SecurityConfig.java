@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -31,7 +32,7 @@ public class SecurityConfig {
     @Order(1)
     public SecurityFilterChain publicSecurityFilterChain(HttpSecurity http) throws Exception {
         http
-                .securityMatcher("/items/view", "/jsp/orders", "/favicon.ico")
+                .securityMatcher("/items/view", "/items/stock-events", "/jsp/orders", "/jsp/orders/batch", "/favicon.ico")
                 .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
                 .csrf(csrf -> csrf.disable());
 
@@ -50,8 +51,10 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
 
                         // 2. Authorization Rules (based on roles)
-                        .requestMatchers("/api/items").hasAnyRole("ADMIN", "SELLER")
-                        .requestMatchers("/api/orders").hasAnyRole("ADMIN", "CUSTOMER")
+                        .requestMatchers("/api/items", "/api/items/low-stock", "/api/items/export", "/api/items/search", "/api/items/import").hasAnyRole("ADMIN", "SELLER")
+                        .requestMatchers(HttpMethod.POST, "/api/items/*/image").hasAnyRole("ADMIN", "SELLER")
+                        .requestMatchers("/api/orders", "/api/orders/batch").hasAnyRole("ADMIN", "CUSTOMER")
+                        .requestMatchers("/api/reservations", "/api/reservations/**").hasAnyRole("ADMIN", "CUSTOMER")
 
                         // 3. All other requests must be authenticated
                         .anyRequest().authenticated()
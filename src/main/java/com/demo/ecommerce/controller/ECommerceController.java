@@ -1,33 +1,81 @@
 package com.demo.ecommerce.controller;
 
 
+import com.demo.ecommerce.dto.BatchOrderRequest;
+import com.demo.ecommerce.dto.BatchOrderResponse;
+import com.demo.ecommerce.dto.ItemFilter;
+import com.demo.ecommerce.dto.ItemImageResponse;
+import com.demo.ecommerce.dto.ItemImportResponse;
 import com.demo.ecommerce.dto.PlaceOrderRequest;
+import com.demo.ecommerce.dto.ReservationResponse;
 import com.demo.ecommerce.dto.SimpleApiResponse;
+import com.demo.ecommerce.image.ItemImageSender;
+import com.demo.ecommerce.image.ItemImageStore;
+import com.demo.ecommerce.image.ItemImageVariants;
 import com.demo.ecommerce.model.Item;
+import com.demo.ecommerce.service.CatalogExporter;
+import com.demo.ecommerce.service.CatalogImporter;
+import com.demo.ecommerce.service.CatalogSnapshot;
+import com.demo.ecommerce.service.IdempotencyService;
 import com.demo.ecommerce.service.ItemService;
+import com.demo.ecommerce.service.ItemVersions;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.security.Principal;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/api")
 @Validated
 public class ECommerceController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_SEARCH_RESULTS = 20;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    // Clients may keep item responses but must revalidate them (ETag) before each use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final ItemService itemService;
+    private final IdempotencyService idempotencyService;
+    private final CatalogExporter catalogExporter;
+    private final CatalogImporter catalogImporter;
+    private final ItemVersions itemVersions;
+    private final CatalogSnapshot catalogSnapshot;
+    private final ItemImageStore itemImageStore;
+    private final ItemImageSender itemImageSender;
+    private final ItemImageVariants itemImageVariants;
 
-    public ECommerceController(ItemService itemService) {
+    public ECommerceController(ItemService itemService, IdempotencyService idempotencyService,
+                               CatalogExporter catalogExporter, CatalogImporter catalogImporter,
+                               ItemVersions itemVersions,
+                               CatalogSnapshot catalogSnapshot, ItemImageStore itemImageStore,
+                               ItemImageSender itemImageSender, ItemImageVariants itemImageVariants) {
         this.itemService = itemService;
+        this.idempotencyService = idempotencyService;
+        this.catalogExporter = catalogExporter;
+        this.catalogImporter = catalogImporter;
+        this.itemVersions = itemVersions;
+        this.catalogSnapshot = catalogSnapshot;
+        this.itemImageStore = itemImageStore;
+        this.itemImageSender = itemImageSender;
+        this.itemImageVariants = itemImageVariants;
     }
 
     /**
@@ -57,34 +105,169 @@ public ResponseEntity<Item> addNewItem(@Valid @RequestBody Item newItem) {
 }
 
     /**
-     * ENDPOINT 2: Get all items from the inventory.
-     * GET http://localhost:8080/api/items
+     * ENDPOINT 2: List items, one keyset page at a time.
+     * GET http://localhost:8080/api/items?after=120&limit=50&minQuantity=1&maxPrice=500&namePrefix=Lap
+     * Returns { "items": [...], "nextCursor": 170 }; pass nextCursor as after for the next page (null on the last).
+     * GET http://localhost:8080/api/items?unpaged=true returns the whole catalog as a plain list (no filters),
+     * written straight from the pre-serialized catalog snapshot (gzipped when Accept-Encoding allows).
+     * Sends the catalog ETag; If-None-Match with the current one gets 304 before any item is read.
      */
     @GetMapping("/items")
-    public ResponseEntity<List<Item>> getAllItems() {
-        List<Item> items = itemService.findAll();
-        return ResponseEntity.ok(items);
+    public ResponseEntity<?> getAllItems(
+            @RequestParam(required = false) @Positive(message = "after must be a positive item ID") Long after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "limit must be at least 1")
+            @Max(value = MAX_PAGE_SIZE, message = "limit must be at most " + MAX_PAGE_SIZE) int limit,
+            @RequestParam(required = false) Integer minQuantity,
+            @RequestParam(required = false) Integer maxQuantity,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(defaultValue = "false") boolean unpaged,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+
+        ItemFilter filter = new ItemFilter(minQuantity, maxQuantity, minPrice, maxPrice, namePrefix);
+        if (unpaged && (after != null || !filter.equals(ItemFilter.NONE))) {
+            throw new IllegalArgumentException("unpaged=true cannot be combined with after or filters");
+        }
+        CatalogSnapshot.Snapshot snapshot = unpaged ? catalogSnapshot.current() : null;
+        if (snapshot != null) {
+            return snapshotResponse(snapshot, acceptsGzip(acceptEncoding), request);
+        }
+
+        String etag = itemVersions.catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null; // 304
+        }
+        Object body = unpaged ? itemService.findAll() : itemService.findPage(after, limit, filter);
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body);
+    }
+
+    // The snapshot's bytes as they are: no query, no serialization
+    private ResponseEntity<byte[]> snapshotResponse(CatalogSnapshot.Snapshot snapshot, boolean gzip, WebRequest request) {
+        gzip = gzip && snapshot.gzippedJson() != null;
+        String etag = gzip ? snapshot.gzipETag() : snapshot.etag();
+        if (request.checkNotModified(etag)) {
+            return null; // 304
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(REVALIDATE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? snapshot.gzippedJson() : snapshot.json());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    /**
+     * ENDPOINT 2a: Items below the low-stock threshold, lowest stock first (restocking dashboard).
+     * GET http://localhost:8080/api/items/low-stock
+     */
+    @GetMapping("/items/low-stock")
+    public ResponseEntity<List<Item>> getLowStockItems() {
+        return ResponseEntity.ok(itemService.getLowStockItems());
+    }
+
+    /**
+     * ENDPOINT 2b: Export the whole catalog, streamed row by row (nightly feeds, search indexing).
+     * GET http://localhost:8080/api/items/export?format=ndjson   (or format=csv)
+     * Gzip-compressed when the request has Accept-Encoding: gzip.
+     */
+    @GetMapping("/items/export")
+    public void exportItems(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+
+        CatalogExporter.Format exportFormat = CatalogExporter.Format.parse(format);
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        response.setContentType(exportFormat.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalog." + exportFormat.extension() + "\"");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        catalogExporter.export(exportFormat, response.getOutputStream(), gzip);
+    }
+
+    /**
+     * ENDPOINT 2d: Bulk import items from a streamed CSV (itemName,quantity,price header) or NDJSON body.
+     * POST http://localhost:8080/api/items/import?format=csv   (Content-Encoding: gzip accepted)
+     * Rows are added in chunks; invalid and duplicate rows are listed in the response, not fatal.
+     */
+    @PostMapping("/items/import")
+    public ResponseEntity<ItemImportResponse> importItems(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            HttpServletRequest request) throws IOException {
+
+        CatalogExporter.Format importFormat = CatalogExporter.Format.parse(format);
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            body = new GZIPInputStream(body, 8192);
+        }
+        return ResponseEntity.ok(catalogImporter.importItems(importFormat, body));
+    }
+
+    /**
+     * ENDPOINT 2c: Search items by name - whole words, word prefixes and one-letter typos, best match first.
+     * GET http://localhost:8080/api/items/search?q=gaming mou&limit=20
+     */
+    @GetMapping("/items/search")
+    public ResponseEntity<List<Item>> searchItems(
+            @RequestParam @NotBlank(message = "q must not be blank") String q,
+            @RequestParam(defaultValue = "" + DEFAULT_SEARCH_RESULTS)
+            @Min(value = 1, message = "limit must be at least 1")
+            @Max(value = MAX_SEARCH_RESULTS, message = "limit must be at most " + MAX_SEARCH_RESULTS) int limit) {
+        return ResponseEntity.ok(itemService.searchItems(q, limit));
     }
 
     /**
      * ENDPOINT 3: Get an item's details.
      * GET http://localhost:8080/api/items/123
+     * Sends the item's ETag; If-None-Match with the current one gets 304 and no body.
      */
     @GetMapping("/items/{itemId}")
     public ResponseEntity<Item> getItemById(
-            @PathVariable @Positive(message = "Item ID must be a positive number") Long itemId) {
+            @PathVariable @Positive(message = "Item ID must be a positive number") Long itemId,
+            WebRequest request) {
 
-        Item item = itemService.getItemById(itemId);
-        return ResponseEntity.ok(item);
+        Item item = itemService.getItemById(itemId); // served from the item cache when enabled
+        String etag = itemVersions.itemETag(item);
+        if (request.checkNotModified(etag)) {
+            return null; // 304
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(item);
     }
 
     /**
      * ENDPOINT 4: Place an order for an item.
      * POST http://localhost:8080/api/orders
      * Body: { "itemId": 123, "quantity": 2 }
+     * Optional header: Idempotency-Key (a retry with the same key returns the original response)
      */
     @PostMapping("/orders")
-    public ResponseEntity<SimpleApiResponse> placeOrder(@Valid @RequestBody PlaceOrderRequest orderRequest) {
+    public ResponseEntity<SimpleApiResponse> placeOrder(
+            @Valid @RequestBody PlaceOrderRequest orderRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+
+        if (idempotencyKey == null) {
+            return doPlaceOrder(orderRequest);
+        }
+        return idempotencyService.execute("api-orders:" + principal.getName(), idempotencyKey, orderRequest,
+                SimpleApiResponse.class, () -> doPlaceOrder(orderRequest));
+    }
+
+    private ResponseEntity<SimpleApiResponse> doPlaceOrder(PlaceOrderRequest orderRequest) {
         // The service handles all logic and throws exceptions if something goes wrong
         Item updatedItem = itemService.placeOrder(orderRequest);
 
@@ -93,30 +276,105 @@ public ResponseEntity<Item> addNewItem(@Valid @RequestBody Item newItem) {
     }
 
     /**
-     * ENDPOINT 5: Get the headphone image (Streamed via Servlet).
-     * GET http://localhost:8080/api/items/123/image
+     * ENDPOINT 4b: Place a multi-line order in one transaction.
+     * POST http://localhost:8080/api/orders/batch
+     * Body: { "lines": [ { "itemId": 1, "quantity": 2 }, { "itemId": 7, "quantity": 1 } ], "allOrNothing": true }
+     */
+    @PostMapping("/orders/batch")
+    public ResponseEntity<BatchOrderResponse> placeOrders(
+            @Valid @RequestBody BatchOrderRequest batchRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+
+        if (idempotencyKey == null) {
+            return doPlaceOrders(batchRequest);
+        }
+        return idempotencyService.execute("api-orders-batch:" + principal.getName(), idempotencyKey, batchRequest,
+                BatchOrderResponse.class, () -> doPlaceOrders(batchRequest));
+    }
+
+    private ResponseEntity<BatchOrderResponse> doPlaceOrders(BatchOrderRequest batchRequest) {
+        BatchOrderResponse response = itemService.placeOrders(batchRequest);
+        return ResponseEntity.status(response.committed() ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    /**
+     * ENDPOINT 4c: Hold stock while a checkout completes.
+     * POST http://localhost:8080/api/reservations
+     * Body: { "itemId": 123, "quantity": 2 }
+     * The hold expires after app.inventory.reservation.ttl unless confirmed or released.
+     */
+    @PostMapping("/reservations")
+    public ResponseEntity<ReservationResponse> reserve(@Valid @RequestBody PlaceOrderRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(itemService.reserve(request));
+    }
+
+    /**
+     * ENDPOINT 4d: Place the order for a held reservation.
+     * POST http://localhost:8080/api/reservations/{reservationId}/confirm
+     */
+    @PostMapping("/reservations/{reservationId}/confirm")
+    public ResponseEntity<ReservationResponse> confirmReservation(@PathVariable String reservationId) {
+        return ResponseEntity.ok(itemService.confirm(reservationId));
+    }
+
+    /**
+     * ENDPOINT 4e: Cancel a held reservation and return its stock.
+     * DELETE http://localhost:8080/api/reservations/{reservationId}
+     */
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<ReservationResponse> releaseReservation(@PathVariable String reservationId) {
+        return ResponseEntity.ok(itemService.release(reservationId));
+    }
+
+    /**
+     * ENDPOINT 5: Upload an item's image (raw JPEG, PNG, GIF or WebP body, up to app.inventory.images.max-upload-size).
+     * POST http://localhost:8080/api/items/123/image
+     * Returns the versioned download URL; re-uploading replaces the item's image. Resized variants
+     * are made in the background.
+     */
+    @PostMapping("/items/{itemId}/image")
+    public ResponseEntity<ItemImageResponse> uploadItemImage(
+            @PathVariable @Positive(message = "Item ID must be a positive number") Long itemId,
+            HttpServletRequest request) throws IOException {
+
+        itemService.getItemById(itemId); // 404 for unknown items
+        ItemImageStore.StoredImage image = itemImageStore.save(itemId, request.getInputStream());
+        itemImageVariants.submit(image);
+        return ResponseEntity.ok(new ItemImageResponse(itemId, "/api/items/" + itemId + "/image?v=" + image.hash(),
+                image.etag(), image.contentType(), image.size()));
+    }
+
+    /**
+     * ENDPOINT 5b: Get an item's image.
+     * GET http://localhost:8080/api/items/123/image   (or ?v=<hash> from the upload, cached for a year)
+     * GET http://localhost:8080/api/items/123/image?size=thumb&v=<hash>   (thumb, card or full JPEG)
+     * Supports Range (206) and If-None-Match (304); sent zero-copy from disk, or from memory when small.
+     * A size that is not ready yet is answered with the original, without the year-long caching.
      */
     @GetMapping("/items/{itemId}/image")
     public void getItemImage(
             @PathVariable @Positive(message = "Item ID must be a positive number") Long itemId,
+            @RequestParam(required = false) String v,
+            @RequestParam(required = false) String size,
+            HttpServletRequest request,
             HttpServletResponse response) throws IOException {
 
-        String imagePath = "C:\\Users\\Pky\\Desktop\\temp\\bluetoothheadphones.jpg";
-        File imgFile = new File(imagePath);
-
-        if (!imgFile.exists()) {
+        ItemImageStore.StoredImage image = itemImageStore.find(itemId).orElse(null);
+        if (image == null) {
             response.sendError(HttpServletResponse.SC_NOT_FOUND, "Image not found");
             return;
         }
-
-        response.setContentType("image/jpeg");
-        response.setContentLengthLong(imgFile.length());
-
-        try (InputStream in = new FileInputStream(imgFile);
-             OutputStream out = response.getOutputStream()) {
-
-            in.transferTo(out); // Java 9+ (cleaner)
+        boolean versioned = image.hash().equals(v);
+        if (size != null) {
+            ItemImageStore.StoredImage variant = itemImageVariants.find(image, ItemImageVariants.Size.fromParam(size));
+            if (variant == null) {
+                versioned = false; // the URL will name the resized image once it exists
+            } else {
+                image = variant;
+            }
         }
+        itemImageSender.send(image, versioned, request, response);
     }
 
 }
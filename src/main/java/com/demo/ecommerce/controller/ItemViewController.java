@@ -1,8 +1,12 @@
 package com.demo.ecommerce.controller;
 
+import com.demo.ecommerce.dto.BatchOrderRequest;
+import com.demo.ecommerce.dto.BatchOrderResponse;
 import com.demo.ecommerce.dto.PlaceOrderRequest;
 import com.demo.ecommerce.dto.SimpleApiResponse;
 import com.demo.ecommerce.model.Item;
+import com.demo.ecommerce.service.CatalogSnapshot;
+import com.demo.ecommerce.service.IdempotencyService;
 import com.demo.ecommerce.service.ItemService;
 import com.demo.ecommerce.service.ItemServiceImpl;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -12,6 +16,11 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.security.Principal;
 import java.util.List;
 
 @Controller
@@ -19,11 +28,20 @@ public class ItemViewController {
 
     private final ItemService itemService;
     private final ItemServiceImpl itemServiceImpl;
+    private final IdempotencyService idempotencyService;
+    private final StockEventStream stockEventStream;
+    private final CatalogSnapshot catalogSnapshot;
 
     public ItemViewController(ItemService itemService,
-                              @Qualifier("fastItemService") ItemServiceImpl itemServiceImpl) {
+                              @Qualifier("fastItemService") ItemServiceImpl itemServiceImpl,
+                              IdempotencyService idempotencyService,
+                              StockEventStream stockEventStream,
+                              CatalogSnapshot catalogSnapshot) {
         this.itemService = itemService;
         this.itemServiceImpl = itemServiceImpl;
+        this.idempotencyService = idempotencyService;
+        this.stockEventStream = stockEventStream;
+        this.catalogSnapshot = catalogSnapshot;
     }
 
     /**
@@ -32,18 +50,50 @@ public class ItemViewController {
      */
     @GetMapping("/items/view")
     public String viewItems(Model model) {
-        List<Item> items = itemService.findAll();
+        // Read before the items: a change in between is both rendered and replayed, never lost
+        model.addAttribute("stockEventsSince", stockEventStream.currentId());
+        // Only a snapshot with every committed change is as new as that event id; otherwise read the table
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.currentIfFresh();
+        List<Item> items = snapshot != null ? snapshot.items() : itemService.findAll();
         model.addAttribute("items", items);
         return "items";
     }
 
+    /**
+     * Live stock for the JSP page (server-sent events), one event per committed stock change
+     * GET http://localhost:8080/items/stock-events?since=<id from the page>
+     */
+    @GetMapping("/items/stock-events")
+    public void streamStockEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String since,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        // On reconnect the browser sends the id of the last event it received
+        stockEventStream.open(request, response, lastEventId != null ? lastEventId : since);
+    }
+
     /**
      * Place order from JSP page (public endpoint with gRPC notification)
      * POST http://localhost:8080/jsp/orders
      */
     @PostMapping("/jsp/orders")
     @ResponseBody
-    public ResponseEntity<SimpleApiResponse> placeOrderFromJsp(@RequestBody PlaceOrderRequest orderRequest) {
+    public ResponseEntity<SimpleApiResponse> placeOrderFromJsp(
+            @RequestBody PlaceOrderRequest orderRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Principal principal,
+            HttpServletRequest request) {
+
+        if (idempotencyKey == null) {
+            return doPlaceOrderFromJsp(orderRequest);
+        }
+        return idempotencyService.execute("jsp-orders:" + caller(principal, request), idempotencyKey, orderRequest,
+                SimpleApiResponse.class, () -> doPlaceOrderFromJsp(orderRequest));
+    }
+
+    private ResponseEntity<SimpleApiResponse> doPlaceOrderFromJsp(PlaceOrderRequest orderRequest) {
         try {
             Item updatedItem = itemServiceImpl.processOrderWithLowStockCheck(
                 orderRequest.itemId(),
@@ -59,4 +109,34 @@ public class ItemViewController {
                                .body(new SimpleApiResponse(e.getMessage()));
         }
     }
+
+    /**
+     * Place the whole JSP cart as one batch order (one request, one transaction)
+     * POST http://localhost:8080/jsp/orders/batch
+     */
+    @PostMapping("/jsp/orders/batch")
+    @ResponseBody
+    public ResponseEntity<BatchOrderResponse> placeBatchOrderFromJsp(
+            @Valid @RequestBody BatchOrderRequest batchRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Principal principal,
+            HttpServletRequest request) {
+
+        if (idempotencyKey == null) {
+            return doPlaceBatchOrderFromJsp(batchRequest);
+        }
+        return idempotencyService.execute("jsp-orders-batch:" + caller(principal, request), idempotencyKey, batchRequest,
+                BatchOrderResponse.class, () -> doPlaceBatchOrderFromJsp(batchRequest));
+    }
+
+    // The JSP order endpoints are public: keys are scoped to the signed-in user, or else to the browser
+    // session, which items.jsp opens when the page is rendered (so a retry carries the same one)
+    private static String caller(Principal principal, HttpServletRequest request) {
+        return principal != null ? "user:" + principal.getName() : "session:" + request.getSession().getId();
+    }
+
+    private ResponseEntity<BatchOrderResponse> doPlaceBatchOrderFromJsp(BatchOrderRequest batchRequest) {
+        BatchOrderResponse response = itemService.placeOrders(batchRequest);
+        return ResponseEntity.status(response.committed() ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(response);
+    }
 }
@@ -0,0 +1,318 @@
+package com.demo.ecommerce.controller;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Server-sent stock events for items.jsp: one {@code {"i":itemId,"q":quantity,"d":delta}} event
+ * per committed stock change. Newly added items get none: they are not on a page rendered before
+ * them, so a bulk import cannot flood the ring.
+ *
+ * Every change is encoded once into a shared ring of frames. Each browser only has a cursor into
+ * that ring and is written with non-blocking servlet I/O (WriteListener/isReady), so an idle
+ * connection holds no thread: the single stock-events thread and the container's onWritePossible
+ * callbacks copy frames from the cursor to the ring's head while the socket accepts them. A browser
+ * that falls a whole ring behind, or reconnects with an id that is no longer in the ring (or from
+ * before a restart), gets a {@code resync} event and reloads the page.
+ *
+ * Event ids are {@code <epoch>-<sequence>}, so EventSource's automatic reconnect (Last-Event-ID)
+ * resumes exactly where it stopped.
+ */
+@Component
+public class StockEventStream {
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESYNC = "event: resync\ndata: \n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_WRITE_BYTES = 16 * 1024;
+
+    private final InventoryConfig.StockEvents config;
+    private final StockFeed stockFeed;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicReferenceArray<byte[]> ring;
+    private final int mask;
+    // Sequence of the next frame. Readers copy without locking, so only frames newer than
+    // head - ring size (one slot kept free for the frame being written) are readable.
+    private volatile long head;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final Consumer<List<StockChange>> listener = this::onChange;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Counter resyncs;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "stock-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StockEventStream(StockFeed stockFeed, InventoryConfig inventoryConfig, MeterRegistry meterRegistry) {
+        this.config = inventoryConfig.getStockEvents();
+        this.stockFeed = stockFeed;
+        if (Integer.bitCount(config.getBufferSize()) != 1) {
+            throw new IllegalArgumentException("app.inventory.stock-events.buffer-size must be a power of two");
+        }
+        this.ring = new AtomicReferenceArray<>(config.getBufferSize());
+        this.mask = config.getBufferSize() - 1;
+        this.resyncs = meterRegistry.counter("items.stock_events.resyncs");
+        Gauge.builder("items.stock_events.connections", clients, Set::size).register(meterRegistry);
+
+        stockFeed.subscribe(listener);
+        long heartbeatMs = config.getHeartbeatInterval().toMillis();
+        writer.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stockFeed.unsubscribe(listener);
+        writer.shutdownNow();
+        clients.forEach(Client::close);
+    }
+
+    /**
+     * Id of the latest event. A page rendered after reading it can resume from it without a gap.
+     */
+    public String currentId() {
+        return epoch + "-" + head;
+    }
+
+    /**
+     * Number of open streams.
+     */
+    public int connectionCount() {
+        return clients.size();
+    }
+
+    // ------------------- PUBLISH -------------------
+
+    private void onChange(List<StockChange> changes) {
+        boolean written = false;
+        synchronized (this) {
+            for (StockChange change : changes) {
+                if (change.added()) {
+                    continue;
+                }
+                String data = "{\"i\":" + change.itemId() + ",\"q\":" + change.quantity() + ",\"d\":" + change.delta() + "}";
+                long sequence = head;
+                ring.set((int) (sequence & mask), ("id: " + epoch + "-" + (sequence + 1) + "\ndata: " + data + "\n\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                head = sequence + 1;
+                written = true;
+            }
+        }
+        if (written && !clients.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            writer.execute(this::drainAll);
+        }
+    }
+
+    private void drainAll() {
+        drainScheduled.set(false);
+        for (Client client : clients) {
+            client.drain();
+        }
+    }
+
+    private void heartbeat() {
+        for (Client client : clients) {
+            client.heartbeat();
+        }
+    }
+
+    // ------------------- SUBSCRIBE -------------------
+
+    /**
+     * Turns the request into an event stream; returns at once, the container keeps the connection.
+     * @param lastEventId Last-Event-ID header or ?since= parameter, or null to start from now.
+     */
+    public void open(HttpServletRequest request, HttpServletResponse response, String lastEventId) throws IOException {
+        if (clients.size() >= config.getMaxConnections()) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many stock event streams");
+            return;
+        }
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no"); // proxies must not hold events back
+
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(config.getConnectionTimeout().toMillis());
+        Client client = new Client(async, response.getOutputStream(), resumeFrom(lastEventId));
+        async.addListener(client);
+        clients.add(client);
+        client.out.setWriteListener(client); // the container calls onWritePossible once the stream is writable
+    }
+
+    // Next sequence to send, or -1 when the page has to reload
+    private long resumeFrom(String lastEventId) {
+        long current = head;
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return current;
+        }
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) {
+            return -1; // from before a restart
+        }
+        try {
+            long sequence = Long.parseLong(lastEventId.substring(dash + 1));
+            return sequence > current || current - sequence >= ring.length() ? -1 : sequence;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Client implements WriteListener, AsyncListener {
+
+        final AsyncContext async;
+        final ServletOutputStream out;
+
+        // Guarded by this
+        private long cursor; // next sequence to send; -1: send resync and close
+        private boolean unflushed = true; // the first flush sends the headers (EventSource 'open')
+        private boolean closed;
+
+        Client(AsyncContext async, ServletOutputStream out, long cursor) {
+            this.async = async;
+            this.out = out;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        synchronized void drain() {
+            if (closed) {
+                return;
+            }
+            try {
+                while (out.isReady()) {
+                    if (cursor < 0 || head - cursor >= ring.length()) {
+                        resync();
+                        return;
+                    }
+                    byte[] batch = nextBatch();
+                    if (cursor < 0) {
+                        continue;
+                    }
+                    if (batch != null) {
+                        out.write(batch);
+                        unflushed = true;
+                    } else if (unflushed) {
+                        unflushed = false;
+                        out.flush();
+                    } else {
+                        return; // caught up; the next change or heartbeat resumes
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        // Frames from the cursor up to the head (bounded), or null when caught up
+        private byte[] nextBatch() {
+            long end = head;
+            if (cursor >= end) {
+                return null;
+            }
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            long sequence = cursor;
+            while (sequence < end && batch.size() < MAX_WRITE_BYTES) {
+                batch.writeBytes(ring.get((int) (sequence & mask)));
+                sequence++;
+            }
+            if (head - cursor >= ring.length()) {
+                cursor = -1; // overwritten while copying
+                return null;
+            }
+            cursor = sequence;
+            return batch.toByteArray();
+        }
+
+        synchronized void heartbeat() {
+            if (closed) {
+                return;
+            }
+            try {
+                if (out.isReady() && cursor >= head) {
+                    out.write(HEARTBEAT);
+                    out.flush();
+                } else {
+                    drain(); // behind: let the drain write (or register for onWritePossible)
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private void resync() throws IOException {
+            resyncs.increment();
+            out.write(RESYNC);
+            closed = true;
+            clients.remove(this);
+            async.complete(); // the container flushes the pending frame before closing
+        }
+
+        synchronized void close() {
+            closed = true;
+            clients.remove(this);
+            try {
+                async.complete();
+            } catch (IllegalStateException ignored) {
+                // already completed or timed out
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            synchronized (this) {
+                closed = true;
+            }
+            clients.remove(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close(); // the browser reconnects with Last-Event-ID
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.demo.ecommerce.dao;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dto.ItemFilter;
+import com.demo.ecommerce.dto.PlaceOrderRequest;
+import com.demo.ecommerce.model.Item;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Read-through cache in front of {@link ItemDaoImpl} (app.inventory.item-cache.enabled).
+ *
+ * Items are cached by id with a size bound and a time-to-live; concurrent misses on one id share
+ * a single load. Names and prices change only through save/update, which invalidate the entry.
+ * Stock changes much more often, so the cached quantity is only trusted until the next stock write
+ * through this DAO: the write marks it stale (again after the surrounding transaction ends, so a
+ * reload that raced the commit cannot survive), and the next findById re-reads just the quantity.
+ * {@link #findCatalogEntry} never re-reads it: the order path takes its stock from tryDecrement.
+ * SQL that rewrites quantities without this DAO (the ledger rebuild) calls
+ * {@link #markAllQuantitiesStale}; stock decisions read {@link #findQuantity}, which is never cached.
+ *
+ * Meters: cache.gets/cache.evictions/cache.size tagged cache=items, and items.cache.quantity_reloads.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(prefix = "app.inventory.item-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CachingItemDao implements ItemDao {
+
+    // generation changes on every stock write, so a quantity read under an older one is discarded
+    private record Entry(Item item, long generation, boolean quantityCurrent) {
+
+        Entry staleQuantity() {
+            return new Entry(item, generation + 1, false);
+        }
+    }
+
+    private final ItemDao delegate;
+    private final Cache<Long, Entry> cache;
+    private final Counter quantityReloads;
+
+    public CachingItemDao(ItemDaoImpl delegate, InventoryConfig inventoryConfig, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        InventoryConfig.ItemCache config = inventoryConfig.getItemCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "items");
+        this.quantityReloads = meterRegistry.counter("items.cache.quantity_reloads");
+    }
+
+    // ------------------- READS -------------------
+
+    @Override
+    public Item findById(Long id) {
+        Entry entry = cache.get(id, this::load);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.quantityCurrent()) {
+            return copy(entry.item(), entry.item().getQuantity());
+        }
+
+        quantityReloads.increment();
+        Integer quantity = delegate.findQuantity(id);
+        if (quantity == null) {
+            cache.invalidate(id);
+            return null;
+        }
+        cache.asMap().computeIfPresent(id, (key, current) -> current.generation() == entry.generation()
+                ? new Entry(copy(current.item(), quantity), current.generation(), true)
+                : current);
+        return copy(entry.item(), quantity);
+    }
+
+    @Override
+    public Item findCatalogEntry(Long id) {
+        Entry entry = cache.get(id, this::load);
+        return entry == null ? null : copy(entry.item(), entry.item().getQuantity());
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return cache.getIfPresent(id) != null || delegate.exists(id);
+    }
+
+    @Override
+    public Integer findQuantity(Long id) {
+        return delegate.findQuantity(id);
+    }
+
+    @Override
+    public Integer findQuantityForUpdate(Long itemId) {
+        return delegate.findQuantityForUpdate(itemId);
+    }
+
+    @Override
+    public Item findByName(String itemName) {
+        return delegate.findByName(itemName);
+    }
+
+    @Override
+    public List<Item> findByIds(Collection<Long> ids) {
+        return delegate.findByIds(ids);
+    }
+
+    @Override
+    public List<Item> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Item> findLowStock(int threshold) {
+        return delegate.findLowStock(threshold);
+    }
+
+    // Bulk scans go straight to the table: they would only flush the hot entries out of the cache
+    @Override
+    public long forEachItem(Consumer<? super Item> action) {
+        return delegate.forEachItem(action);
+    }
+
+    @Override
+    public List<Item> findPage(Long afterId, int limit, ItemFilter filter, Collection<Long> anyQuantity) {
+        return delegate.findPage(afterId, limit, filter, anyQuantity);
+    }
+
+    private Entry load(Long id) {
+        Item item = delegate.findById(id);
+        return item == null ? null : new Entry(item, 0, true);
+    }
+
+    // Callers change the items they get (e.g. setQuantity), so the cached instance never leaves
+    private static Item copy(Item item, int quantity) {
+        Item copy = new Item(item.getItemName(), quantity, item.getPrice());
+        copy.setItemId(item.getItemId());
+        copy.setVersion(item.getVersion());
+        return copy;
+    }
+
+    // ------------------- WRITES -------------------
+
+    @Override
+    public Item save(Item item) {
+        Item saved = delegate.save(item);
+        afterWrite(List.of(saved.getItemId()), cache::invalidate);
+        return saved;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<Item> saved = delegate.saveAll(items);
+        afterWrite(saved.stream().map(Item::getItemId).toList(), cache::invalidate);
+        return saved;
+    }
+
+    @Override
+    public Map<String, Long> findIdsByNames(Collection<String> itemNames) {
+        return delegate.findIdsByNames(itemNames);
+    }
+
+    @Override
+    public Item update(Item item) {
+        Item updated = delegate.update(item);
+        afterWrite(List.of(item.getItemId()), cache::invalidate);
+        return updated;
+    }
+
+    @Override
+    public Integer tryDecrement(Long itemId, int quantity, int minRemaining) {
+        Integer remaining = delegate.tryDecrement(itemId, quantity, minRemaining);
+        if (remaining != null) {
+            afterWrite(List.of(itemId), this::markQuantityStale);
+        }
+        return remaining;
+    }
+
+    @Override
+    public int[] tryDecrementBatch(List<PlaceOrderRequest> lines, int minRemaining) {
+        int[] counts = delegate.tryDecrementBatch(lines, minRemaining);
+        afterWrite(IntStream.range(0, lines.size())
+                .filter(i -> counts[i] > 0)
+                .mapToObj(i -> lines.get(i).itemId())
+                .distinct()
+                .toList(), this::markQuantityStale);
+        return counts;
+    }
+
+    @Override
+    public void applyStockDeltas(Map<Long, Integer> deltas) {
+        delegate.applyStockDeltas(deltas);
+        afterWrite(List.copyOf(deltas.keySet()), this::markQuantityStale);
+    }
+
+    @Override
+    public void markAllQuantitiesStale() {
+        delegate.markAllQuantitiesStale();
+        // Whole cache, again at the end: entries loaded during the transaction are covered too
+        afterWrite(() -> cache.asMap().replaceAll((id, entry) -> entry.staleQuantity()));
+    }
+
+    private void markQuantityStale(Long id) {
+        cache.asMap().computeIfPresent(id, (key, entry) -> entry.staleQuantity());
+    }
+
+    private void afterWrite(List<Long> ids, Consumer<Long> action) {
+        if (!ids.isEmpty()) {
+            afterWrite(() -> ids.forEach(action));
+        }
+    }
+
+    /**
+     * Applies {@code action} now and, inside a transaction, once more when it has ended: a reader
+     * may have reloaded the pre-commit value in between.
+     */
+    private void afterWrite(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
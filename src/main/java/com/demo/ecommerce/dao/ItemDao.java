@@ -1,7 +1,12 @@
 package com.demo.ecommerce.dao;
 
+import com.demo.ecommerce.dto.ItemFilter;
+import com.demo.ecommerce.dto.PlaceOrderRequest;
 import com.demo.ecommerce.model.Item;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ItemDao {
 
@@ -9,11 +14,89 @@ public interface ItemDao {
 
     Item findById(Long id);
 
+    /**
+     * Item for the order path: name and price are current, the quantity may lag (it can come from
+     * a cache). Stock must be taken through {@link #tryDecrement}, whose result is authoritative.
+     * @return the item, or null if it does not exist.
+     */
+    Item findCatalogEntry(Long id);
+
+    /**
+     * @return the current quantity, or null if the item does not exist.
+     */
+    Integer findQuantity(Long id);
+
     Item findByName(String itemName);
 
     Item save(Item item);
 
+    /**
+     * Inserts the items with one multi-row INSERT and sets their generated ids, which come back with
+     * the statement (no follow-up query).
+     */
+    List<Item> saveAll(List<Item> items);
+
+    /**
+     * Ids of the items with any of the given names, in one query on the name index.
+     * @return id by name; keys compare case-insensitively, like the column's collation on MySQL.
+     */
+    Map<String, Long> findIdsByNames(Collection<String> itemNames);
+
     Item update(Item item);
 
+    /**
+     * Decrements stock with a single guarded UPDATE so concurrent orders cannot oversell.
+     * @return the new quantity, or null if the item does not exist or the decrement
+     *         would leave fewer than {@code minRemaining} units.
+     */
+    Integer tryDecrement(Long itemId, int quantity, int minRemaining);
+
+    /**
+     * Reads the current quantity and locks the row until the surrounding transaction ends.
+     * @return the quantity, or null if the item does not exist.
+     */
+    Integer findQuantityForUpdate(Long itemId);
+
+    /**
+     * Runs {@link #tryDecrement} for every line as one JDBC batch.
+     * @return the update count per line, in input order (0 = rejected by the guard or missing item).
+     */
+    int[] tryDecrementBatch(List<PlaceOrderRequest> lines, int minRemaining);
+
+    /**
+     * Adds a signed delta to each item's quantity as one JDBC batch, without any stock guard.
+     * Used by write-behind paths whose decisions were already made elsewhere.
+     */
+    void applyStockDeltas(Map<Long, Integer> deltas);
+
+    /**
+     * Tells the DAO that quantities were rewritten by SQL that did not go through it (a ledger
+     * rebuild), so no quantity read before that write is served afterwards.
+     */
+    void markAllQuantitiesStale();
+
+    List<Item> findByIds(Collection<Long> ids);
+
     List<Item> findAll();
+
+    /**
+     * Items with fewer than {@code threshold} units, lowest stock first (ties by id).
+     * Answered from the quantity index rather than a table scan.
+     */
+    List<Item> findLowStock(int threshold);
+
+    /**
+     * Hands every item to {@code action} in id order, one row at a time, without building a list.
+     * The result set is read through a lazy cursor, so memory use does not grow with the catalog.
+     * @return Number of items visited.
+     */
+    long forEachItem(Consumer<? super Item> action);
+
+    /**
+     * Keyset page: items with an id greater than {@code afterId} that match the filter, in id order.
+     * @param afterId Last id of the previous page, or null for the first page.
+     * @param anyQuantity Items that skip the filter's quantity range (their stored quantity is not
+     *                    current; the caller checks the range itself). Empty for none.
+     */
+    List<Item> findPage(Long afterId, int limit, ItemFilter filter, Collection<Long> anyQuantity);
 }
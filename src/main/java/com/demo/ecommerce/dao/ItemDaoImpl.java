@@ -1,91 +1,313 @@
 package com.demo.ecommerce.dao;
 
+import com.demo.ecommerce.dto.ItemFilter;
+import com.demo.ecommerce.dto.PlaceOrderRequest;
+import com.demo.ecommerce.jooq.tables.records.SpringitemsRecord;
 import com.demo.ecommerce.model.Item;
+import org.jooq.BatchBindStep;
+import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
-import org.jooq.Record;
+import org.jooq.InsertValuesStep3;
+import org.jooq.Record1;
+import org.jooq.Record4;
+import org.jooq.RecordMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
+import static com.demo.ecommerce.jooq.Tables.SPRINGITEMS;
 import static org.jooq.impl.DSL.*;
 
+/**
+ * Item queries against the generated springitems table (jOOQ codegen from src/main/jooq).
+ *
+ * The point queries behind every item read and order are rendered to SQL once, in the constructor,
+ * and only bound and executed per call; the dynamic ones (filters, IN lists) are built as usual.
+ * Rows are mapped column by column by {@link #ITEM} rather than by reflection.
+ */
 @Repository
 public class ItemDaoImpl implements ItemDao {
 
+    /** springitems row -> Item. */
+    static final RecordMapper<SpringitemsRecord, Item> ITEM = record -> {
+        Item item = new Item(record.getItemName(), record.getQuantity(), record.getPrice());
+        item.setItemId(record.getItemId());
+        item.setVersion(record.getVersion());
+        return item;
+    };
+
     private final DSLContext dsl;
-    private static final String TABLE = "springitems";
+    private volatile Integer lazyFetchSize; // resolved on first use, see lazyFetchSize()
+
+    // Pre-rendered point queries; binds in the order given
+    private final String existsSql;             // id
+    private final String findByIdSql;           // id
+    private final String findByNameSql;         // name
+    private final String findQuantitySql;       // id
+    private final String findQuantityForUpdateSql; // id
+    private final String tryDecrementSql;       // quantity, id, quantity, minRemaining
+    private final String lastInsertIdSql;       // -
 
     public ItemDaoImpl(DSLContext dsl) {
         this.dsl = dsl;
+        this.existsSql = dsl.render(selectOne()
+                .from(SPRINGITEMS)
+                .where(SPRINGITEMS.ITEM_ID.eq(0L)));
+        this.findByIdSql = dsl.render(selectFrom(SPRINGITEMS)
+                .where(SPRINGITEMS.ITEM_ID.eq(0L)));
+        this.findByNameSql = dsl.render(selectFrom(SPRINGITEMS)
+                .where(SPRINGITEMS.ITEM_NAME.eq("")));
+        this.findQuantitySql = dsl.render(select(SPRINGITEMS.QUANTITY)
+                .from(SPRINGITEMS)
+                .where(SPRINGITEMS.ITEM_ID.eq(0L)));
+        this.findQuantityForUpdateSql = dsl.render(select(SPRINGITEMS.QUANTITY)
+                .from(SPRINGITEMS)
+                .where(SPRINGITEMS.ITEM_ID.eq(0L))
+                .forUpdate());
+        // The new quantity is also stored in the connection's LAST_INSERT_ID, so the caller learns it
+        // without reading the row again. The version is bumped by every UPDATE made here; with the
+        // quantity it identifies what GET /api/items/{id} returns
+        this.tryDecrementSql = dsl.render(dsl.update(SPRINGITEMS)
+                .set(SPRINGITEMS.QUANTITY, field("last_insert_id({0})", SPRINGITEMS.QUANTITY.getDataType(),
+                        SPRINGITEMS.QUANTITY.minus(0)))
+                .set(SPRINGITEMS.VERSION, SPRINGITEMS.VERSION.plus(inline(1L)))
+                .where(SPRINGITEMS.ITEM_ID.eq(0L))
+                .and(SPRINGITEMS.QUANTITY.minus(0).ge(0)));
+        this.lastInsertIdSql = dsl.render(select(field("last_insert_id()", Integer.class)));
     }
 
-  @Override
-public boolean exists(Long id) {
-    Integer count = dsl.selectCount()
-            .from(table(TABLE))
-            .where(field("item_id").eq(id))
-            .fetchOne(0, int.class);
-
-    return count != null && count > 0;
-}
-
-
-@Override
-public Item findById(Long id) {
-    Record record = dsl.select()
-            .from(table(TABLE))
-            .where(field("item_id").eq(id))
-            .fetchOne();
+    @Override
+    public boolean exists(Long id) {
+        return dsl.resultQuery(existsSql, id).fetchOne() != null;
+    }
 
-    return record == null ? null : record.into(Item.class);
-}
+    @Override
+    public Item findById(Long id) {
+        return dsl.resultQuery(findByIdSql, id).coerce(SPRINGITEMS).fetchOne(ITEM);
+    }
 
-@Override
-public Item findByName(String itemName) {
-    Record record = dsl.select()
-            .from(table(TABLE))
-            .where(field("item_name").eq(itemName))
-            .fetchOne();
+    @Override
+    public Item findByName(String itemName) {
+        return dsl.resultQuery(findByNameSql, itemName).coerce(SPRINGITEMS).fetchOne(ITEM);
+    }
 
-    return record == null ? null : record.into(Item.class);
-}
+    @Override
+    public Item save(Item item) {
+        // The generated key comes back with the INSERT (JDBC getGeneratedKeys), on the same connection
+        Long generatedId = dsl.insertInto(SPRINGITEMS)
+                .set(SPRINGITEMS.ITEM_NAME, item.getItemName())
+                .set(SPRINGITEMS.QUANTITY, item.getQuantity())
+                .set(SPRINGITEMS.PRICE, item.getPrice())
+                .returningResult(SPRINGITEMS.ITEM_ID)
+                .fetchOne(Record1::value1);
 
-@Override
-public Item save(Item item) {
-    // Insert the item
-    dsl.insertInto(table(TABLE))
-        .set(field("item_name"), item.getItemName())
-        .set(field("quantity"), item.getQuantity())
-        .set(field("price"), item.getPrice())
-        .execute();
+        if (generatedId != null) {
+            item.setItemId(generatedId);
+        }
 
-    // Fetch the last inserted ID
-    Long generatedId = dsl.select(field("LAST_INSERT_ID()", Long.class))
-        .fetchOne(0, Long.class);
+        return item;
+    }
 
-    // Set the generated ID on the item
-    if (generatedId != null) {
-        item.setItemId(generatedId);
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+        InsertValuesStep3<SpringitemsRecord, String, Integer, Integer> insert = dsl
+                .insertInto(SPRINGITEMS, SPRINGITEMS.ITEM_NAME, SPRINGITEMS.QUANTITY, SPRINGITEMS.PRICE);
+        for (Item item : items) {
+            insert = insert.values(item.getItemName(), item.getQuantity(), item.getPrice());
+        }
+        // Connector/J returns one key per row, counting up from the first: a multi-row VALUES insert
+        // gets consecutive AUTO_INCREMENT values under every innodb_autoinc_lock_mode
+        List<Long> ids = insert.returningResult(SPRINGITEMS.ITEM_ID).fetch(Record1::value1);
+        if (ids.size() != items.size()) {
+            throw new IllegalStateException("Inserted " + items.size() + " items but got " + ids.size() + " generated keys");
+        }
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setItemId(ids.get(i));
+        }
+        return items;
     }
 
-    return item;
-}
+    @Override
+    public Map<String, Long> findIdsByNames(Collection<String> itemNames) {
+        Map<String, Long> ids = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (!itemNames.isEmpty()) {
+            dsl.select(SPRINGITEMS.ITEM_NAME, SPRINGITEMS.ITEM_ID)
+                    .from(SPRINGITEMS)
+                    .where(SPRINGITEMS.ITEM_NAME.in(itemNames)) // idx_springitems_name
+                    .forEach(row -> ids.put(row.value1(), row.value2()));
+        }
+        return ids;
+    }
 
     @Override
     public Item update(Item item) {
-        dsl.update(table(TABLE))
-                .set(field("item_name"), item.getItemName())
-                .set(field("quantity"), item.getQuantity())
-                .set(field("price"), item.getPrice())
-                .where(field("item_id").eq(item.getItemId()))
+        dsl.update(SPRINGITEMS)
+                .set(SPRINGITEMS.ITEM_NAME, item.getItemName())
+                .set(SPRINGITEMS.QUANTITY, item.getQuantity())
+                .set(SPRINGITEMS.PRICE, item.getPrice())
+                .set(SPRINGITEMS.VERSION, SPRINGITEMS.VERSION.plus(inline(1L)))
+                .where(SPRINGITEMS.ITEM_ID.eq(item.getItemId()))
                 .execute();
 
         return item;
     }
 
+    @Override
+    @Transactional // keeps both statements on one connection: LAST_INSERT_ID is per connection
+    public Integer tryDecrement(Long itemId, int quantity, int minRemaining) {
+        // Check and subtract in one statement: the row lock taken by the UPDATE
+        // serializes concurrent orders, so there is no lost update window.
+        int updated = dsl.query(tryDecrementSql, quantity, itemId, quantity, minRemaining).execute();
+
+        if (updated == 0) {
+            return null;
+        }
+
+        // The value the UPDATE itself wrote; no table access
+        return dsl.resultQuery(lastInsertIdSql).fetchOne(0, Integer.class);
+    }
+
+    @Override
+    public Item findCatalogEntry(Long id) {
+        return findById(id);
+    }
+
+    @Override
+    public Integer findQuantity(Long id) {
+        return dsl.resultQuery(findQuantitySql, id).coerce(SPRINGITEMS.QUANTITY).fetchOne(Record1::value1);
+    }
+
+    @Override
+    public Integer findQuantityForUpdate(Long itemId) {
+        return dsl.resultQuery(findQuantityForUpdateSql, itemId).coerce(SPRINGITEMS.QUANTITY).fetchOne(Record1::value1);
+    }
+
+    @Override
+    public int[] tryDecrementBatch(List<PlaceOrderRequest> lines, int minRemaining) {
+        // One prepared statement, bound once per line and sent as a single JDBC batch
+        BatchBindStep batch = dsl.batch(dsl.query(tryDecrementSql, 0, 0L, 0, 0));
+
+        for (PlaceOrderRequest line : lines) {
+            batch.bind(line.quantity(), line.itemId(), line.quantity(), minRemaining);
+        }
+        return batch.execute();
+    }
+
+    @Override
+    public void applyStockDeltas(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BatchBindStep batch = dsl.batch(dsl.update(SPRINGITEMS)
+                .set(SPRINGITEMS.QUANTITY, SPRINGITEMS.QUANTITY.plus(val(0)))
+                .set(SPRINGITEMS.VERSION, SPRINGITEMS.VERSION.plus(inline(1L))) // inlined: the batch binds only the values below
+                .where(SPRINGITEMS.ITEM_ID.eq(val(0L))));
+
+        // Sorted by itemId so concurrent writers lock rows in the same order
+        deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(delta -> batch.bind(delta.getValue(), delta.getKey()));
+        batch.execute();
+    }
+
+    @Override
+    public void markAllQuantitiesStale() {
+        // Nothing cached here
+    }
+
+    @Override
+    public List<Item> findByIds(Collection<Long> ids) {
+        return dsl.selectFrom(SPRINGITEMS)
+                .where(SPRINGITEMS.ITEM_ID.in(ids))
+                .fetch(ITEM);
+    }
+
     @Override
     public List<Item> findAll() {
-        return dsl.select()
-                .from(table(TABLE))
-                .fetchInto(Item.class);
+        return dsl.selectFrom(SPRINGITEMS)
+                .fetch(ITEM);
+    }
+
+    @Override
+    public List<Item> findLowStock(int threshold) {
+        return dsl.selectFrom(SPRINGITEMS)
+                .where(SPRINGITEMS.QUANTITY.lt(threshold)) // range scan on idx_springitems_quantity
+                .orderBy(SPRINGITEMS.QUANTITY, SPRINGITEMS.ITEM_ID)
+                .fetch(ITEM);
+    }
+
+    @Override
+    public long forEachItem(Consumer<? super Item> action) {
+        // fetchLazy keeps one fetch-size window of rows in memory instead of the whole table
+        long rows = 0;
+        try (Cursor<Record4<Long, String, Integer, Integer>> cursor = dsl
+                .select(SPRINGITEMS.ITEM_ID, SPRINGITEMS.ITEM_NAME, SPRINGITEMS.QUANTITY, SPRINGITEMS.PRICE)
+                .from(SPRINGITEMS)
+                .orderBy(SPRINGITEMS.ITEM_ID)
+                .fetchSize(lazyFetchSize())
+                .fetchLazy()) {
+            for (Record4<Long, String, Integer, Integer> row : cursor) {
+                Item item = new Item(row.value2(), row.value3(), row.value4());
+                item.setItemId(row.value1());
+                action.accept(item);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * The JooqConfig fetch size, except on MySQL: Connector/J ignores a positive fetch size (it reads
+     * the whole result into memory) unless useCursorFetch is on, and turning that on would make every
+     * query a server-side prepared statement. Integer.MIN_VALUE makes it stream rows instead.
+     */
+    private int lazyFetchSize() {
+        Integer fetchSize = lazyFetchSize;
+        if (fetchSize == null) {
+            boolean mysql = dsl.connectionResult(c -> "MySQL".equals(c.getMetaData().getDatabaseProductName()));
+            Integer configured = dsl.settings().getFetchSize();
+            fetchSize = mysql ? Integer.MIN_VALUE : configured == null ? 0 : configured;
+            lazyFetchSize = fetchSize;
+        }
+        return fetchSize;
+    }
+
+    @Override
+    public List<Item> findPage(Long afterId, int limit, ItemFilter filter, Collection<Long> anyQuantity) {
+        // Seek on the primary key instead of OFFSET: every page costs the same, however deep
+        Condition where = afterId == null ? noCondition() : SPRINGITEMS.ITEM_ID.gt(afterId);
+        if (filter.minQuantity() != null || filter.maxQuantity() != null) {
+            Condition quantity = noCondition();
+            if (filter.minQuantity() != null) {
+                quantity = quantity.and(SPRINGITEMS.QUANTITY.ge(filter.minQuantity()));
+            }
+            if (filter.maxQuantity() != null) {
+                quantity = quantity.and(SPRINGITEMS.QUANTITY.le(filter.maxQuantity()));
+            }
+            where = where.and(anyQuantity.isEmpty() ? quantity : quantity.or(SPRINGITEMS.ITEM_ID.in(anyQuantity)));
+        }
+        if (filter.minPrice() != null) {
+            where = where.and(SPRINGITEMS.PRICE.ge(filter.minPrice()));
+        }
+        if (filter.maxPrice() != null) {
+            where = where.and(SPRINGITEMS.PRICE.le(filter.maxPrice()));
+        }
+        if (filter.namePrefix() != null && !filter.namePrefix().isEmpty()) {
+            where = where.and(SPRINGITEMS.ITEM_NAME.startsWith(filter.namePrefix())); // LIKE 'x%', escaped
+        }
+
+        return dsl.selectFrom(SPRINGITEMS)
+                .where(where)
+                .orderBy(SPRINGITEMS.ITEM_ID)
+                .limit(limit)
+                .fetch(ITEM);
     }
 }
@@ -0,0 +1,32 @@
+package com.demo.ecommerce.dao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationOutboxDao {
+
+    record PendingNotification(long id, byte[] payload, LocalDateTime createdAt) {}
+
+    void insert(byte[] payload, LocalDateTime createdAt);
+
+    /**
+     * Claims up to {@code limit} undelivered rows, oldest first, by leasing them until
+     * {@code leaseUntil}. Rows under another relay's unexpired lease (or locked by its claim) are
+     * skipped. Must run inside a short transaction; the rows stay claimed after it commits.
+     */
+    List<PendingNotification> claimPending(int limit, LocalDateTime now, LocalDateTime leaseUntil);
+
+    void markDelivered(List<Long> ids, LocalDateTime deliveredAt);
+
+    /**
+     * Counts a failed attempt and drops the lease, so the rows can be claimed again.
+     */
+    void recordFailedAttempt(List<Long> ids);
+
+    /**
+     * Creation time of the oldest undelivered row, or null if everything is delivered.
+     */
+    LocalDateTime oldestPendingCreatedAt();
+
+    int deleteDeliveredBefore(LocalDateTime cutoff);
+}
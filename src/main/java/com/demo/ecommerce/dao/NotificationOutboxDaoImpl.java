@@ -0,0 +1,88 @@
+package com.demo.ecommerce.dao;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.jooq.impl.DSL.*;
+
+@Repository
+public class NotificationOutboxDaoImpl implements NotificationOutboxDao {
+
+    private static final String TABLE = "notification_outbox";
+
+    private static final Field<Long> ID = field("id", Long.class);
+    private static final Field<byte[]> PAYLOAD = field("payload", byte[].class);
+    private static final Field<LocalDateTime> CREATED_AT = field("created_at", LocalDateTime.class);
+    private static final Field<LocalDateTime> DELIVERED_AT = field("delivered_at", LocalDateTime.class);
+    private static final Field<Integer> ATTEMPTS = field("attempts", Integer.class);
+    private static final Field<LocalDateTime> LEASE_UNTIL = field("lease_until", LocalDateTime.class);
+
+    private final DSLContext dsl;
+
+    public NotificationOutboxDaoImpl(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public void insert(byte[] payload, LocalDateTime createdAt) {
+        dsl.insertInto(table(TABLE), PAYLOAD, CREATED_AT, ATTEMPTS)
+                .values(payload, createdAt, 0)
+                .execute();
+    }
+
+    @Override
+    public List<PendingNotification> claimPending(int limit, LocalDateTime now, LocalDateTime leaseUntil) {
+        List<PendingNotification> rows = dsl.select(ID, PAYLOAD, CREATED_AT)
+                .from(table(TABLE))
+                .where(DELIVERED_AT.isNull())
+                .and(LEASE_UNTIL.isNull().or(LEASE_UNTIL.lt(now)))
+                .orderBy(ID)
+                .limit(limit)
+                .forUpdate()
+                .skipLocked()
+                .fetch(record -> new PendingNotification(record.get(ID), record.get(PAYLOAD), record.get(CREATED_AT)));
+        if (!rows.isEmpty()) {
+            dsl.update(table(TABLE))
+                    .set(LEASE_UNTIL, leaseUntil)
+                    .where(ID.in(rows.stream().map(PendingNotification::id).toList()))
+                    .execute();
+        }
+        return rows;
+    }
+
+    @Override
+    public void markDelivered(List<Long> ids, LocalDateTime deliveredAt) {
+        dsl.update(table(TABLE))
+                .set(DELIVERED_AT, deliveredAt)
+                .where(ID.in(ids))
+                .execute();
+    }
+
+    @Override
+    public void recordFailedAttempt(List<Long> ids) {
+        dsl.update(table(TABLE))
+                .set(ATTEMPTS, ATTEMPTS.plus(1))
+                .setNull(LEASE_UNTIL)
+                .where(ID.in(ids))
+                .execute();
+    }
+
+    @Override
+    public LocalDateTime oldestPendingCreatedAt() {
+        return dsl.select(min(CREATED_AT))
+                .from(table(TABLE))
+                .where(DELIVERED_AT.isNull())
+                .fetchOne(0, LocalDateTime.class);
+    }
+
+    @Override
+    public int deleteDeliveredBefore(LocalDateTime cutoff) {
+        return dsl.deleteFrom(table(TABLE))
+                .where(DELIVERED_AT.lt(cutoff))
+                .execute();
+    }
+}
@@ -0,0 +1,31 @@
+package com.demo.ecommerce.dao;
+
+import com.demo.ecommerce.model.OrderLedgerEntry;
+import java.util.List;
+import java.util.Map;
+
+public interface OrderLedgerDao {
+
+    /**
+     * Appends all entries with one multi-row INSERT.
+     */
+    void insertBatch(List<OrderLedgerEntry> entries);
+
+    long maxId();
+
+    /**
+     * Net quantity change per item for entries in (afterId, upToId], opening balances excluded.
+     */
+    Map<Long, Integer> sumDeltas(long afterId, long upToId);
+
+    /**
+     * Records the current quantity of every item that has no ledger entries yet as its opening balance.
+     */
+    int insertOpeningBalances();
+
+    /**
+     * Recomputes every item's quantity from its ledger entries up to and including {@code upToId}.
+     * Items with no entry that old (opened later) are left as they are.
+     */
+    int rebuildQuantities(long upToId);
+}
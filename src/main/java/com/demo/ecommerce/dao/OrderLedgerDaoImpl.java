@@ -0,0 +1,93 @@
+package com.demo.ecommerce.dao;
+
+import com.demo.ecommerce.model.LedgerEntryType;
+import com.demo.ecommerce.model.OrderLedgerEntry;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStep4;
+import org.jooq.Record;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.jooq.impl.DSL.*;
+
+@Repository
+public class OrderLedgerDaoImpl implements OrderLedgerDao {
+
+    private static final String TABLE = "order_ledger";
+    private static final String ITEMS_TABLE = "springitems";
+
+    private static final Field<Long> ID = field("id", Long.class);
+    private static final Field<Long> ITEM_ID = field("item_id", Long.class);
+    private static final Field<Integer> QUANTITY_DELTA = field("quantity_delta", Integer.class);
+    private static final Field<String> ENTRY_TYPE = field("entry_type", String.class);
+    private static final Field<LocalDateTime> CREATED_AT = field("created_at", LocalDateTime.class);
+
+    private final DSLContext dsl;
+
+    public OrderLedgerDaoImpl(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public void insertBatch(List<OrderLedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        InsertValuesStep4<Record, Long, Integer, String, LocalDateTime> insert =
+                dsl.insertInto(table(TABLE), ITEM_ID, QUANTITY_DELTA, ENTRY_TYPE, CREATED_AT);
+        for (OrderLedgerEntry entry : entries) {
+            insert = insert.values(entry.getItemId(), entry.getQuantityDelta(), entry.getEntryType().name(),
+                    entry.getCreatedAt());
+        }
+        insert.execute();
+    }
+
+    @Override
+    public long maxId() {
+        Long max = dsl.select(max(ID)).from(table(TABLE)).fetchOne(0, Long.class);
+        return max == null ? 0L : max;
+    }
+
+    @Override
+    public Map<Long, Integer> sumDeltas(long afterId, long upToId) {
+        Field<BigDecimal> total = sum(QUANTITY_DELTA);
+        return dsl.select(ITEM_ID, total)
+                .from(table(TABLE))
+                .where(ID.gt(afterId))
+                .and(ID.le(upToId))
+                .and(ENTRY_TYPE.ne(LedgerEntryType.OPENING.name()))
+                .groupBy(ITEM_ID)
+                .fetchMap(ITEM_ID, record -> record.get(total).intValue());
+    }
+
+    @Override
+    public int insertOpeningBalances() {
+        return dsl.insertInto(table(TABLE), ITEM_ID, QUANTITY_DELTA, ENTRY_TYPE, CREATED_AT)
+                .select(select(field("item_id", Long.class), field("quantity", Integer.class),
+                                inline(LedgerEntryType.OPENING.name()), currentLocalDateTime())
+                        .from(table(ITEMS_TABLE))
+                        .whereNotExists(selectOne()
+                                .from(table(TABLE))
+                                .where(field(name(TABLE, "item_id")).eq(field(name(ITEMS_TABLE, "item_id"))))))
+                .execute();
+    }
+
+    @Override
+    public int rebuildQuantities(long upToId) {
+        return dsl.update(table(ITEMS_TABLE))
+                .set(field("quantity", Integer.class), select(coalesce(sum(QUANTITY_DELTA), BigDecimal.ZERO).cast(Integer.class))
+                        .from(table(TABLE))
+                        .where(field(name(TABLE, "item_id")).eq(field(name(ITEMS_TABLE, "item_id"))))
+                        .and(ID.le(upToId)))
+                .whereExists(selectOne()
+                        .from(table(TABLE))
+                        .where(field(name(TABLE, "item_id")).eq(field(name(ITEMS_TABLE, "item_id"))))
+                        .and(ID.le(upToId)))
+                .execute();
+    }
+}
@@ -0,0 +1,16 @@
+package com.demo.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchOrderRequest(
+    @NotEmpty(message = "An order must contain at least one line")
+    @Size(max = 200, message = "An order can contain at most 200 lines")
+    List<@Valid PlaceOrderRequest> lines,
+
+    // true: any failed line rolls back the whole order; false: successful lines are kept
+    boolean allOrNothing
+) {}
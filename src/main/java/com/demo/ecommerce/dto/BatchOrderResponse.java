@@ -0,0 +1,5 @@
+package com.demo.ecommerce.dto;
+
+import java.util.List;
+
+public record BatchOrderResponse(boolean committed, List<OrderLineResult> results) {}
@@ -0,0 +1,15 @@
+package com.demo.ecommerce.dto;
+
+/**
+ * Optional filters for item listings; null fields are not applied. Ranges are inclusive.
+ */
+public record ItemFilter(
+    Integer minQuantity,
+    Integer maxQuantity,
+    Integer minPrice,
+    Integer maxPrice,
+    String namePrefix
+) {
+
+    public static final ItemFilter NONE = new ItemFilter(null, null, null, null, null);
+}
@@ -0,0 +1,8 @@
+package com.demo.ecommerce.dto;
+
+/**
+ * An item's stored image.
+ * @param url Versioned download URL; it names these bytes, so clients may cache it for good.
+ * @param etag Strong ETag (the content hash).
+ */
+public record ItemImageResponse(Long itemId, String url, String etag, String contentType, long size) {}
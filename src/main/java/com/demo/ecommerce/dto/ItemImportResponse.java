@@ -0,0 +1,15 @@
+package com.demo.ecommerce.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code errors} lists at most app.inventory.bulk-import.max-errors rows;
+ * {@code failed} counts them all.
+ */
+public record ItemImportResponse(long rows, long imported, long failed, List<RowError> errors) {
+
+    /**
+     * @param row Position of the item in the file, from 1 (the CSV header is not counted).
+     */
+    public record RowError(long row, String itemName, String message) {}
+}
@@ -0,0 +1,12 @@
+package com.demo.ecommerce.dto;
+
+import com.demo.ecommerce.model.Item;
+
+import java.util.List;
+
+/**
+ * One page of items in itemId order. A page can hold fewer items than asked for while more pages
+ * follow: rows whose current stock no longer matches the quantity range are dropped after the read.
+ * @param nextCursor Pass as {@code after} to get the next page; null on the last page.
+ */
+public record ItemPage(List<Item> items, Long nextCursor) {}
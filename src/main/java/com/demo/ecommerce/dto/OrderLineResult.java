@@ -0,0 +1,9 @@
+package com.demo.ecommerce.dto;
+
+public record OrderLineResult(
+    Long itemId,
+    int quantity,
+    OrderLineStatus status,
+    Integer remainingStock,
+    String message
+) {}
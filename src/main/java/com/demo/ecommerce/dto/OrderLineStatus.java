@@ -0,0 +1,8 @@
+package com.demo.ecommerce.dto;
+
+public enum OrderLineStatus {
+    PLACED,
+    INSUFFICIENT_STOCK,
+    ITEM_NOT_FOUND,
+    ROLLED_BACK
+}
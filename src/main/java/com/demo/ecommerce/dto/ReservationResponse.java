@@ -0,0 +1,11 @@
+package com.demo.ecommerce.dto;
+
+import java.time.Instant;
+
+public record ReservationResponse(
+    String reservationId,
+    Long itemId,
+    int quantity,
+    ReservationStatus status,
+    Instant expiresAt
+) {}
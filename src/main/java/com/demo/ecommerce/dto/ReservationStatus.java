@@ -0,0 +1,7 @@
+package com.demo.ecommerce.dto;
+
+public enum ReservationStatus {
+    HELD,
+    CONFIRMED,
+    RELEASED
+}
@@ -19,6 +19,13 @@ public class GlobalExceptionHandler {
                 .body(new SimpleApiResponse(ex.getMessage()));
     }
 
+    @ExceptionHandler(ReservationNotFoundException.class)
+    public ResponseEntity<SimpleApiResponse> handleReservationNotFound(ReservationNotFoundException ex) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND) // 404
+                .body(new SimpleApiResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(InsufficientStockException.class)
     public ResponseEntity<SimpleApiResponse> handleInsufficientStock(InsufficientStockException ex) {
         return ResponseEntity
@@ -33,6 +40,28 @@ public class GlobalExceptionHandler {
                 .body(new SimpleApiResponse(ex.getMessage()));
     }
 
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<SimpleApiResponse> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        return ResponseEntity
+                .status(HttpStatus.UNPROCESSABLE_ENTITY) // 422
+                .body(new SimpleApiResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<SimpleApiResponse> handleIdempotencyKeyInProgress(IdempotencyKeyInProgressException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT) // 409
+                .body(new SimpleApiResponse(ex.getMessage()));
+    }
+
+    // Not a 5xx "try again": repeating the order may apply it twice
+    @ExceptionHandler(OrderOutcomeUnknownException.class)
+    public ResponseEntity<SimpleApiResponse> handleOrderOutcomeUnknown(OrderOutcomeUnknownException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT) // 409
+                .body(new SimpleApiResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<SimpleApiResponse> handleIllegalArgument(IllegalArgumentException ex) {
         return ResponseEntity
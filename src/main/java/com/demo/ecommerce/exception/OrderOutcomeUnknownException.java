@@ -0,0 +1,15 @@
+package com.demo.ecommerce.exception;
+
+/**
+ * An order was handed over for processing, but whether it was applied is not known (its commit
+ * failed or is still running). Placing it again may take the stock twice.
+ */
+public class OrderOutcomeUnknownException extends RuntimeException {
+    public OrderOutcomeUnknownException(String message) {
+        super(message);
+    }
+
+    public OrderOutcomeUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
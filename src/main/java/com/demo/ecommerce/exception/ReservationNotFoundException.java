@@ -0,0 +1,7 @@
+package com.demo.ecommerce.exception;
+
+public class ReservationNotFoundException extends RuntimeException {
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
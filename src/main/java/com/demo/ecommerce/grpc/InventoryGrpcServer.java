@@ -0,0 +1,373 @@
+package com.demo.ecommerce.grpc;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.exception.ItemNotFoundException;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
+import com.demo.ecommerce.model.Item;
+import com.demo.ecommerce.service.ItemService;
+import com.demo.grpc.inventory.GetItemRequest;
+import com.demo.grpc.inventory.GetItemsRequest;
+import com.demo.grpc.inventory.GetItemsResponse;
+import com.demo.grpc.inventory.InventoryServiceGrpc;
+import com.demo.grpc.inventory.ItemMessage;
+import com.demo.grpc.inventory.StockEvent;
+import com.demo.grpc.inventory.WatchStockRequest;
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * InventoryService over gRPC (app.inventory.grpc.enabled=true), for internal services that would
+ * otherwise poll GET /api/items.
+ *
+ * WatchStock streams every committed stock change from {@link StockFeed}. Each subscriber has its
+ * own pending map, keyed by item: while the client is not ready (transport flow control), further
+ * changes to the same item are folded into its pending event, so a lagging client costs at most one
+ * event per item rather than one per order. A subscriber that stays not-ready for
+ * slow-consumer-timeout, or whose pending map exceeds max-pending-per-watcher, is disconnected with
+ * RESOURCE_EXHAUSTED; it can reconnect with include_snapshot to resynchronise.
+ *
+ * All stream writes happen on the single inventory-watch thread. Snapshots are read on the
+ * inventory-watch-snapshot thread, one at a time, streaming the catalog instead of loading it, so
+ * neither the gRPC call thread nor the writer waits on a catalog read.
+ *
+ * GetItems takes 1 to max-items-per-request IDs; it never returns the whole catalog in one message.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.inventory.grpc", name = "enabled", havingValue = "true")
+public class InventoryGrpcServer extends InventoryServiceGrpc.InventoryServiceImplBase {
+
+    private final ItemService itemService;
+    private final StockFeed stockFeed;
+    private final InventoryConfig.Grpc config;
+    private final Counter eventsSent;
+    private final Counter eventsCoalesced;
+    private final Counter evictions;
+
+    private final Set<Watcher> watchers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Consumer<List<StockChange>> listener = this::onChange;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-watch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService snapshots = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-watch-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Server server;
+
+    public InventoryGrpcServer(@Qualifier("fastItemService") ItemService itemService,
+                               StockFeed stockFeed,
+                               InventoryConfig inventoryConfig,
+                               MeterRegistry meterRegistry) {
+        this.itemService = itemService;
+        this.stockFeed = stockFeed;
+        this.config = inventoryConfig.getGrpc();
+        this.eventsSent = meterRegistry.counter("inventory.watch.events_sent");
+        this.eventsCoalesced = meterRegistry.counter("inventory.watch.events_coalesced");
+        this.evictions = meterRegistry.counter("inventory.watch.evicted");
+        Gauge.builder("inventory.watch.subscribers", watchers, Set::size).register(meterRegistry);
+
+        stockFeed.subscribe(listener);
+        writer.scheduleWithFixedDelay(this::evictSlowConsumers, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = Grpc.newServerBuilderForPort(config.getPort(), InsecureServerCredentials.create())
+                .addService(this)
+                .build()
+                .start();
+        System.out.println("INVENTORY GRPC: listening on port " + server.getPort());
+    }
+
+    @PreDestroy
+    public void stop() {
+        stockFeed.unsubscribe(listener);
+        if (server != null) {
+            server.shutdown();
+        }
+        writer.shutdownNow();
+        snapshots.shutdownNow();
+    }
+
+    // ------------------- UNARY -------------------
+
+    @Override
+    public void getItem(GetItemRequest request, StreamObserver<ItemMessage> responseObserver) {
+        try {
+            responseObserver.onNext(toMessage(itemService.getItemById(request.getItemId())));
+            responseObserver.onCompleted();
+        } catch (ItemNotFoundException e) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getItems(GetItemsRequest request, StreamObserver<GetItemsResponse> responseObserver) {
+        int count = request.getItemIdsCount();
+        if (count == 0 || count > config.getMaxItemsPerRequest()) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("item_ids must hold 1 to " + config.getMaxItemsPerRequest() + " IDs, got " + count
+                            + "; use WatchStock with include_snapshot for the whole catalog")
+                    .asRuntimeException());
+            return;
+        }
+        List<Item> items = itemService.getItemsByIds(request.getItemIdsList());
+        GetItemsResponse.Builder response = GetItemsResponse.newBuilder();
+        items.forEach(item -> response.addItems(toMessage(item)));
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    private static ItemMessage toMessage(Item item) {
+        return ItemMessage.newBuilder()
+                .setItemId(item.getItemId())
+                .setItemName(item.getItemName())
+                .setQuantity(item.getQuantity())
+                .setPrice(item.getPrice())
+                .build();
+    }
+
+    // ------------------- WATCH -------------------
+
+    @Override
+    public void watchStock(WatchStockRequest request, StreamObserver<StockEvent> responseObserver) {
+        ServerCallStreamObserver<StockEvent> call = (ServerCallStreamObserver<StockEvent>) responseObserver;
+        Watcher watcher = new Watcher(call, request.getItemIdsCount() == 0 ? null : new HashSet<>(request.getItemIdsList()));
+        call.setOnReadyHandler(watcher::scheduleDrain);
+        call.setOnCancelHandler(() -> watchers.remove(watcher));
+
+        // Subscribe before reading the snapshot so no change falls between the two
+        watchers.add(watcher);
+        if (request.getIncludeSnapshot()) {
+            snapshots.execute(() -> sendSnapshot(watcher));
+        }
+    }
+
+    // inventory-watch-snapshot thread only
+    private void sendSnapshot(Watcher watcher) {
+        if (!watchers.contains(watcher)) {
+            return; // cancelled or evicted while queued
+        }
+        Consumer<Item> offer = item -> watcher.offerSnapshot(StockEvent.newBuilder()
+                .setItemId(item.getItemId())
+                .setItemName(item.getItemName())
+                .setQuantity(item.getQuantity())
+                .setType(StockEvent.Type.SNAPSHOT)
+                .setSequence(sequence.get())
+                .build());
+        try {
+            if (watcher.itemIds == null) {
+                itemService.forEachItem(offer);
+            } else {
+                itemService.getItemsByIds(watcher.itemIds).forEach(offer);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("INVENTORY GRPC: WatchStock snapshot failed - " + e.getMessage());
+            writer.execute(() -> watcher.close(Status.UNAVAILABLE.withDescription("Snapshot failed; reconnect"), () -> {}));
+        }
+    }
+
+    private void onChange(List<StockChange> changes) {
+        if (watchers.isEmpty()) {
+            return;
+        }
+        List<StockEvent> events = new ArrayList<>(changes.size());
+        for (StockChange change : changes) {
+            events.add(StockEvent.newBuilder()
+                    .setItemId(change.itemId())
+                    .setItemName(change.itemName())
+                    .setQuantity(change.quantity())
+                    .setDelta(change.delta())
+                    .setType(change.added() ? StockEvent.Type.ADDED : StockEvent.Type.CHANGED)
+                    .setSequence(sequence.incrementAndGet())
+                    .build());
+        }
+        for (Watcher watcher : watchers) {
+            watcher.offer(events);
+        }
+    }
+
+    private void evictSlowConsumers() {
+        long timeoutNanos = config.getSlowConsumerTimeout().toNanos();
+        for (Watcher watcher : watchers) {
+            if (watcher.stalledFor() >= timeoutNanos) {
+                watcher.evict("not reading for " + config.getSlowConsumerTimeout().toSeconds() + "s");
+            }
+        }
+    }
+
+    /**
+     * Number of open WatchStock streams.
+     */
+    public int watcherCount() {
+        return watchers.size();
+    }
+
+    private final class Watcher {
+
+        final ServerCallStreamObserver<StockEvent> call;
+        final Set<Long> itemIds; // null: everything
+
+        // Guarded by this
+        private final Map<Long, StockEvent> pending = new LinkedHashMap<>();
+        private boolean drainScheduled;
+        private boolean evicted;
+        private long stalledSince; // 0 while the client keeps up
+
+        Watcher(ServerCallStreamObserver<StockEvent> call, Set<Long> itemIds) {
+            this.call = call;
+            this.itemIds = itemIds;
+        }
+
+        // One lock and at most one drain per published batch (a bulk import chunk is one batch)
+        void offer(List<StockEvent> events) {
+            boolean added = false;
+            synchronized (this) {
+                if (evicted) {
+                    return;
+                }
+                for (StockEvent event : events) {
+                    if (itemIds != null && !itemIds.contains(event.getItemId())) {
+                        continue;
+                    }
+                    StockEvent previous = pending.get(event.getItemId());
+                    if (previous != null) {
+                        // Keep the first event's type (a coalesced ADDED is still an addition) and sum the deltas
+                        pending.put(event.getItemId(), event.toBuilder()
+                                .setType(previous.getType())
+                                .setDelta(previous.getDelta() + event.getDelta())
+                                .build());
+                        eventsCoalesced.increment();
+                        continue; // a drain is already due for this item
+                    }
+                    pending.put(event.getItemId(), event);
+                    added = true;
+                }
+                if (pending.size() > config.getMaxPendingPerWatcher()) {
+                    String reason = pending.size() + " items behind";
+                    writer.execute(() -> evict(reason));
+                    return;
+                }
+            }
+            if (added) {
+                scheduleDrain();
+            }
+        }
+
+        synchronized void offerSnapshot(StockEvent event) {
+            // A change that arrived after subscribing is newer than the snapshot read
+            if (!evicted && pending.putIfAbsent(event.getItemId(), event) == null) {
+                if (!drainScheduled) {
+                    drainScheduled = true;
+                    writer.execute(this::drain);
+                }
+            }
+        }
+
+        void scheduleDrain() {
+            synchronized (this) {
+                if (drainScheduled || evicted) {
+                    return;
+                }
+                drainScheduled = true;
+            }
+            writer.execute(this::drain);
+        }
+
+        // inventory-watch thread only
+        private void drain() {
+            while (true) {
+                StockEvent next;
+                synchronized (this) {
+                    if (evicted || pending.isEmpty()) {
+                        drainScheduled = false;
+                        stalledSince = 0;
+                        return;
+                    }
+                    if (!call.isReady()) {
+                        // The onReady handler schedules the next drain
+                        drainScheduled = false;
+                        if (stalledSince == 0) {
+                            stalledSince = System.nanoTime();
+                        }
+                        return;
+                    }
+                    Iterator<StockEvent> oldest = pending.values().iterator();
+                    next = oldest.next();
+                    oldest.remove();
+                    stalledSince = 0;
+                }
+                try {
+                    call.onNext(next);
+                    eventsSent.increment();
+                } catch (RuntimeException e) {
+                    watchers.remove(this); // cancelled under us
+                    return;
+                }
+            }
+        }
+
+        synchronized long stalledFor() {
+            return stalledSince == 0 || pending.isEmpty() ? 0 : System.nanoTime() - stalledSince;
+        }
+
+        // inventory-watch thread only
+        private void evict(String reason) {
+            close(Status.RESOURCE_EXHAUSTED.withDescription("Slow consumer: " + reason + "; reconnect with include_snapshot"), () -> {
+                evictions.increment();
+                System.err.println("INVENTORY GRPC: disconnecting slow WatchStock subscriber - " + reason);
+            });
+        }
+
+        // inventory-watch thread only; beforeError runs once, unless the stream was already closed
+        private void close(Status status, Runnable beforeError) {
+            synchronized (this) {
+                if (evicted) {
+                    return;
+                }
+                evicted = true;
+                pending.clear();
+            }
+            watchers.remove(this);
+            beforeError.run();
+            try {
+                call.onError(status.asRuntimeException());
+            } catch (RuntimeException ignored) {
+                // already cancelled
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.demo.ecommerce.grpc;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import com.demo.grpc.notification.NotificationServiceGrpc;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import net.devh.boot.grpc.client.channelfactory.GrpcChannelConfigurer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hardens the notification-service channel (keepalive comes from the grpc.client.notification-service.*
+ * properties of the starter).
+ *
+ * - Calls without a deadline of their own get app.notification.deadline, so no caller can wait forever.
+ * - Retries belong to the delivery layer (the dispatcher's queue or the outbox relay), so by default the
+ *   channel does not retry. app.notification.channel.max-attempts above 1 adds a service-config retry
+ *   policy (or, with a hedging delay set, hedges NotifyInsufficientStock); set the delivery layer's own
+ *   attempts to 1 then, or every failure is retried twice over.
+ * - {@link NotificationCircuitBreaker} wraps every call; it sits above the retries and sees one outcome
+ *   per logical call.
+ */
+@Component
+public class NotificationChannelConfigurer implements GrpcChannelConfigurer {
+
+    public static final String CHANNEL = "notification-service";
+
+    private final NotificationConfig config;
+    private final NotificationCircuitBreaker circuitBreaker;
+
+    public NotificationChannelConfigurer(NotificationConfig config, NotificationCircuitBreaker circuitBreaker) {
+        this.config = config;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public void accept(ManagedChannelBuilder<?> builder, String name) {
+        if (!CHANNEL.equals(name)) {
+            return;
+        }
+        if (config.getChannel().getMaxAttempts() > 1) {
+            builder.defaultServiceConfig(serviceConfig()).enableRetry();
+        } else {
+            builder.disableRetry();
+        }
+        // Interceptors run last-added first: the breaker wraps the whole call, deadline included
+        builder.intercept(new DefaultDeadline(config.getDeadline()), circuitBreaker);
+    }
+
+    Map<String, ?> serviceConfig() {
+        NotificationConfig.Channel channel = config.getChannel();
+        Map<String, Object> unary = Map.of(
+                "service", NotificationServiceGrpc.SERVICE_NAME,
+                "method", NotificationServiceGrpc.getNotifyInsufficientStockMethod().getBareMethodName());
+        Map<String, Object> wholeService = Map.of("service", NotificationServiceGrpc.SERVICE_NAME);
+
+        Map<String, Object> retryPolicy = Map.of(
+                "maxAttempts", (double) channel.getMaxAttempts(),
+                "initialBackoff", seconds(channel.getInitialBackoff()),
+                "maxBackoff", seconds(channel.getMaxBackoff()),
+                "backoffMultiplier", channel.getBackoffMultiplier(),
+                "retryableStatusCodes", channel.getRetryableStatusCodes());
+
+        List<Map<String, Object>> methodConfig;
+        if (channel.getHedgingDelay().isZero()) {
+            methodConfig = List.of(Map.of("name", List.of(wholeService), "retryPolicy", retryPolicy));
+        } else {
+            Map<String, Object> hedgingPolicy = Map.of(
+                    "maxAttempts", (double) channel.getMaxAttempts(),
+                    "hedgingDelay", seconds(channel.getHedgingDelay()),
+                    "nonFatalStatusCodes", channel.getRetryableStatusCodes());
+            // A method matches its most specific entry: the unary call is hedged, the batch stream retried
+            methodConfig = List.of(
+                    Map.of("name", List.of(unary), "hedgingPolicy", hedgingPolicy),
+                    Map.of("name", List.of(wholeService), "retryPolicy", retryPolicy));
+        }
+        return Map.of("methodConfig", methodConfig);
+    }
+
+    // Service-config durations are decimal seconds with an "s" suffix, e.g. "0.100000000s"
+    private static String seconds(Duration duration) {
+        return String.format("%d.%09ds", duration.getSeconds(), duration.getNano());
+    }
+
+    private static final class DefaultDeadline implements ClientInterceptor {
+
+        private final Duration deadline;
+
+        DefaultDeadline(Duration deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                   CallOptions callOptions, Channel next) {
+            if (callOptions.getDeadline() == null) {
+                callOptions = callOptions.withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            return next.newCall(method, callOptions);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.demo.ecommerce.grpc;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker and latency timer for calls to the notification service.
+ *
+ * CLOSED: calls pass; failure-threshold consecutive failures (server unreachable, overloaded or
+ * too slow) open the breaker. OPEN: calls fail at once with UNAVAILABLE, without touching the
+ * network, so callers back off instead of piling up behind a hung server. Once open-duration has
+ * passed, the next call is let through as a trial (HALF_OPEN): success closes the breaker, failure
+ * opens it for another open-duration. Outcomes are counted per logical call, after the channel's
+ * own retries (if enabled).
+ *
+ * Meters: notifications.grpc.circuit_state (0 closed, 1 half-open, 2 open),
+ * notifications.grpc.short_circuited and notifications.grpc.latency (by method and status).
+ */
+@Component
+public class NotificationCircuitBreaker implements ClientInterceptor {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private static final Set<Status.Code> FAILURES = EnumSet.of(
+            Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED,
+            Status.Code.INTERNAL, Status.Code.UNKNOWN);
+
+    private final NotificationConfig.CircuitBreaker config;
+    private final MeterRegistry meterRegistry;
+    private final Counter shortCircuited;
+    // One latency timer per (method, status), registered on first use
+    private final Map<String, Map<Status.Code, Timer>> latencyTimers = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long changedAt = System.nanoTime();
+
+    public NotificationCircuitBreaker(NotificationConfig notificationConfig, MeterRegistry meterRegistry) {
+        this.config = notificationConfig.getCircuitBreaker();
+        this.meterRegistry = meterRegistry;
+        this.shortCircuited = meterRegistry.counter("notifications.grpc.short_circuited");
+        Gauge.builder("notifications.grpc.circuit_state", this, breaker -> breaker.state().ordinal())
+                .description("Notification circuit breaker: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        if (config.isEnabled() && !permitCall()) {
+            shortCircuited.increment();
+            return new RejectedCall<>();
+        }
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long started = System.nanoTime();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        latencyTimer(method.getBareMethodName(), status.getCode())
+                                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                        if (config.isEnabled()) {
+                            onCallClosed(FAILURES.contains(status.getCode()));
+                        }
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    private Timer latencyTimer(String method, Status.Code code) {
+        return latencyTimers.computeIfAbsent(method, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(code, c -> Timer.builder("notifications.grpc.latency")
+                        .tag("method", method)
+                        .tag("status", c.name())
+                        .register(meterRegistry));
+    }
+
+    private synchronized boolean permitCall() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        // OPEN: the first call after open-duration becomes the trial. HALF_OPEN: a trial that has
+        // not answered within open-duration (e.g. a long-lived stream) makes room for another one.
+        if (System.nanoTime() - changedAt >= config.getOpenDuration().toNanos()) {
+            moveTo(State.HALF_OPEN);
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void onCallClosed(boolean failed) {
+        if (!failed) {
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                moveTo(State.CLOSED);
+            }
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= config.getFailureThreshold())) {
+            moveTo(State.OPEN);
+        }
+    }
+
+    private void moveTo(State next) {
+        if (next != state) {
+            System.err.println("NOTIFICATION CIRCUIT: " + state + " -> " + next);
+        }
+        state = next;
+        changedAt = System.nanoTime();
+    }
+
+    /**
+     * Fails as soon as it is started; never reaches the transport.
+     */
+    private static final class RejectedCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            responseListener.onClose(Status.UNAVAILABLE.withDescription("notification circuit breaker is open"), new Metadata());
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+        }
+
+        @Override
+        public void halfClose() {
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+        }
+    }
+}
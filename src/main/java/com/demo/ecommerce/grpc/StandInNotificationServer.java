@@ -0,0 +1,109 @@
+package com.demo.ecommerce.grpc;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import com.demo.grpc.notification.NotificationBatchResponse;
+import com.demo.grpc.notification.NotificationRequest;
+import com.demo.grpc.notification.NotificationResponse;
+import com.demo.grpc.notification.NotificationServiceGrpc;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the notification service (app.notification.stand-in.enabled=true).
+ *
+ * Serves both RPCs on an in-process transport and only counts what it receives, so the
+ * dispatcher's throughput can be measured without the real service. Point the client at it with
+ * grpc.client.notification-service.address=in-process:notification-stand-in.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.notification.stand-in", name = "enabled", havingValue = "true")
+public class StandInNotificationServer extends NotificationServiceGrpc.NotificationServiceImplBase {
+
+    private final String name;
+    private final LongAdder received = new LongAdder();
+    private final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "notification-stand-in-report");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Server server;
+
+    public StandInNotificationServer(NotificationConfig config) {
+        this.name = config.getStandIn().getName();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = InProcessServerBuilder.forName(name)
+                .addService(this)
+                .build()
+                .start();
+        reporter.scheduleAtFixedRate(new Runnable() {
+            private long last;
+
+            @Override
+            public void run() {
+                long total = received.sum();
+                if (total != last) {
+                    System.out.println("NOTIFICATION STAND-IN: " + total + " received (" + (total - last) / 10 + "/s)");
+                    last = total;
+                }
+            }
+        }, 10, 10, TimeUnit.SECONDS);
+        System.out.println("NOTIFICATION STAND-IN: listening on in-process:" + name);
+    }
+
+    @PreDestroy
+    public void stop() {
+        reporter.shutdownNow();
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+
+    public long received() {
+        return received.sum();
+    }
+
+    @Override
+    public void notifyInsufficientStock(NotificationRequest request, StreamObserver<NotificationResponse> responseObserver) {
+        received.increment();
+        responseObserver.onNext(NotificationResponse.newBuilder().setStatusMessage("accepted by stand-in").build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public StreamObserver<NotificationRequest> notifyInsufficientStockBatch(StreamObserver<NotificationBatchResponse> responseObserver) {
+        return new StreamObserver<>() {
+            private int accepted;
+
+            @Override
+            public void onNext(NotificationRequest request) {
+                accepted++;
+                received.increment();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // client gave up on the stream; nothing to answer
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onNext(NotificationBatchResponse.newBuilder().setAcceptedCount(accepted).build());
+                responseObserver.onCompleted();
+            }
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package com.demo.ecommerce.image;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.image.ItemImageStore.StoredImage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Writes an item image to the response: conditional GET on the content-hash ETag, single byte ranges
+ * (206 / 416, If-Range) and long-lived caching for versioned URLs.
+ *
+ * Small images come from the store's memory cache. Larger ones are handed to Tomcat's sendfile when
+ * the connector offers it, so the kernel copies the file straight to the socket; otherwise (TLS, other
+ * containers) they go through FileChannel.transferTo.
+ */
+@Component
+public class ItemImageSender {
+
+    // Tomcat request attributes for sendfile (NIO connector, no compression)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // A ?v=<hash> URL always names the same bytes
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable().getHeaderValue();
+
+    private final ItemImageStore store;
+    private final String revalidate;
+
+    public ItemImageSender(ItemImageStore store, InventoryConfig inventoryConfig) {
+        this.store = store;
+        this.revalidate = CacheControl.maxAge(inventoryConfig.getImages().getMaxAge()).cachePrivate().getHeaderValue();
+    }
+
+    /**
+     * @param versioned The request named this image's hash (?v=), so it may be cached for good.
+     */
+    public void send(StoredImage image, boolean versioned, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String etag = image.etag();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, versioned ? IMMUTABLE : revalidate);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long size = image.size();
+        long start = 0;
+        long length = size;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        ByteRange range = ifRange == null || ifRange.equals(etag)
+                ? ByteRange.parse(request.getHeader(HttpHeaders.RANGE), size)
+                : null; // the client's partial copy is of another image: send the whole one
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (range != null) {
+            start = range.start();
+            length = range.length();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + size);
+        }
+        response.setContentType(image.contentType());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        byte[] cached = store.cachedBytes(image);
+        if (cached != null) {
+            response.getOutputStream().write(cached, (int) start, (int) length);
+        } else if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat sends the file after the servlet returns; it checks for the canonical path
+            request.setAttribute(SENDFILE_FILENAME, image.path().toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+        } else {
+            try (FileChannel file = FileChannel.open(image.path(), StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                for (long sent = 0; sent < length; ) {
+                    sent += file.transferTo(start + sent, length - sent, out);
+                }
+            }
+        }
+    }
+
+    // If-None-Match: "*" or a list of tags, weak ones compared by value
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One byte range, both ends inclusive. Only single ranges are served; a multi-range or malformed
+     * header is ignored and the whole image sent, as RFC 9110 allows.
+     */
+    record ByteRange(long start, long end) {
+
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+        long length() {
+            return end - start + 1;
+        }
+
+        // bytes=a-b, bytes=a- or bytes=-n (the last n bytes); null: send the whole image
+        static ByteRange parse(String header, long size) {
+            if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+                return null;
+            }
+            String spec = header.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    return suffix <= 0 ? UNSATISFIABLE : new ByteRange(Math.max(0, size - suffix), size - 1);
+                }
+                long start = Long.parseLong(spec.substring(0, dash));
+                if (start >= size) {
+                    return UNSATISFIABLE;
+                }
+                long end = dash == spec.length() - 1 ? size - 1 : Long.parseLong(spec.substring(dash + 1));
+                return end < start ? null : new ByteRange(start, Math.min(end, size - 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
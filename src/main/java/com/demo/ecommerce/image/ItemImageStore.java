@@ -0,0 +1,223 @@
+package com.demo.ecommerce.image;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Item images on disk, content-addressed.
+ *
+ * An upload is streamed to a temp file while it is hashed (SHA-256), then moved to
+ * {@code blobs/<first two hex digits>/<hash>} unless that blob already exists: identical images share
+ * one file, and a blob never changes once written, so its hash is a safe strong ETag and versioned
+ * URLs can be cached for good. {@code items/<itemId>} points at the item's current blob and is
+ * replaced atomically on re-upload. Replaced blobs stay on disk (another item may share them).
+ *
+ * Images up to cache-max-image-size are kept in memory by hash (Caffeine, bounded by total bytes), so
+ * hot thumbnails are answered without touching the disk; larger ones are sent from the file. The
+ * last pointer-cache-size pointers read (including "no image") are kept too, so lookups of any
+ * item ID cannot grow memory without limit.
+ *
+ * Meters: cache.* tagged cache=item_images and cache=item_image_pointers.
+ */
+@Component
+public class ItemImageStore {
+
+    /**
+     * An item's current image.
+     * @param hash SHA-256 of the content, lowercase hex.
+     */
+    public record StoredImage(String hash, String contentType, long size, Path path) {
+
+        public String etag() {
+            return "\"" + hash + "\"";
+        }
+    }
+
+    private final Path blobs;
+    private final Path items;
+    private final Path uploads;
+    private final long maxUploadBytes;
+    private final long cacheMaxImageBytes;
+    private final Cache<String, byte[]> hot;
+    // itemId -> current image; empty for items known to have none
+    private final Cache<Long, Optional<StoredImage>> current;
+
+    public ItemImageStore(InventoryConfig inventoryConfig, MeterRegistry meterRegistry) throws IOException {
+        InventoryConfig.Images config = inventoryConfig.getImages();
+        Path dir = Path.of(config.getDir());
+        this.blobs = Files.createDirectories(dir.resolve("blobs"));
+        this.items = Files.createDirectories(dir.resolve("items"));
+        this.uploads = Files.createDirectories(dir.resolve("uploads"));
+        this.maxUploadBytes = config.getMaxUploadSize().toBytes();
+        this.cacheMaxImageBytes = config.getCacheMaxImageSize().toBytes();
+        this.hot = Caffeine.newBuilder()
+                .maximumWeight(config.getCacheSize().toBytes())
+                .<String, byte[]>weigher((hash, bytes) -> bytes.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, hot, "item_images");
+        this.current = Caffeine.newBuilder()
+                .maximumSize(config.getPointerCacheSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, current, "item_image_pointers");
+    }
+
+    // ------------------- UPLOAD -------------------
+
+    /**
+     * Stores an image and makes it the item's current one.
+     * @throws IllegalArgumentException Empty, over max-upload-size, or not a JPEG, PNG, GIF or WebP.
+     */
+    public StoredImage save(long itemId, InputStream body) throws IOException {
+        Path upload = Files.createTempFile(uploads, itemId + "-", ".part");
+        try {
+            MessageDigest sha256 = sha256();
+            byte[] head = new byte[12];
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(upload)) {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = body.read(buffer)) != -1) {
+                    if (size < head.length) {
+                        System.arraycopy(buffer, 0, head, (int) size, (int) Math.min(n, head.length - size));
+                    }
+                    size += n;
+                    if (size > maxUploadBytes) {
+                        throw new IllegalArgumentException("Image is larger than " + maxUploadBytes + " bytes");
+                    }
+                    sha256.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+            String contentType = contentType(head, size);
+            String hash = HexFormat.of().formatHex(sha256.digest());
+
+            Path blob = blobPath(hash);
+            if (!Files.exists(blob)) {
+                Files.createDirectories(blob.getParent());
+                try {
+                    Files.move(upload, blob, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // the same image uploaded concurrently; either copy will do
+                }
+            }
+            StoredImage image = new StoredImage(hash, contentType, size, blob);
+            current.asMap().compute(itemId, (id, previous) -> {
+                writePointer(id, image);
+                return Optional.of(image);
+            });
+            return image;
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    // items/<itemId>: "<hash> <content type> <size>", replaced in one rename
+    private void writePointer(long itemId, StoredImage image) {
+        try {
+            Path pointer = Files.createTempFile(uploads, itemId + "-", ".pointer");
+            Files.writeString(pointer, image.hash() + " " + image.contentType() + " " + image.size(), StandardCharsets.US_ASCII);
+            Files.move(pointer, items.resolve(Long.toString(itemId)),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ------------------- DOWNLOAD -------------------
+
+    public Optional<StoredImage> find(long itemId) {
+        return current.get(itemId, this::readPointer);
+    }
+
+    private Optional<StoredImage> readPointer(long itemId) {
+        try {
+            String[] pointer = Files.readString(items.resolve(Long.toString(itemId)), StandardCharsets.US_ASCII).split(" ");
+            return Optional.of(new StoredImage(pointer[0], pointer[1], Long.parseLong(pointer[2]), blobPath(pointer[0])));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The image's bytes from memory (read into it on first use) if it is small enough to be cached,
+     * otherwise null: send it from {@link StoredImage#path()}.
+     */
+    public byte[] cachedBytes(StoredImage image) {
+        if (image.size() > cacheMaxImageBytes) {
+            return null;
+        }
+        return hot.get(image.hash(), hash -> {
+            try {
+                return Files.readAllBytes(image.path());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Path blobPath(String hash) {
+        return blobs.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    // ------------------- CONTENT TYPE -------------------
+
+    // From the file's magic number; the client's Content-Type is not trusted
+    private static String contentType(byte[] head, long size) {
+        if (size == 0) {
+            throw new IllegalArgumentException("Image is empty");
+        }
+        if (startsWith(head, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(head, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        throw new IllegalArgumentException("Unsupported image format (use JPEG, PNG, GIF or WebP)");
+    }
+
+    private static boolean startsWith(byte[] head, int offset, int... magic) {
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has SHA-256
+        }
+    }
+}
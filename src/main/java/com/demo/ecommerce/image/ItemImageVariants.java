@@ -0,0 +1,302 @@
+package com.demo.ecommerce.image;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.image.ItemImageStore.StoredImage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resized JPEG variants of item images (thumb, card, full), served with ?size= on the image endpoint.
+ *
+ * Each upload queues one job on a small worker pool. The job decodes the image once, scales it down
+ * in halving steps (full, then card from full, then thumb from card) and writes
+ * {@code <hash>.<size>.jpg} beside the original blob. Variants are keyed by the original's hash, so
+ * identical images share them, and images stored before this existed get theirs the first time a
+ * variant is asked for. Until a variant exists the original is served instead.
+ *
+ * The queue is bounded: when it is full the upload thread runs the job itself, so a burst of uploads
+ * slows down rather than piling up work in memory.
+ *
+ * Which variants exist, and which images cannot have any (undecodable, too large), is remembered for
+ * the last pointer-cache-size images. A job that fails on I/O (disk full, a failed move) is not
+ * remembered: the next request for a variant queues it again.
+ *
+ * Meters: image.variants.queue (jobs waiting), image.variants.wait and image.variants.job (time queued
+ * and time to produce all sizes), image.variants.caller_runs (jobs run on the upload thread because
+ * the queue was full), image.variants.failed.
+ */
+@Component
+public class ItemImageVariants {
+
+    /** Bounding box of each variant; images are only ever scaled down. */
+    public enum Size {
+        FULL(1200), CARD(480), THUMB(160);
+
+        final int maxDimension;
+
+        Size(int maxDimension) {
+            this.maxDimension = maxDimension;
+        }
+
+        /** ?size=thumb|card|full, any case. */
+        public static Size fromParam(String param) {
+            for (Size size : values()) {
+                if (size.name().equalsIgnoreCase(param)) {
+                    return size;
+                }
+            }
+            throw new IllegalArgumentException("Unknown image size '" + param + "' (use thumb, card or full)");
+        }
+    }
+
+    // Larger images are not decoded: at 4 bytes a pixel this is already 160 MB of heap per job
+    private static final long MAX_PIXELS = 40_000_000L;
+
+    private final float quality;
+    private final ThreadPoolExecutor workers;
+    // hashes with a job queued or running, so repeated requests for a missing variant queue it once
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // "<hash>.<size>" -> variant, once it is on disk
+    private final Cache<String, StoredImage> ready;
+    // hashes whose variants cannot be made (undecodable, too large): not retried
+    private final Cache<String, Boolean> unavailable;
+
+    private final Timer waitTimer;
+    private final Timer jobTimer;
+    private final Counter callerRuns;
+    private final Counter failed;
+
+    public ItemImageVariants(InventoryConfig inventoryConfig, MeterRegistry meterRegistry) {
+        InventoryConfig.Images config = inventoryConfig.getImages();
+        this.quality = config.getVariantQuality();
+        this.ready = Caffeine.newBuilder()
+                .maximumSize(config.getPointerCacheSize() * Size.values().length)
+                .build();
+        this.unavailable = Caffeine.newBuilder()
+                .maximumSize(config.getPointerCacheSize())
+                .build();
+        this.callerRuns = meterRegistry.counter("image.variants.caller_runs");
+        this.failed = meterRegistry.counter("image.variants.failed");
+        this.waitTimer = Timer.builder("image.variants.wait")
+                .description("Time an image variant job spent queued")
+                .register(meterRegistry);
+        this.jobTimer = Timer.builder("image.variants.job")
+                .description("Time to decode an image and write all its variants")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(config.getVariantWorkers(), config.getVariantWorkers(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getVariantQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (job, executor) -> {
+                    if (!executor.isShutdown()) {
+                        callerRuns.increment();
+                        job.run();
+                    }
+                });
+        Gauge.builder("image.variants.queue", workers, executor -> executor.getQueue().size())
+                .description("Image variant jobs waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Queues the variants of a freshly stored image. Runs the job on the calling thread when the
+     * queue is full.
+     */
+    public void submit(StoredImage image) {
+        if (!pending.add(image.hash())) {
+            return;
+        }
+        long queuedAt = System.nanoTime();
+        workers.execute(() -> {
+            waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            try {
+                jobTimer.record(() -> generate(image));
+            } finally {
+                pending.remove(image.hash());
+            }
+        });
+    }
+
+    /**
+     * The image's variant of the given size, or null if it is not ready yet (a job is queued for it)
+     * or cannot be made (WebP, too large to decode): send the original instead.
+     */
+    public StoredImage find(StoredImage image, Size size) {
+        String key = image.hash() + "." + size.name().toLowerCase(Locale.ROOT);
+        StoredImage variant = ready.getIfPresent(key);
+        if (variant != null) {
+            return variant;
+        }
+        Path path = variantPath(image, size);
+        if (Files.exists(path)) {
+            try {
+                variant = new StoredImage(image.hash() + "-" + size.name().toLowerCase(Locale.ROOT),
+                        "image/jpeg", Files.size(path), path);
+            } catch (IOException e) {
+                return null;
+            }
+            ready.put(key, variant);
+            return variant;
+        }
+        if (convertible(image) && unavailable.getIfPresent(image.hash()) == null) {
+            submit(image);
+        }
+        return null;
+    }
+
+    // ------------------- RESIZE -------------------
+
+    // ImageIO reads JPEG, PNG and GIF; WebP is always served as uploaded
+    private static boolean convertible(StoredImage image) {
+        return !"image/webp".equals(image.contentType());
+    }
+
+    void generate(StoredImage image) {
+        if (!convertible(image)) {
+            return;
+        }
+        BufferedImage source;
+        try {
+            source = decode(image.path());
+        } catch (IIOException | RuntimeException e) {
+            // Malformed data: decoding it again would fail the same way
+            failed.increment();
+            System.err.println("IMAGE VARIANTS: " + image.hash() + " cannot be decoded: " + e);
+            source = null;
+        } catch (IOException e) {
+            failed.increment();
+            System.err.println("IMAGE VARIANTS: " + image.hash() + " could not be read, will retry: " + e);
+            return;
+        }
+        if (source == null) {
+            unavailable.put(image.hash(), Boolean.TRUE);
+            return;
+        }
+        try {
+            for (Size size : Size.values()) {
+                source = scaleDown(source, size.maxDimension);
+                write(source, variantPath(image, size));
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            System.err.println("IMAGE VARIANTS: " + image.hash() + " failed, will retry: " + e);
+        }
+    }
+
+    private static BufferedImage decode(Path path) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            if (in == null) {
+                throw new IOException("Cannot open " + path);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    System.err.println("IMAGE VARIANTS: " + path.getFileName() + " is "
+                            + reader.getWidth(0) + "x" + reader.getHeight(0) + ", too large to resize");
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halve with bilinear filtering until within 2x of the target, then one last step: close to
+    // area averaging in quality at a fraction of the cost. Flattens transparency onto white for JPEG.
+    static BufferedImage scaleDown(BufferedImage source, int maxDimension) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void write(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Path variantPath(StoredImage image, Size size) {
+        return image.path().resolveSibling(image.hash() + "." + size.name().toLowerCase(Locale.ROOT) + ".jpg");
+    }
+}
@@ -0,0 +1,118 @@
+package com.demo.ecommerce.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: timeouts hash into {@code wheelSize} buckets by deadline tick and carry
+ * the number of full wheel turns still to wait. Scheduling and cancelling are O(1); advancing
+ * one tick only visits that tick's bucket, however many timeouts are pending in total.
+ *
+ * Time is passed in explicitly (milliseconds), so the wheel has no thread of its own.
+ */
+final class HashedTimingWheel<T> {
+
+    static final class Timeout<T> {
+        private final T task;
+        private final int bucket;
+        private long rounds;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private boolean linked = true;
+
+        private Timeout(T task, int bucket, long rounds) {
+            this.task = task;
+            this.bucket = bucket;
+            this.rounds = rounds;
+        }
+
+        T task() {
+            return task;
+        }
+    }
+
+    private final long tickMs;
+    private final long startMs;
+    private final int mask;
+    private final Timeout<T>[] heads;
+    private long nextTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    HashedTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize a power of two");
+        }
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        this.mask = wheelSize - 1;
+        this.heads = new Timeout[wheelSize];
+    }
+
+    /**
+     * Schedules {@code task} to expire at {@code deadlineMs} (rounded up to the next tick).
+     */
+    synchronized Timeout<T> schedule(T task, long deadlineMs) {
+        long deadlineTick = Math.max(nextTick, Math.ceilDiv(deadlineMs - startMs, tickMs));
+        Timeout<T> timeout = new Timeout<>(task, (int) (deadlineTick & mask), (deadlineTick - nextTick) / heads.length);
+        timeout.next = heads[timeout.bucket];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        heads[timeout.bucket] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return false if the timeout already expired or was cancelled.
+     */
+    synchronized boolean cancel(Timeout<T> timeout) {
+        if (!timeout.linked) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Processes every tick up to {@code nowMs} and returns the tasks that expired.
+     */
+    synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        while (startMs + nextTick * tickMs <= nowMs) {
+            Timeout<T> timeout = heads[(int) (nextTick & mask)];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.rounds == 0) {
+                    unlink(timeout);
+                    expired.add(timeout.task);
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+            nextTick++;
+        }
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            heads[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.linked = false;
+        size--;
+    }
+}
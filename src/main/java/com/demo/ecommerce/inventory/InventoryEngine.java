@@ -0,0 +1,317 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dao.ItemDao;
+import com.demo.ecommerce.model.InventoryCheckpoint;
+import com.demo.ecommerce.model.Item;
+import com.demo.ecommerce.repository.InventoryCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory stock engine (app.inventory.mode=engine).
+ *
+ * Orders are accepted or rejected against per-item lock-free counters, journaled locally
+ * (fsync'd before the caller is answered) and written to the items table asynchronously:
+ * a flusher coalesces all deltas per item and applies them in one batch, together with the
+ * journal checkpoint, in a single transaction. On startup, journal records newer than the
+ * checkpoint are replayed into the database before the counters are loaded.
+ *
+ * The engine owns the stock of this instance: it assumes it is the only writer of quantities.
+ *
+ * A movement whose journal record cannot be made durable is not acknowledged: the counter gives it
+ * back and a compensating record cancels it in the journal and in the write-behind. If even that
+ * cannot be journaled, the engine stops accepting movements (fail-stop) rather than let the
+ * counters and the database drift apart.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.inventory", name = "mode", havingValue = "engine")
+public class InventoryEngine {
+
+    private static final String CHECKPOINT = "inventory-engine";
+
+    private record Slot(StockCounter counter, String itemName, int price) {}
+
+    private final ItemDao itemDao;
+    private final InventoryCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryConfig.Engine config;
+
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final LowStockIndex lowStock;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private InventoryJournal journal;
+    private volatile IOException journalFailure; // set once the journal can no longer be trusted
+
+    // Deltas journaled but not yet written to the database; guarded by the journal monitor
+    private Map<Long, Integer> pending = new HashMap<>();
+
+    public InventoryEngine(ItemDao itemDao,
+                           InventoryCheckpointRepository checkpointRepository,
+                           PlatformTransactionManager transactionManager,
+                           InventoryConfig inventoryConfig) {
+        this.itemDao = itemDao;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = inventoryConfig.getEngine();
+        this.lowStock = new LowStockIndex(inventoryConfig.getLowStockThreshold());
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        journal = new InventoryJournal(Path.of(config.getJournalDir()), config.isFsync());
+
+        long lastSeq = replayJournal();
+        journal.open(lastSeq);
+
+        for (Item item : itemDao.findAll()) {
+            register(item);
+        }
+
+        flusher.scheduleWithFixedDelay(this::flush,
+                config.getFlushIntervalMs(), config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        journal.close();
+    }
+
+    // ------------------- ORDER PATH -------------------
+
+    /**
+     * Takes stock for an order. The decision is made in memory; the call returns once
+     * the movement is durable in the local journal.
+     * @return the new quantity, or null if the item is unknown or the order would leave
+     *         fewer than {@code minRemaining} units.
+     */
+    public Integer tryDecrement(Long itemId, int quantity, int minRemaining) {
+        checkJournal();
+        Slot slot = slots.get(itemId);
+        if (slot == null) {
+            return null;
+        }
+
+        long remaining = slot.counter().tryDecrement(quantity, minRemaining);
+        if (remaining == StockCounter.REJECTED) {
+            return null;
+        }
+
+        try {
+            record(itemId, -quantity);
+        } catch (IOException e) {
+            // Not acknowledged (record cancelled it in the journal), so give the units back
+            slot.counter().add(quantity);
+            throw new UncheckedIOException("Inventory journal unavailable", e);
+        }
+        lowStock.update(itemId, slot.counter()::get);
+        return (int) remaining;
+    }
+
+    /**
+     * Returns previously taken units to stock (cancelled or rolled back orders).
+     */
+    public void release(Long itemId, int quantity) {
+        checkJournal();
+        Slot slot = slots.get(itemId);
+        if (slot == null) {
+            return;
+        }
+        try {
+            record(itemId, quantity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Inventory journal unavailable", e);
+        }
+        slot.counter().add(quantity);
+        lowStock.update(itemId, slot.counter()::get);
+    }
+
+    /**
+     * Item as the engine sees it (current in-memory stock), or null if unknown.
+     */
+    public Item snapshot(Long itemId) {
+        Slot slot = slots.get(itemId);
+        if (slot == null) {
+            return null;
+        }
+        Item item = new Item(slot.itemName(), (int) slot.counter().get(), slot.price());
+        item.setItemId(itemId);
+        return item;
+    }
+
+    /**
+     * Items below app.inventory.low-stock-threshold, lowest stock first, from the index the order
+     * path keeps up to date (no table scan).
+     */
+    public List<Item> lowStockItems() {
+        List<Item> items = new ArrayList<>();
+        for (LowStockIndex.Entry entry : lowStock.entries()) {
+            Item item = snapshot(entry.itemId());
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Replaces the (possibly lagging) database quantity with the engine's current value.
+     */
+    public Item overlay(Item item) {
+        Slot slot = slots.get(item.getItemId());
+        if (slot != null) {
+            item.setQuantity((int) slot.counter().get());
+        }
+        return item;
+    }
+
+    /**
+     * Starts tracking a newly created item. Its stock is already in the database.
+     */
+    public void register(Item item) {
+        Slot slot = slots.compute(item.getItemId(), (id, existing) -> new Slot(
+                existing != null ? existing.counter() : new StockCounter(item.getQuantity()),
+                item.getItemName(),
+                item.getPrice()));
+        lowStock.update(item.getItemId(), slot.counter()::get);
+    }
+
+    /**
+     * Journals a movement and queues it for write-behind; returns once it is durable. If it cannot
+     * be made durable, it is cancelled before the exception reaches the caller.
+     */
+    private void record(long itemId, int delta) throws IOException {
+        long seq;
+        synchronized (journal) {
+            try {
+                seq = journal.append(itemId, delta);
+            } catch (IOException e) {
+                // A partial record may be on disk: nothing after it would replay
+                journalFailure = e;
+                throw e;
+            }
+            pending.merge(itemId, delta, Integer::sum);
+        }
+        try {
+            journal.sync(seq);
+        } catch (IOException e) {
+            compensate(itemId, delta, e);
+            throw e;
+        }
+    }
+
+    // Cancels a movement that was appended but not acknowledged. The reverse delta goes to the
+    // write-behind too, so it also undoes the original if a flush already took that to the database.
+    private void compensate(long itemId, int delta, IOException cause) {
+        try {
+            long seq;
+            synchronized (journal) {
+                seq = journal.append(itemId, -delta);
+                pending.merge(itemId, -delta, Integer::sum);
+            }
+            journal.sync(seq);
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            journalFailure = e;
+            System.err.println("INVENTORY ENGINE: journal failed, no longer accepting stock movements - " + e.getMessage());
+        }
+    }
+
+    private void checkJournal() {
+        IOException failure = journalFailure;
+        if (failure != null) {
+            throw new UncheckedIOException("Inventory journal failed; restart to replay it", failure);
+        }
+    }
+
+    // ------------------- WRITE-BEHIND -------------------
+
+    void flush() {
+        Map<Long, Integer> batch;
+        long upTo;
+        synchronized (journal) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+            try {
+                upTo = journal.roll();
+            } catch (IOException e) {
+                pending = batch;
+                System.err.println("INVENTORY ENGINE: journal roll failed - " + e.getMessage());
+                return;
+            }
+        }
+
+        try {
+            persist(batch, upTo);
+            journal.deleteSealedSegments();
+        } catch (Exception e) {
+            // Keep the deltas; the sealed segments stay on disk until a later flush covers them
+            synchronized (journal) {
+                batch.forEach((itemId, delta) -> pending.merge(itemId, delta, Integer::sum));
+            }
+            System.err.println("INVENTORY ENGINE: write-behind failed, will retry - " + e.getMessage());
+        }
+    }
+
+    private void persist(Map<Long, Integer> deltas, long upTo) {
+        transactionTemplate.executeWithoutResult(status -> {
+            deltas.values().removeIf(delta -> delta == 0);
+            itemDao.applyStockDeltas(deltas);
+            checkpointRepository.save(new InventoryCheckpoint(CHECKPOINT, upTo));
+        });
+    }
+
+    private long replayJournal() throws IOException {
+        long checkpoint = checkpointRepository.findById(CHECKPOINT)
+                .map(InventoryCheckpoint::getLastSeq)
+                .orElse(0L);
+
+        List<InventoryJournal.Entry> entries = journal.readAll();
+        Map<Long, Integer> deltas = new HashMap<>();
+        long lastSeq = checkpoint;
+        for (InventoryJournal.Entry entry : entries) {
+            if (entry.seq() > checkpoint) {
+                deltas.merge(entry.itemId(), entry.delta(), Integer::sum);
+            }
+            lastSeq = Math.max(lastSeq, entry.seq());
+        }
+
+        if (!deltas.isEmpty()) {
+            persist(deltas, lastSeq);
+            System.out.println("INVENTORY ENGINE: replayed " + deltas.size() + " item deltas up to journal seq " + lastSeq);
+        }
+        journal.deleteSealedSegments();
+        return lastSeq;
+    }
+}
@@ -0,0 +1,190 @@
+package com.demo.ecommerce.inventory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of accepted stock movements, split into segments.
+ *
+ * Record layout (24 bytes): seq (8) | itemId (8) | delta (4) | crc32 (4).
+ * A torn record at the tail of a segment (crash mid-write) fails the CRC and ends replay.
+ *
+ * {@link #append} and {@link #roll} are guarded by this object's monitor; callers that need
+ * to keep other state in step with the journal synchronize on the journal themselves.
+ * {@link #sync} may be called concurrently and coalesces fsyncs: one force() covers every
+ * record appended before it started (group commit).
+ */
+final class InventoryJournal implements Closeable {
+
+    static final int RECORD_SIZE = 24;
+
+    record Entry(long seq, long itemId, int delta) {}
+
+    private final Path dir;
+    private final boolean fsync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final ByteBuffer crcInput = ByteBuffer.allocate(20);
+    private final CRC32 crc = new CRC32();
+    private final Object syncLock = new Object();
+
+    private FileChannel current;
+    private Path currentPath;
+    private long lastSeq;
+    private volatile long durableSeq;
+
+    InventoryJournal(Path dir, boolean fsync) throws IOException {
+        this.dir = dir;
+        this.fsync = fsync;
+        Files.createDirectories(dir);
+    }
+
+    /**
+     * Reads every record of every segment, oldest first. Must be called before {@link #open}.
+     */
+    synchronized List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer read = ByteBuffer.allocate(RECORD_SIZE);
+        for (Path segment : segments()) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                while (true) {
+                    read.clear();
+                    while (read.hasRemaining() && channel.read(read) > 0) {
+                        // keep reading until the record is complete or EOF
+                    }
+                    if (read.hasRemaining()) {
+                        break; // EOF or torn tail
+                    }
+                    read.flip();
+                    long seq = read.getLong();
+                    long itemId = read.getLong();
+                    int delta = read.getInt();
+                    int storedCrc = read.getInt();
+                    if (storedCrc != checksum(seq, itemId, delta)) {
+                        break;
+                    }
+                    entries.add(new Entry(seq, itemId, delta));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Starts a fresh segment; sequence numbers continue after {@code lastSeq}.
+     */
+    synchronized void open(long lastSeq) throws IOException {
+        this.lastSeq = lastSeq;
+        this.durableSeq = lastSeq;
+        startSegment();
+    }
+
+    /**
+     * Appends one record and returns its sequence number. Not durable until {@link #sync}.
+     */
+    synchronized long append(long itemId, int delta) throws IOException {
+        long seq = lastSeq + 1;
+        buffer.clear();
+        buffer.putLong(seq).putLong(itemId).putInt(delta).putInt(checksum(seq, itemId, delta));
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            current.write(buffer);
+        }
+        lastSeq = seq;
+        return seq;
+    }
+
+    /**
+     * Seals the current segment (forced to disk) and starts a new one.
+     * @return the last sequence number contained in the sealed segments.
+     */
+    synchronized long roll() throws IOException {
+        current.force(false);
+        current.close();
+        durableSeq = lastSeq;
+        startSegment();
+        return lastSeq;
+    }
+
+    /**
+     * Blocks until the record with sequence {@code seq} is on stable storage.
+     */
+    void sync(long seq) throws IOException {
+        if (!fsync || durableSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableSeq >= seq) {
+                return;
+            }
+            FileChannel channel;
+            long target;
+            synchronized (this) {
+                channel = current;
+                target = lastSeq;
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException rolled) {
+                // roll() closed it after forcing, so everything up to target is already durable
+            }
+            if (target > durableSeq) {
+                durableSeq = target;
+            }
+        }
+    }
+
+    /**
+     * Deletes every segment except the one currently being written.
+     */
+    void deleteSealedSegments() throws IOException {
+        Path active;
+        synchronized (this) {
+            active = currentPath;
+        }
+        for (Path segment : segments()) {
+            if (!segment.equals(active)) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current != null && current.isOpen()) {
+            current.force(false);
+            current.close();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        currentPath = dir.resolve(String.format("journal-%020d.log", lastSeq + 1));
+        current = FileChannel.open(currentPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("journal-"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private int checksum(long seq, long itemId, int delta) {
+        crcInput.clear();
+        crcInput.putLong(seq).putLong(itemId).putInt(delta);
+        crc.reset();
+        crc.update(crcInput.array());
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,62 @@
+package com.demo.ecommerce.inventory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongSupplier;
+
+/**
+ * Items whose stock is below a threshold, kept sorted by quantity (then id) as stock moves.
+ *
+ * Every stock change calls {@link #update} with the item's counter; items at or above the threshold
+ * are not tracked, so for them an update is a single map lookup. Listing the k low-stock items walks
+ * the k entries of the sorted set instead of scanning the catalog.
+ *
+ * Updates for one item are serialised by the map and re-read the counter, so whichever update runs
+ * last records the latest quantity even when the counter changes concurrently.
+ */
+final class LowStockIndex {
+
+    record Entry(long itemId, long quantity) {}
+
+    private final int threshold;
+    private final Map<Long, Entry> byItem = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> sorted = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Entry::quantity).thenComparingLong(Entry::itemId));
+
+    LowStockIndex(int threshold) {
+        this.threshold = threshold;
+    }
+
+    void update(long itemId, LongSupplier quantity) {
+        byItem.compute(itemId, (id, previous) -> {
+            long current = quantity.getAsLong();
+            if (previous != null) {
+                if (previous.quantity() == current) {
+                    return previous;
+                }
+                sorted.remove(previous);
+            }
+            if (current >= threshold) {
+                return null;
+            }
+            Entry entry = new Entry(id, current);
+            sorted.add(entry);
+            return entry;
+        });
+    }
+
+    /**
+     * The tracked items, lowest stock first.
+     */
+    List<Entry> entries() {
+        return new ArrayList<>(sorted);
+    }
+
+    int size() {
+        return byItem.size();
+    }
+}
@@ -0,0 +1,210 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dao.ItemDao;
+import com.demo.ecommerce.exception.OrderOutcomeUnknownException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group commit for hot items (app.inventory.mode=group-commit).
+ *
+ * Orders for an item are queued; the first arrival arms a short window, and when it closes
+ * (or the queue reaches the batch size) one drainer takes the whole batch, locks the row once,
+ * decides every order in arrival order against the current stock, writes the net decrement
+ * with a single UPDATE and commits. Each caller's future then completes with its own outcome.
+ * Only one drain per item runs at a time, so an item's orders never contend with each other
+ * on the row lock. A drain that finds another one running just returns: the running drain
+ * re-checks the queue once it has let go of the lock.
+ *
+ * An order is QUEUED until a drain takes it (TAKEN) or commit-timeout-ms passes first
+ * (TIMED_OUT); both are one compare-and-set, so exactly one wins. A timed-out order is never
+ * applied. A taken one always gets the outcome of its commit, however long the commit takes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.inventory", name = "mode", havingValue = "group-commit")
+public class OrderGroupCommitter {
+
+    private enum State { QUEUED, TAKEN, TIMED_OUT }
+
+    private record PendingOrder(int quantity, CompletableFuture<Integer> result, AtomicReference<State> state) {
+
+        PendingOrder(int quantity) {
+            this(quantity, new CompletableFuture<>(), new AtomicReference<>(State.QUEUED));
+        }
+    }
+
+    private static final class ItemQueue {
+        final ConcurrentLinkedQueue<PendingOrder> orders = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicBoolean armed = new AtomicBoolean();
+        final ReentrantLock draining = new ReentrantLock();
+    }
+
+    private final ItemDao itemDao;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryConfig inventoryConfig;
+    private final InventoryConfig.GroupCommit config;
+    private final DistributionSummary batchSizes;
+
+    private final Map<Long, ItemQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "group-commit-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService drainers;
+
+    public OrderGroupCommitter(ItemDao itemDao,
+                               PlatformTransactionManager transactionManager,
+                               InventoryConfig inventoryConfig,
+                               MeterRegistry meterRegistry) {
+        this.itemDao = itemDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.inventoryConfig = inventoryConfig;
+        this.config = inventoryConfig.getGroupCommit();
+        this.batchSizes = DistributionSummary.builder("inventory.group_commit.batch_size")
+                .description("Orders decided per group commit")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.drainers = Executors.newFixedThreadPool(config.getDrainerThreads(), r -> {
+            Thread thread = new Thread(r, "group-commit-drainer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdown();
+        drainers.shutdown();
+    }
+
+    /**
+     * Queues an order for the next group commit of its item.
+     * @return a future completing with the new quantity, or null if the order was rejected
+     *         (not enough stock above the minimum, or the item does not exist). It completes with a
+     *         TimeoutException if no drain took the order within commit-timeout-ms: the order is
+     *         dropped, not applied, and can be placed again. Once taken, it completes with the
+     *         commit's outcome, or with {@link OrderOutcomeUnknownException} if the commit itself failed.
+     */
+    public CompletableFuture<Integer> submit(Long itemId, int quantity) {
+        ItemQueue queue = queues.computeIfAbsent(itemId, id -> new ItemQueue());
+        PendingOrder pending = new PendingOrder(quantity);
+        queue.orders.add(pending);
+        timer.schedule(() -> {
+            if (pending.state().compareAndSet(State.QUEUED, State.TIMED_OUT)) {
+                pending.result().completeExceptionally(new TimeoutException());
+            }
+        }, config.getCommitTimeoutMs(), TimeUnit.MILLISECONDS);
+
+        int size = queue.size.incrementAndGet();
+        if (size >= config.getMaxBatchSize()) {
+            drainers.execute(() -> drain(itemId, queue));
+        } else if (queue.armed.compareAndSet(false, true)) {
+            timer.schedule(() -> drainers.execute(() -> drain(itemId, queue)),
+                    config.getWindowMicros(), TimeUnit.MICROSECONDS);
+        }
+        return pending.result();
+    }
+
+    private void drain(Long itemId, ItemQueue queue) {
+        if (!queue.draining.tryLock()) {
+            return; // the running drain re-checks the queue after unlocking (see below)
+        }
+        try {
+            queue.armed.set(false);
+            List<PendingOrder> batch = new ArrayList<>(config.getMaxBatchSize());
+            PendingOrder order;
+            while (batch.size() < config.getMaxBatchSize() && (order = queue.orders.poll()) != null) {
+                queue.size.decrementAndGet();
+                if (order.state().compareAndSet(State.QUEUED, State.TAKEN)) { // else timed out while queued
+                    batch.add(order);
+                }
+            }
+            if (!batch.isEmpty()) {
+                commit(itemId, batch);
+            }
+        } finally {
+            queue.draining.unlock();
+        }
+
+        // Orders that arrived while we were committing, or whose drain lost the tryLock. Clear, then
+        // re-check: a submitter that armed before the clear queued its order before arming, so the
+        // check sees it; one arming after the clear wins the CAS and schedules its own drain. Armed
+        // is therefore never left set without a drain to come, even when a drain that lost the
+        // tryLock was meant for an order this one took.
+        queue.armed.set(false);
+        if (!queue.orders.isEmpty() && queue.armed.compareAndSet(false, true)) {
+            if (queue.size.get() >= config.getMaxBatchSize()) {
+                drainers.execute(() -> drain(itemId, queue));
+            } else {
+                timer.schedule(() -> drainers.execute(() -> drain(itemId, queue)),
+                        config.getWindowMicros(), TimeUnit.MICROSECONDS);
+            }
+        }
+    }
+
+    private void commit(Long itemId, List<PendingOrder> batch) {
+        Integer[] outcomes = new Integer[batch.size()];
+        AtomicBoolean decided = new AtomicBoolean();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Integer current = itemDao.findQuantityForUpdate(itemId);
+                if (current == null) {
+                    return; // every outcome stays null: item not found
+                }
+
+                int remaining = current;
+                int minimumStock = inventoryConfig.getMinimumStock();
+                for (int i = 0; i < batch.size(); i++) {
+                    int quantity = batch.get(i).quantity();
+                    if (remaining - quantity >= minimumStock) {
+                        remaining -= quantity;
+                        outcomes[i] = remaining;
+                    }
+                }
+
+                if (remaining != current) {
+                    itemDao.applyStockDeltas(Map.of(itemId, remaining - current));
+                }
+                decided.set(true);
+            });
+        } catch (RuntimeException e) {
+            // Failing before the commit rolls the batch back; failing in it may or may not have applied it
+            RuntimeException failure = decided.get()
+                    ? new OrderOutcomeUnknownException("Order for item " + itemId
+                            + " may or may not have been applied; check the stock before ordering again", e)
+                    : e;
+            batch.forEach(order -> order.result().completeExceptionally(failure));
+            return;
+        }
+
+        batchSizes.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(outcomes[i]);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dao.ItemDao;
+import com.demo.ecommerce.dao.OrderLedgerDao;
+import com.demo.ecommerce.model.InventoryCheckpoint;
+import com.demo.ecommerce.model.Item;
+import com.demo.ecommerce.model.LedgerEntryType;
+import com.demo.ecommerce.model.OrderLedgerEntry;
+import com.demo.ecommerce.repository.InventoryCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Append-only order ledger (app.inventory.mode=ledger).
+ *
+ * Every accepted order is a row in order_ledger; springitems.quantity is a projection that a
+ * background projector advances from its high-water mark (the last projected ledger id, kept
+ * in inventory_checkpoint in the same transaction as the quantity updates).
+ *
+ * Orders never update the item row. An order is decided under a per-item stripe lock against
+ * the projected quantity plus the net delta of entries not projected yet (read as one consistent
+ * pair: see {@link #projection}), then queued for a single writer thread that inserts whatever has accumulated with one multi-row INSERT per
+ * transaction. Because there is only one writer, ledger ids commit in increasing order and the
+ * projector can never skip a row that commits late.
+ *
+ * Like the engine, the ledger assumes it is the only writer of quantities.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.inventory", name = "mode", havingValue = "ledger")
+public class OrderLedger {
+
+    private static final String CHECKPOINT = "order-ledger-projection";
+    private static final int STRIPES = 64;
+
+    private record PendingEntry(OrderLedgerEntry entry, CompletableFuture<Void> written) {}
+
+    private final ItemDao itemDao;
+    private final OrderLedgerDao ledgerDao;
+    private final InventoryCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryConfig.Ledger config;
+
+    private final Object[] stripes = new Object[STRIPES];
+    // Net delta per item of entries accepted (written or in flight) but not projected yet
+    private final Map<Long, AtomicLong> unprojected = new ConcurrentHashMap<>();
+    // Write-locked by the projector from just before its commit until unprojected is adjusted, so an
+    // order never reads a quantity that already includes a delta still counted as unprojected
+    private final StampedLock projection = new StampedLock();
+    private final BlockingQueue<PendingEntry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer = new Thread(this::writeLoop, "order-ledger-writer");
+    private final ScheduledExecutorService projector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "order-ledger-projector");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+
+    public OrderLedger(ItemDao itemDao,
+                       OrderLedgerDao ledgerDao,
+                       InventoryCheckpointRepository checkpointRepository,
+                       PlatformTransactionManager transactionManager,
+                       InventoryConfig inventoryConfig) {
+        this.itemDao = itemDao;
+        this.ledgerDao = ledgerDao;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = inventoryConfig.getLedger();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        // Catch up with whatever a previous run left unprojected, then open the ledger for new items
+        project();
+        int opened = transactionTemplate.execute(status -> ledgerDao.insertOpeningBalances());
+        if (opened > 0) {
+            System.out.println("ORDER LEDGER: recorded opening balances for " + opened + " items");
+        }
+        if (config.isRebuildOnStart()) {
+            rebuildProjection();
+        }
+
+        writer.setDaemon(true);
+        writer.start();
+        projector.scheduleWithFixedDelay(this::project,
+                config.getProjectIntervalMs(), config.getProjectIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(5000);
+        projector.shutdown();
+        projector.awaitTermination(5, TimeUnit.SECONDS);
+        project();
+    }
+
+    // ------------------- ORDER PATH -------------------
+
+    /**
+     * Appends an order for {@code quantity} units if enough stock is left above {@code minRemaining}.
+     * Returns once the entry is committed.
+     * @return the expected quantity after the order, or null if the item is unknown or the order was rejected.
+     */
+    public Integer tryAppend(Long itemId, int quantity, int minRemaining) {
+        AtomicLong pending = unprojected(itemId);
+        long remaining;
+        synchronized (stripe(itemId)) {
+            // Optimistic: only an overlapping projection commit makes it read again, under the lock
+            long stamp = projection.tryOptimisticRead();
+            Long available = available(itemId, pending);
+            if (!projection.validate(stamp)) {
+                stamp = projection.readLock();
+                try {
+                    available = available(itemId, pending);
+                } finally {
+                    projection.unlockRead(stamp);
+                }
+            }
+            if (available == null) {
+                return null;
+            }
+            remaining = available - quantity;
+            if (remaining < minRemaining) {
+                return null;
+            }
+            pending.addAndGet(-quantity);
+        }
+
+        try {
+            append(new OrderLedgerEntry(itemId, -quantity, LedgerEntryType.ORDER, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            pending.addAndGet(quantity);
+            throw e;
+        }
+        return (int) remaining;
+    }
+
+    // Projected quantity plus unprojected movements, or null if the item does not exist. The
+    // quantity is read from the table, never from the item cache: this read decides the order.
+    private Long available(Long itemId, AtomicLong pending) {
+        long delta = pending.get();
+        Integer quantity = itemDao.findQuantity(itemId);
+        return quantity == null ? null : quantity + delta;
+    }
+
+    /**
+     * Returns previously taken units to stock (cancelled or rolled back orders).
+     */
+    public void release(Long itemId, int quantity) {
+        append(new OrderLedgerEntry(itemId, quantity, LedgerEntryType.RELEASE, LocalDateTime.now()));
+        unprojected(itemId).addAndGet(quantity);
+    }
+
+    /**
+     * Records the stock a newly created item starts with. Its quantity is already in the items table.
+     * Inside a transaction the entry is written once it commits: the single writer cannot join the
+     * caller's transaction, and an entry written earlier would stay behind if the item rolled back.
+     */
+    public void open(Item item) {
+        open(List.of(item));
+    }
+
+    /**
+     * Same for many new items (a bulk import chunk): the entries are queued together, so the writer
+     * inserts them in as few batches as max-batch-size allows instead of one round trip per item.
+     */
+    public void open(List<Item> items) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderLedgerEntry> entries = items.stream()
+                .map(item -> new OrderLedgerEntry(item.getItemId(), item.getQuantity(), LedgerEntryType.OPENING, now))
+                .toList();
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            appendAll(entries);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    appendAll(entries);
+                } catch (RuntimeException e) {
+                    // The items are committed; startup records opening balances of items without any entry
+                    System.err.println("ORDER LEDGER: opening entries for " + entries.size()
+                            + " items not written - " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds accepted but not yet projected movements to the database quantity.
+     */
+    public Item overlay(Item item) {
+        AtomicLong pending = unprojected.get(item.getItemId());
+        if (pending != null) {
+            item.setQuantity((int) (item.getQuantity() + pending.get()));
+        }
+        return item;
+    }
+
+    /**
+     * Items with accepted movements not projected yet, i.e. whose quantity in the table is not current.
+     */
+    public Set<Long> unprojectedItemIds() {
+        Set<Long> itemIds = new HashSet<>();
+        unprojected.forEach((itemId, pending) -> {
+            if (pending.get() != 0) {
+                itemIds.add(itemId);
+            }
+        });
+        return itemIds;
+    }
+
+    private void append(OrderLedgerEntry entry) {
+        appendAll(List.of(entry));
+    }
+
+    // Queues the entries together and waits until all are written
+    private void appendAll(List<OrderLedgerEntry> entries) {
+        if (!running) {
+            throw new IllegalStateException("Order ledger is shutting down");
+        }
+        List<PendingEntry> pending = new ArrayList<>(entries.size());
+        for (OrderLedgerEntry entry : entries) {
+            pending.add(new PendingEntry(entry, new CompletableFuture<>()));
+        }
+        queue.addAll(pending);
+        try {
+            for (PendingEntry entry : pending) {
+                entry.written().join();
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private AtomicLong unprojected(Long itemId) {
+        return unprojected.computeIfAbsent(itemId, id -> new AtomicLong());
+    }
+
+    private Object stripe(Long itemId) {
+        return stripes[Math.floorMod(itemId.hashCode(), STRIPES)];
+    }
+
+    // ------------------- WRITER -------------------
+
+    private void writeLoop() {
+        List<PendingEntry> batch = new ArrayList<>(config.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, config.getMaxBatchSize() - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingEntry> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    ledgerDao.insertBatch(batch.stream().map(PendingEntry::entry).toList()));
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.written().completeExceptionally(e));
+            return;
+        }
+        batch.forEach(pending -> pending.written().complete(null));
+    }
+
+    // ------------------- PROJECTION -------------------
+
+    void project() {
+        long[] stamp = new long[1];
+        try {
+            Map<Long, Integer> applied = transactionTemplate.execute(status -> {
+                long highWater = highWater();
+                long upTo = ledgerDao.maxId();
+                if (upTo <= highWater) {
+                    return Map.<Long, Integer>of();
+                }
+                Map<Long, Integer> deltas = ledgerDao.sumDeltas(highWater, upTo);
+                deltas.values().removeIf(delta -> delta == 0);
+                itemDao.applyStockDeltas(deltas);
+                checkpointRepository.save(new InventoryCheckpoint(CHECKPOINT, upTo));
+                // Orders wait from here until the deltas below have moved out of unprojected
+                stamp[0] = projection.writeLock();
+                return deltas;
+            });
+            applied.forEach((itemId, delta) -> unprojected(itemId).addAndGet(-delta));
+        } catch (Exception e) {
+            System.err.println("ORDER LEDGER: projection failed, will retry - " + e.getMessage());
+        } finally {
+            if (stamp[0] != 0) {
+                projection.unlockWrite(stamp[0]);
+            }
+        }
+    }
+
+    /**
+     * Recomputes every item's quantity from the ledger up to the current high-water mark,
+     * repairing a projection that drifted (e.g. after a manual edit of the items table).
+     * Runs at startup when app.inventory.ledger.rebuild-on-start is set.
+     * Runs on the projector thread, so it never interleaves with an incremental projection, and
+     * commits under the projection lock like one. The UPDATE bypasses the item DAO, so cached
+     * quantities are marked stale with it.
+     */
+    public void rebuildProjection() {
+        try {
+            int rebuilt = projector.submit(() -> {
+                long[] stamp = new long[1];
+                try {
+                    return transactionTemplate.execute(status -> {
+                        int count = ledgerDao.rebuildQuantities(highWater());
+                        itemDao.markAllQuantitiesStale();
+                        stamp[0] = projection.writeLock();
+                        return count;
+                    });
+                } finally {
+                    if (stamp[0] != 0) {
+                        projection.unlockWrite(stamp[0]);
+                    }
+                }
+            }).get();
+            System.out.println("ORDER LEDGER: rebuilt quantities of " + rebuilt + " items from the ledger");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ledger rebuild failed", e.getCause());
+        }
+    }
+
+    private long highWater() {
+        return checkpointRepository.findById(CHECKPOINT)
+                .map(InventoryCheckpoint::getLastSeq)
+                .orElse(0L);
+    }
+}
@@ -0,0 +1,174 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.model.ReservationHold;
+import com.demo.ecommerce.repository.ReservationHoldRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Stock reservations (holds taken while a checkout completes).
+ *
+ * The stock of a hold is already taken when it is added here. Each hold is scheduled on a
+ * hashed timing wheel; one ticker thread advances the wheel and hands every hold that expired
+ * during the tick to the expiry handler as one map of per-item quantities, so expired stock goes
+ * back with a single batched update. Whoever removes a hold from the map first (confirm, release
+ * or expiry) owns it, so a hold is never both confirmed and returned.
+ *
+ * Every hold is also stored in reservation_holds and deleted before its stock is settled. On
+ * start the stored holds are put back on the wheel (overdue ones expire on the first tick), so a
+ * restart returns their stock instead of leaking it. A crash between the delete and the stock
+ * return leaves the stock taken, never returned twice.
+ */
+@Component
+public class ReservationBook implements SmartLifecycle {
+
+    public record Reservation(String id, Long itemId, int quantity, String owner, Instant expiresAt) {}
+
+    private final InventoryConfig.Reservation config;
+    private final ReservationHoldRepository repository;
+    private final HashedTimingWheel<Reservation> wheel;
+    private final Map<String, HashedTimingWheel.Timeout<Reservation>> holds = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "reservation-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Consumer<Map<Long, Integer>> expiryHandler = deltas -> {};
+    private volatile boolean running;
+    // Expired holds whose settlement failed; retried on the next tick. Ticker thread only.
+    private List<Reservation> unreturned = new ArrayList<>();
+
+    public ReservationBook(InventoryConfig inventoryConfig, ReservationHoldRepository repository,
+                           MeterRegistry meterRegistry) {
+        this.config = inventoryConfig.getReservation();
+        this.repository = repository;
+        this.wheel = new HashedTimingWheel<>(config.getTickMs(), config.getWheelSize(), System.currentTimeMillis());
+        Gauge.builder("inventory.reservations.active", holds, Map::size)
+                .description("Reservations currently holding stock")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Restores the stored holds and starts the ticker. Runs once every bean is initialized, so
+     * the expiry handler is registered before the first overdue hold is returned.
+     */
+    @Override
+    public void start() {
+        restore();
+        ticker.scheduleAtFixedRate(this::tick, config.getTickMs(), config.getTickMs(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ticker.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    void restore() {
+        int restored = 0;
+        for (ReservationHold stored : repository.findAll()) {
+            Reservation reservation = new Reservation(stored.getReservationId(), stored.getItemId(),
+                    stored.getQuantity(), stored.getOwner(), stored.getExpiresAt());
+            holds.put(reservation.id(), wheel.schedule(reservation, reservation.expiresAt().toEpochMilli()));
+            restored++;
+        }
+        if (restored > 0) {
+            System.out.println("RESERVATIONS: restored " + restored + " hold(s)");
+        }
+    }
+
+    /**
+     * Receives the quantity to give back per item for every batch of expired holds.
+     */
+    public void onExpiry(Consumer<Map<Long, Integer>> handler) {
+        this.expiryHandler = handler;
+    }
+
+    /**
+     * Records (and stores) a hold on stock that has already been taken.
+     */
+    public Reservation hold(Long itemId, int quantity, String owner) {
+        Instant expiresAt = Instant.now().plus(config.getTtl());
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), itemId, quantity, owner, expiresAt);
+        repository.save(new ReservationHold(reservation.id(), itemId, quantity, owner, expiresAt));
+        holds.put(reservation.id(), wheel.schedule(reservation, expiresAt.toEpochMilli()));
+        return reservation;
+    }
+
+    /**
+     * Removes a live hold of {@code owner} (to confirm or release it).
+     * @return the reservation, or null if it is unknown, held by someone else, already taken or expired.
+     */
+    public Reservation take(String reservationId, String owner) {
+        HashedTimingWheel.Timeout<Reservation> timeout = holds.get(reservationId);
+        if (timeout == null || !timeout.task().owner().equals(owner)) {
+            return null;
+        }
+        // Deleted before it is removed: if the delete fails the hold stays live and untouched
+        repository.deleteById(reservationId);
+        if (!holds.remove(reservationId, timeout)) {
+            return null; // expired or taken concurrently
+        }
+        wheel.cancel(timeout);
+        return timeout.task();
+    }
+
+    public int size() {
+        return holds.size();
+    }
+
+    void tick() {
+        try {
+            expire(System.currentTimeMillis());
+        } catch (Exception e) {
+            System.err.println("RESERVATIONS: expiry tick failed - " + e.getMessage());
+        }
+    }
+
+    void expire(long nowMs) {
+        List<Reservation> expired = unreturned;
+        unreturned = new ArrayList<>();
+        for (Reservation reservation : wheel.advance(nowMs)) {
+            // A concurrent confirm/release may have taken it first
+            if (holds.remove(reservation.id()) != null) {
+                expired.add(reservation);
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (Reservation reservation : expired) {
+            deltas.merge(reservation.itemId(), reservation.quantity(), Integer::sum);
+        }
+        try {
+            repository.deleteAllByIdInBatch(expired.stream().map(Reservation::id).toList());
+            expiryHandler.accept(deltas);
+        } catch (RuntimeException e) {
+            unreturned = expired;
+            System.err.println("RESERVATIONS: returning expired stock failed, will retry - " + e.getMessage());
+        }
+    }
+}
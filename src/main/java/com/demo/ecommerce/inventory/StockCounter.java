@@ -0,0 +1,62 @@
+package com.demo.ecommerce.inventory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Padding before the value: the JVM lays out superclass fields first,
+// so the hot counter never shares a cache line with a neighbour object.
+abstract class StockCounterLeftPad {
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class StockCounterValue extends StockCounterLeftPad {
+    volatile long value;
+}
+
+/**
+ * Lock-free stock counter for a single item, padded to its own cache line
+ * so that hot items updated from different cores do not false-share.
+ */
+final class StockCounter extends StockCounterValue {
+
+    static final long REJECTED = Long.MIN_VALUE;
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(StockCounterValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    long p11, p12, p13, p14, p15, p16, p17;
+
+    StockCounter(long initial) {
+        this.value = initial;
+    }
+
+    long get() {
+        return value;
+    }
+
+    /**
+     * Takes {@code quantity} units if at least {@code minRemaining} stay behind.
+     * @return the new value, or {@link #REJECTED} if there is not enough stock.
+     */
+    long tryDecrement(long quantity, long minRemaining) {
+        long current;
+        do {
+            current = value;
+            if (current - quantity < minRemaining) {
+                return REJECTED;
+            }
+        } while (!VALUE.compareAndSet(this, current, current - quantity));
+        return current - quantity;
+    }
+
+    long add(long delta) {
+        return (long) VALUE.getAndAdd(this, delta) + delta;
+    }
+}
@@ -0,0 +1,98 @@
+package com.demo.ecommerce.inventory;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fan-out of stock changes to in-process listeners (e.g. the gRPC WatchStock streams).
+ *
+ * Changes made inside a transaction are delivered after it commits, so listeners never see stock
+ * that is rolled back. Listeners are called on the publishing thread and must not block. A listener
+ * gets the changes of one publish call together: a single change, or every item of a bulk import
+ * chunk ({@link #publishAll}), which it can apply in one step.
+ *
+ * The feed also counts committed changes ({@link #version}), which moves whenever any item's stock
+ * does, so it can stand for the state of the whole catalog (catalog ETag).
+ */
+@Component
+public class StockFeed {
+
+    /**
+     * @param quantity Stock after the change.
+     * @param delta    Change in stock (the initial quantity for a newly added item).
+     * @param added    True when the item was just created.
+     */
+    public record StockChange(Long itemId, String itemName, int quantity, int delta, boolean added) {}
+
+    private final List<Consumer<List<StockChange>>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public void subscribe(Consumer<List<StockChange>> listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Consumer<List<StockChange>> listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Number of changes committed since startup (a bulk change counts once).
+     */
+    public long version() {
+        return version.get();
+    }
+
+    public void publish(StockChange change) {
+        afterCommit(() -> deliver(List.of(change)));
+    }
+
+    /**
+     * Publishes many changes as one, e.g. the items added by one bulk import chunk.
+     */
+    public void publishAll(List<StockChange> changes) {
+        if (!changes.isEmpty()) {
+            afterCommit(() -> deliver(changes));
+        }
+    }
+
+    /**
+     * Counts a change without an event, for callers that only build one when someone is listening.
+     */
+    public void markChanged() {
+        afterCommit(version::incrementAndGet);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void deliver(List<StockChange> changes) {
+        version.incrementAndGet();
+        for (Consumer<List<StockChange>> listener : listeners) {
+            try {
+                listener.accept(changes);
+            } catch (RuntimeException e) {
+                System.err.println("STOCK FEED: listener failed - " + e.getMessage());
+            }
+        }
+    }
+}
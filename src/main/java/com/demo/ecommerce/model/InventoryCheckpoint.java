@@ -0,0 +1,44 @@
+package com.demo.ecommerce.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Highest inventory journal sequence (or order ledger id) whose stock delta has been written
+ * to the items table. Stored in the same transaction as the deltas, so replay and projection
+ * never apply a record twice.
+ */
+@Entity
+@Table(name = "inventory_checkpoint")
+public class InventoryCheckpoint {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    public InventoryCheckpoint() {
+    }
+
+    public InventoryCheckpoint(String name, long lastSeq) {
+        this.name = name;
+        this.lastSeq = lastSeq;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+}
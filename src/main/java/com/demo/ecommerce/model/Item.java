@@ -1,5 +1,6 @@
 package com.demo.ecommerce.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
@@ -7,7 +8,12 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 
 @Entity
-@Table(name = "SpringItems")
+// The quantity index serves the low-stock query (quantity < threshold ORDER BY quantity); the name index
+// the duplicate-name check in addNewItem for names the search index has not seen
+@Table(name = "SpringItems", indexes = {
+        @Index(name = "idx_springitems_quantity", columnList = "quantity"),
+        @Index(name = "idx_springitems_name", columnList = "item_name")
+})
 public class Item {
 
     @Id
@@ -30,6 +36,11 @@ public class Item {
     @Column(name = "price")
     private int price;
 
+    // Bumped by every write to the row; served in the ETag rather than the body
+    @JsonIgnore
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long version;
+
     public Item() {}
 
     // Constructor without ID (ID is auto-generated)
@@ -51,4 +62,7 @@ public class Item {
 
     public int getPrice() { return price; }
     public void setPrice(int price) { this.price = price; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
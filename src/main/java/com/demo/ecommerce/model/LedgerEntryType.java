@@ -0,0 +1,8 @@
+package com.demo.ecommerce.model;
+
+public enum LedgerEntryType {
+    // Stock an item had when the ledger started tracking it (already in the quantity column)
+    OPENING,
+    ORDER,
+    RELEASE
+}
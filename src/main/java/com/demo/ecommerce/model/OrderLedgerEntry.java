@@ -0,0 +1,80 @@
+package com.demo.ecommerce.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One stock movement. Rows are only ever inserted; springitems.quantity is a projection of them.
+ */
+@Entity
+@Table(name = "order_ledger", indexes = @Index(name = "idx_order_ledger_item", columnList = "item_id"))
+public class OrderLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    // Negative for orders, positive for opening balances and released stock
+    @Column(name = "quantity_delta", nullable = false)
+    private int quantityDelta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 16)
+    private LedgerEntryType entryType;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public OrderLedgerEntry() {
+    }
+
+    public OrderLedgerEntry(Long itemId, int quantityDelta, LedgerEntryType entryType, LocalDateTime createdAt) {
+        this.itemId = itemId;
+        this.quantityDelta = quantityDelta;
+        this.entryType = entryType;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public int getQuantityDelta() {
+        return quantityDelta;
+    }
+
+    public void setQuantityDelta(int quantityDelta) {
+        this.quantityDelta = quantityDelta;
+    }
+
+    public LedgerEntryType getEntryType() {
+        return entryType;
+    }
+
+    public void setEntryType(LedgerEntryType entryType) {
+        this.entryType = entryType;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
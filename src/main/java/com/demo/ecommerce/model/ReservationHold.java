@@ -0,0 +1,81 @@
+package com.demo.ecommerce.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A live checkout reservation whose stock has been taken. Written when the hold is taken and
+ * deleted when it is confirmed, released or expired, so holds outlive a restart.
+ */
+@Entity
+@Table(name = "reservation_holds")
+public class ReservationHold {
+
+    @Id
+    @Column(name = "reservation_id", length = 36)
+    private String reservationId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    // Username of the caller that took the hold; only they may confirm or release it
+    @Column(nullable = false, length = 100)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public ReservationHold() {
+    }
+
+    public ReservationHold(String reservationId, Long itemId, int quantity, String owner, Instant expiresAt) {
+        this.reservationId = reservationId;
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
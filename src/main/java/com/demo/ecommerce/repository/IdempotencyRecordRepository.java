@@ -0,0 +1,46 @@
+package com.demo.ecommerce.repository;
+
+import com.demo.ecommerce.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reserves a key. A plain INSERT (save() would merge into an existing row): a key taken
+     * concurrently, here or on another instance, fails with a duplicate key error.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, status_code, response_body, created_at, pending) "
+            + "VALUES (:key, :requestHash, 0, '', :createdAt, TRUE)", nativeQuery = true)
+    int insertPending(String key, String requestHash, LocalDateTime createdAt);
+
+    /**
+     * Stores the outcome of a reserved key; joins the caller's transaction if there is one.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.responseBody = :responseBody, r.pending = false "
+            + "WHERE r.idempotencyKey = :key AND r.pending = true")
+    int complete(String key, int statusCode, String responseBody);
+
+    /**
+     * Frees a reserved key whose request certainly changed nothing.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.pending = true")
+    int deletePending(String key);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,9 @@
+package com.demo.ecommerce.repository;
+
+import com.demo.ecommerce.model.ReservationHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReservationHoldRepository extends JpaRepository<ReservationHold, String> {
+}
@@ -0,0 +1,464 @@
+package com.demo.ecommerce.search;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dao.ItemDao;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * In-memory search over item names: whole-word, prefix and typo (one edit) matching ranked by
+ * relevance, plus the exact-name lookup behind the duplicate check in addNewItem.
+ *
+ * Names are letters and spaces only, so a name is its lowercased, space-separated words. The index is
+ * a sorted dictionary of word -> postings: a whole word is one lookup, a prefix is a range of the
+ * dictionary, and a typo is one of the few hundred one-edit variants of the query word that exist in
+ * it. Postings are sorted long[] arrays replaced on write (names change rarely, readers never lock),
+ * each entry the item's name length and id packed into one long, so a posting lists the shortest
+ * names first.
+ *
+ * A query matches the items that have every query word, each as a whole word, a prefix of one or
+ * within one edit of one (words of four letters or more). Items score by how well each word matches;
+ * equal scores go to the shorter name. The query word with the fewest matches drives the lookup, and
+ * its postings are read best match first: once the kept hits cannot be beaten by what is left of a
+ * posting, the rest of it is skipped, so a common word costs about as much as a rare one. At most
+ * max-candidates items are examined per query.
+ *
+ * Loaded from a database cursor on a background thread at startup; items added afterwards arrive
+ * through the stock feed once their insert commits, a bulk import chunk as one merge. Until the load finishes {@link #isReady()} is false
+ * and callers fall back to the database.
+ */
+@Component
+public class ItemSearchIndex {
+
+    // Score per query word, plus a bonus when the name is exactly the query
+    private static final int EXACT = 30;
+    private static final int PREFIX = 20;
+    private static final int FUZZY = 10;
+    private static final int FULL_NAME_BONUS = 5;
+    private static final int FUZZY_MIN_LENGTH = 4;
+
+    // Posting entry: name length in the high bits, item id in the low 40
+    private static final int ID_BITS = 40;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private static final Comparator<Hit> BEST_FIRST = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparingInt(Hit::length)
+            .thenComparingLong(Hit::itemId);
+
+    private record Hit(long itemId, int score, int length) {}
+
+    private final ItemDao itemDao;
+    private final StockFeed stockFeed;
+    private final int maxCandidates;
+
+    private final ConcurrentSkipListMap<String, long[]> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>(); // itemId -> normalized name
+    private final Map<String, Long> byName = new ConcurrentHashMap<>(); // lowercased exact name -> itemId
+    private volatile boolean ready;
+
+    private final Consumer<List<StockChange>> listener = this::onChange;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "item-search-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ItemSearchIndex(ItemDao itemDao, StockFeed stockFeed, InventoryConfig inventoryConfig) {
+        this.itemDao = itemDao;
+        this.stockFeed = stockFeed;
+        this.maxCandidates = inventoryConfig.getSearch().getMaxCandidates();
+    }
+
+    @PostConstruct
+    public void start() {
+        stockFeed.subscribe(listener); // before the load, so nothing added meanwhile is missed
+        loader.execute(this::load);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stockFeed.unsubscribe(listener);
+        loader.shutdownNow();
+    }
+
+    private void onChange(List<StockChange> changes) {
+        Map<Long, String> added = new LinkedHashMap<>();
+        for (StockChange change : changes) {
+            if (change.added()) {
+                added.put(change.itemId(), change.itemName());
+            }
+        }
+        if (!added.isEmpty()) {
+            merge(added);
+        }
+    }
+
+    /**
+     * Reads every item name from the database and indexes it. Items put while the cursor runs are newer
+     * than what the cursor saw and are kept.
+     */
+    void load() {
+        long start = System.nanoTime();
+        try {
+            Map<Long, String> loaded = new LinkedHashMap<>();
+            itemDao.forEachItem(item -> loaded.put(item.getItemId(), item.getItemName()));
+            merge(loaded);
+            ready = true;
+            System.out.println("ITEM SEARCH: indexed " + loaded.size() + " items, " + postings.size() + " words in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("ITEM SEARCH: index load failed, name searches use the database - " + e.getMessage());
+        }
+    }
+
+    // Builds the postings of many items at once (the whole catalog, a bulk import chunk) instead of
+    // copying a word's array once per item; items already indexed are skipped
+    private synchronized void merge(Map<Long, String> loaded) {
+        Map<String, PostingBuilder> built = new HashMap<>();
+        for (Map.Entry<Long, String> entry : loaded.entrySet()) {
+            long itemId = entry.getKey();
+            String name = normalize(entry.getValue());
+            if (names.putIfAbsent(itemId, name) != null) {
+                continue;
+            }
+            byName.putIfAbsent(nameKey(entry.getValue()), itemId);
+            for (String word : words(name)) {
+                built.computeIfAbsent(word, w -> new PostingBuilder()).add(entry(itemId, name));
+            }
+        }
+        built.forEach((word, entries) -> postings.merge(word, entries.toSortedArray(), ItemSearchIndex::union));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    private static long entry(long itemId, String name) {
+        return (long) name.length() << ID_BITS | itemId;
+    }
+
+    // ------------------- READS -------------------
+
+    /**
+     * The item with exactly this name apart from letter case, or null when there is none or the index
+     * is still loading. Spaces and punctuation count (MySQL's utf8mb4_0900_ai_ci is a NO PAD collation),
+     * so every name found here also matches item_name in the database, and a miss is left to it.
+     */
+    public Long findByName(String itemName) {
+        return ready && itemName != null ? byName.get(nameKey(itemName)) : null;
+    }
+
+    /**
+     * Ids of the best matches for a query, best first.
+     */
+    public List<Long> search(String query, int limit) {
+        String normalized = normalize(query);
+        List<String> terms = words(normalized);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return new Query(normalized, terms, limit).run();
+    }
+
+    private final class Query {
+
+        final String normalized;
+        final List<String> terms;
+        final String driver;
+        final int limit;
+        final PriorityQueue<Hit> top; // worst kept hit at the head
+        int examined;
+
+        Query(String normalized, List<String> terms, int limit) {
+            this.normalized = normalized;
+            this.terms = terms;
+            this.driver = terms.size() == 1 ? terms.get(0) : rarest();
+            this.limit = limit;
+            this.top = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+        }
+
+        List<Long> run() {
+            scan(driver, postings.get(driver), EXACT);
+            for (Map.Entry<String, long[]> prefixed
+                    : postings.subMap(driver, false, driver + Character.MAX_VALUE, false).entrySet()) {
+                if (done(PREFIX)) {
+                    break;
+                }
+                scan(prefixed.getKey(), prefixed.getValue(), PREFIX);
+            }
+            if (driver.length() >= FUZZY_MIN_LENGTH && !done(FUZZY)) {
+                for (String variant : oneEditVariants(driver)) {
+                    if (done(FUZZY)) {
+                        break;
+                    }
+                    scan(variant, postings.get(variant), FUZZY);
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(BEST_FIRST);
+            return hits.stream().map(Hit::itemId).toList();
+        }
+
+        // Items whose best driver match is this posting's word at this weight (each item is scored once,
+        // through the first of its words that matches the driver best)
+        private void scan(String word, long[] entries, int weight) {
+            if (entries == null) {
+                return;
+            }
+            for (long entry : entries) {
+                int length = (int) (entry >>> ID_BITS);
+                long itemId = entry & ID_MASK;
+                if (!canEnter(bound(weight, length), length, itemId)) {
+                    return; // the rest of the posting has longer names, or equal ones with higher ids
+                }
+                if (examined++ >= maxCandidates) {
+                    return;
+                }
+                String name = names.get(itemId);
+                if (name == null || name.length() != length) {
+                    continue; // removed or renamed since
+                }
+                long match = bestMatch(driver, name);
+                if ((int) (match >>> 32) != weight || !isWordAt(name, (int) match, word)) {
+                    continue;
+                }
+                int score = weight;
+                for (String term : terms) {
+                    if (!term.equals(driver)) {
+                        int termWeight = (int) (bestMatch(term, name) >>> 32);
+                        if (termWeight == 0) {
+                            score = -1;
+                            break;
+                        }
+                        score += termWeight;
+                    }
+                }
+                if (score < 0) {
+                    continue;
+                }
+                if (name.equals(normalized)) {
+                    score += FULL_NAME_BONUS;
+                }
+                if (canEnter(score, length, itemId)) {
+                    top.add(new Hit(itemId, score, length));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+        }
+
+        // Highest score an item matching the driver at this weight can reach
+        private int bound(int weight, int length) {
+            int bound = weight + (terms.size() - 1) * EXACT;
+            return weight == EXACT && length == normalized.length() ? bound + FULL_NAME_BONUS : bound;
+        }
+
+        private boolean canEnter(int score, int length, long itemId) {
+            return top.size() < limit || BEST_FIRST.compare(new Hit(itemId, score, length), top.peek()) < 0;
+        }
+
+        private boolean done(int weight) {
+            return examined >= maxCandidates || (top.size() == limit && bound(weight, 0) < top.peek().score());
+        }
+
+        // The query word with the fewest whole-word and prefix matches; counting a word stops once it
+        // reaches the fewest so far
+        private String rarest() {
+            String rarest = terms.get(0);
+            long fewest = Long.MAX_VALUE;
+            for (String term : terms) {
+                long count = 0;
+                for (long[] entries : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                    count += entries.length;
+                    if (count >= Math.min(fewest, maxCandidates)) {
+                        break;
+                    }
+                }
+                if (count < fewest) {
+                    fewest = count;
+                    rarest = term;
+                }
+            }
+            return rarest;
+        }
+    }
+
+    // ------------------- TEXT -------------------
+
+    // Key of the exact-name lookup: the name as stored, lowercased
+    private static String nameKey(String itemName) {
+        return itemName.toLowerCase(Locale.ROOT);
+    }
+
+    // Lowercase letters, single spaces between words
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text == null ? 0 : text.length());
+        boolean gap = false;
+        for (int i = 0; text != null && i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c)) {
+                if (gap && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                gap = false;
+            } else {
+                gap = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    // Distinct words of a normalized name
+    private static List<String> words(String normalized) {
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return List.copyOf(new LinkedHashSet<>(Arrays.asList(normalized.split(" "))));
+    }
+
+    // Best weight of the term among the name's words (high 32 bits) and where the first word with that
+    // weight starts (low 32 bits); allocation-free, as it runs for every candidate
+    private static long bestMatch(String term, String name) {
+        int best = 0;
+        int at = -1;
+        for (int from = 0; from < name.length() && best < EXACT; ) {
+            int to = name.indexOf(' ', from);
+            if (to < 0) {
+                to = name.length();
+            }
+            int weight = weight(term, name, from, to);
+            if (weight > best) {
+                best = weight;
+                at = from;
+            }
+            from = to + 1;
+        }
+        return (long) best << 32 | (at & 0xFFFFFFFFL);
+    }
+
+    // How the term matches the name's word [from, to)
+    private static int weight(String term, String name, int from, int to) {
+        int length = to - from;
+        if (length >= term.length() && name.regionMatches(from, term, 0, term.length())) {
+            return length == term.length() ? EXACT : PREFIX;
+        }
+        return term.length() >= FUZZY_MIN_LENGTH && withinOneEdit(term, name, from, to) ? FUZZY : 0;
+    }
+
+    private static boolean isWordAt(String name, int at, String word) {
+        int end = at + word.length();
+        return at >= 0 && name.regionMatches(at, word, 0, word.length())
+                && (end == name.length() || name.charAt(end) == ' ');
+    }
+
+    // Deletions, transpositions, substitutions and insertions (a-z) of one character
+    private static Set<String> oneEditVariants(String word) {
+        Set<String> variants = new LinkedHashSet<>();
+        for (int i = 0; i < word.length(); i++) {
+            variants.add(word.substring(0, i) + word.substring(i + 1));
+            if (i + 1 < word.length()) {
+                variants.add(word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2));
+            }
+        }
+        for (int i = 0; i <= word.length(); i++) {
+            for (char c = 'a'; c <= 'z'; c++) {
+                if (i < word.length() && c != word.charAt(i)) {
+                    variants.add(word.substring(0, i) + c + word.substring(i + 1));
+                }
+                variants.add(word.substring(0, i) + c + word.substring(i));
+            }
+        }
+        variants.remove(word);
+        return variants;
+    }
+
+    // At most one insertion, deletion, substitution or swap of neighbours apart
+    static boolean withinOneEdit(String a, String b) {
+        return withinOneEdit(a, b, 0, b.length());
+    }
+
+    // Same, against b's region [from, to)
+    private static boolean withinOneEdit(String a, String b, int from, int to) {
+        int la = a.length();
+        int lb = to - from;
+        if (Math.abs(la - lb) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < la && i < lb && a.charAt(i) == b.charAt(from + i)) {
+            i++;
+        }
+        if (la > lb) {
+            return a.regionMatches(i + 1, b, from + i, lb - i);
+        }
+        if (la < lb) {
+            return b.regionMatches(from + i + 1, a, i, la - i);
+        }
+        if (i == la || a.regionMatches(i + 1, b, from + i + 1, la - i - 1)) {
+            return true;
+        }
+        return i + 1 < la && a.charAt(i) == b.charAt(from + i + 1) && a.charAt(i + 1) == b.charAt(from + i)
+                && a.regionMatches(i + 2, b, from + i + 2, la - i - 2);
+    }
+
+    // ------------------- POSTINGS -------------------
+
+    private static long[] union(long[] a, long[] b) {
+        long[] merged = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            long next = j == b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (n == 0 || merged[n - 1] != next) {
+                merged[n++] = next;
+            }
+        }
+        return n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+
+    private static final class PostingBuilder {
+
+        private long[] entries = new long[4];
+        private int size;
+
+        void add(long entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(entries, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
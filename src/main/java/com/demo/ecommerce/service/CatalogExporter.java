@@ -0,0 +1,118 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.model.Item;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Whole-catalog export for nightly feeds and search indexing, as NDJSON or CSV.
+ * {@link CatalogImporter} reads the same formats back.
+ *
+ * Rows come from a lazy database cursor ({@link ItemService#forEachItem}) and are written one at a
+ * time through a Jackson streaming generator, so memory use stays flat however large the catalog
+ * is. The writes block when the client (or its network) is slower than the database, which in turn
+ * stops the cursor from fetching further: the export runs at the pace of the reader. The cursor
+ * holds a database connection for the duration of the export.
+ *
+ * Meters: catalog.export (timer) and catalog.export.rows, both tagged by format.
+ */
+@Service
+public class CatalogExporter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported format: " + value + " (use ndjson or csv)");
+            }
+        }
+    }
+
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addNumberColumn("itemId")
+            .addColumn("itemName")
+            .addNumberColumn("quantity")
+            .addNumberColumn("price")
+            .setUseHeader(true)
+            .build();
+
+    private final ItemService itemService;
+    private final MeterRegistry meterRegistry;
+    private final ObjectWriter ndjsonWriter;
+    private final ObjectWriter csvWriter;
+
+    public CatalogExporter(ItemService itemService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.itemService = itemService;
+        this.meterRegistry = meterRegistry;
+        this.ndjsonWriter = objectMapper.writerFor(Item.class)
+                .withRootValueSeparator("\n")
+                // Flushing after every row would push each one through gzip and the socket on its own
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.csvWriter = new CsvMapper().writerFor(Item.class)
+                .with(CSV_SCHEMA)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes every item to {@code out} and closes it.
+     * @param gzip Compress the stream (the caller sets Content-Encoding).
+     * @return Number of items written.
+     * @throws IOException If the client goes away; the cursor is closed and the export stops.
+     */
+    public long export(Format format, OutputStream out, boolean gzip) throws IOException {
+        ObjectWriter writer = format == Format.CSV ? csvWriter : ndjsonWriter;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long rows;
+        try (JsonGenerator generator = writer.createGenerator(gzip ? new GZIPOutputStream(out, 8192) : out)) {
+            rows = itemService.forEachItem(item -> {
+                try {
+                    writer.writeValue(generator, item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (format == Format.NDJSON && rows > 0) {
+                generator.writeRaw('\n'); // the separator only goes between rows
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            sample.stop(meterRegistry.timer("catalog.export", "format", format.extension()));
+        }
+        meterRegistry.counter("catalog.export.rows", "format", format.extension()).increment(rows);
+        return rows;
+    }
+}
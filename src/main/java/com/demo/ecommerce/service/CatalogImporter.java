@@ -0,0 +1,240 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dto.AddItemRequest;
+import com.demo.ecommerce.dto.ItemImportResponse;
+import com.demo.ecommerce.dto.ItemImportResponse.RowError;
+import com.demo.ecommerce.model.Item;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk item import from NDJSON or CSV, the formats {@link CatalogExporter} writes.
+ *
+ * Rows are read one at a time from the request body, validated like POST /api/items, and added in
+ * chunks of chunk-size through {@link ItemService#addNewItems}: one transaction, one name lookup and
+ * one multi-row INSERT per chunk, instead of a name check, an INSERT and a key query per item. A row
+ * that is invalid or names an existing item (or one earlier in the file) is reported and skipped; the
+ * rest of the file is still imported. If a chunk fails in the database, its rows are retried one by
+ * one so only the offending rows fail.
+ *
+ * An exported file can be imported as is: its itemId column is ignored.
+ *
+ * Meters: catalog.import (timer, tagged by format) and catalog.import.rows (tagged by outcome).
+ */
+@Service
+public class CatalogImporter {
+
+    private record PendingRow(long row, Item item) {}
+
+    private final ItemService itemService;
+    private final Validator validator;
+    private final MeterRegistry meterRegistry;
+    private final InventoryConfig.BulkImport config;
+    private final ObjectReader ndjsonReader;
+    private final ObjectReader csvReader;
+
+    public CatalogImporter(ItemService itemService, Validator validator, ObjectMapper objectMapper,
+                           InventoryConfig inventoryConfig, MeterRegistry meterRegistry) {
+        this.itemService = itemService;
+        this.validator = validator;
+        this.meterRegistry = meterRegistry;
+        this.config = inventoryConfig.getBulkImport();
+        this.ndjsonReader = objectMapper.readerFor(AddItemRequest.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.csvReader = new CsvMapper().readerFor(String[].class)
+                .with(CsvParser.Feature.WRAP_AS_ARRAY)
+                .with(CsvParser.Feature.SKIP_EMPTY_LINES)
+                .with(CsvParser.Feature.TRIM_SPACES);
+    }
+
+    /**
+     * Imports every row of {@code in}. Rows already added stay added if the stream breaks off.
+     * @throws IllegalArgumentException If a CSV file has no itemName, quantity and price header.
+     */
+    public ItemImportResponse importItems(CatalogExporter.Format format, InputStream in) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Run run = new Run();
+        try {
+            if (format == CatalogExporter.Format.CSV) {
+                readCsv(in, run);
+            } else {
+                readNdjson(in, run);
+            }
+            run.flush();
+        } finally {
+            sample.stop(meterRegistry.timer("catalog.import", "format", format.extension()));
+            meterRegistry.counter("catalog.import.rows", "outcome", "imported").increment(run.imported);
+            meterRegistry.counter("catalog.import.rows", "outcome", "failed").increment(run.failed);
+        }
+        return new ItemImportResponse(run.rows, run.imported, run.failed, run.errors);
+    }
+
+    // ------------------- PARSING -------------------
+
+    // One JSON object per line; a bad line fails alone
+    private void readNdjson(InputStream in, Run run) throws IOException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            long row = ++run.rows;
+            try {
+                run.add(row, ndjsonReader.readValue(line));
+            } catch (JsonProcessingException e) {
+                run.error(row, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    // Header row first; columns are found by name, so their order and any extra ones do not matter
+    private void readCsv(InputStream in, Run run) throws IOException {
+        try (MappingIterator<String[]> records = csvReader.readValues(in)) {
+            if (!records.hasNextValue()) {
+                return;
+            }
+            List<String> header = Arrays.asList(records.nextValue());
+            int name = header.indexOf("itemName");
+            int quantity = header.indexOf("quantity");
+            int price = header.indexOf("price");
+            if (name < 0 || quantity < 0 || price < 0) {
+                throw new IllegalArgumentException("CSV header must name the itemName, quantity and price columns");
+            }
+            while (true) {
+                String[] record;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    record = records.nextValue();
+                } catch (JsonProcessingException e) {
+                    // e.g. an unclosed quote: there is no telling where the next row starts
+                    run.error(run.rows + 1, null, "Invalid CSV, import stopped here: " + e.getOriginalMessage());
+                    break;
+                }
+                long row = ++run.rows;
+                String itemName = column(record, name);
+                try {
+                    run.add(row, new AddItemRequest(itemName,
+                            wholeNumber("quantity", column(record, quantity)),
+                            wholeNumber("price", column(record, price))));
+                } catch (NumberFormatException e) {
+                    run.error(row, itemName, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String column(String[] record, int index) {
+        return index < record.length ? record[index] : null;
+    }
+
+    private static int wholeNumber(String column, String value) {
+        try {
+            return Integer.parseInt(value == null ? "" : value);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(column + " must be a whole number, got '" + (value == null ? "" : value) + "'");
+        }
+    }
+
+    // ------------------- CHUNKS -------------------
+
+    /** State of one import. */
+    private final class Run {
+
+        long rows;
+        long imported;
+        long failed;
+        final List<RowError> errors = new ArrayList<>();
+        final List<PendingRow> chunk = new ArrayList<>(config.getChunkSize());
+        // lower-cased names already in this file -> their row, for in-file duplicates
+        final Map<String, Long> seen = new HashMap<>();
+
+        void add(long row, AddItemRequest request) {
+            String violations = validator.validate(request).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            if (!violations.isEmpty()) {
+                error(row, request.itemName(), violations);
+                return;
+            }
+            Long firstRow = seen.putIfAbsent(request.itemName().toLowerCase(Locale.ROOT), row);
+            if (firstRow != null) {
+                error(row, request.itemName(), "Item name '" + request.itemName() + "' already appears in row " + firstRow);
+                return;
+            }
+            chunk.add(new PendingRow(row, new Item(request.itemName(), request.quantity(), request.price())));
+            if (chunk.size() >= config.getChunkSize()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!chunk.isEmpty()) {
+                save(List.copyOf(chunk));
+                chunk.clear();
+            }
+        }
+
+        private void save(List<PendingRow> pending) {
+            List<Item> items = pending.stream().map(PendingRow::item).toList();
+            Map<String, Long> existing;
+            try {
+                existing = itemService.addNewItems(items);
+            } catch (DataAccessException e) {
+                items.forEach(item -> item.setItemId(null)); // rolled back
+                if (pending.size() == 1) {
+                    error(pending.get(0).row(), items.get(0).getItemName(),
+                            "Could not be saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                } else {
+                    pending.forEach(row -> save(List.of(row)));
+                }
+                return;
+            }
+            for (PendingRow row : pending) {
+                Item item = row.item();
+                if (item.getItemId() != null) {
+                    imported++;
+                } else {
+                    error(row.row(), item.getItemName(), "Item with name '" + item.getItemName()
+                            + "' already exists with ID: " + existing.get(item.getItemName()));
+                }
+            }
+        }
+
+        void error(long row, String itemName, String message) {
+            failed++;
+            if (errors.size() < config.getMaxErrors()) {
+                errors.add(new RowError(row, itemName, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.model.Item;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The whole catalog as ready-made response bytes, for GET /api/items?unpaged=true and items.jsp.
+ *
+ * A snapshot is the item list plus its JSON (and gzipped JSON), built once and never modified: list
+ * requests write the bytes as they are, without a query or any serialization. Rebuilds are lazy: a
+ * read that finds the snapshot behind the catalog version ({@link StockFeed#version}, bumped once
+ * per committed change) asks the background thread for a rebuild and carries on with what it has.
+ * Only one rebuild is queued or running at a time, and it starts no sooner than refresh-interval
+ * after the previous one, so a burst of writes costs at most one rebuild per interval, and a catalog
+ * nobody reads costs none. The new snapshot is swapped in with one volatile write.
+ *
+ * A snapshot can be up to one interval (plus its build time) behind the latest write. Its ETag is the
+ * catalog ETag of the version it was built from, so a client never caches stale bytes under a newer
+ * tag. Like the item cache, it only sees writes made through this instance.
+ *
+ * Meters: catalog.snapshot.build (timer), catalog.snapshot.bytes (gauge, uncompressed size).
+ */
+@Service
+public class CatalogSnapshot {
+
+    /**
+     * @param items The catalog in itemId order; shared by every reader, so never modified.
+     * @param gzippedJson Null when app.inventory.snapshot.gzip is off.
+     */
+    public record Snapshot(long version, List<Item> items, byte[] json, byte[] gzippedJson,
+                           String etag, String gzipETag) {}
+
+    private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+    private final StockFeed stockFeed;
+    private final ItemVersions itemVersions;
+    private final InventoryConfig.Snapshot config;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Snapshot current;
+    private volatile long failedVersion = -1; // a failed build is retried once the catalog changes
+    // Set while a rebuild is queued or running (single flight); cleared by the refresher
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private volatile long lastBuildStartedAt; // System.nanoTime(); refresher thread writes
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogSnapshot(ItemService itemService, ObjectMapper objectMapper, StockFeed stockFeed,
+                           ItemVersions itemVersions, InventoryConfig inventoryConfig, MeterRegistry meterRegistry) {
+        this.itemService = itemService;
+        this.objectMapper = objectMapper;
+        this.stockFeed = stockFeed;
+        this.itemVersions = itemVersions;
+        this.config = inventoryConfig.getSnapshot();
+        this.meterRegistry = meterRegistry;
+        this.lastBuildStartedAt = System.nanoTime() - config.getRefreshInterval().toNanos();
+        Gauge.builder("catalog.snapshot.bytes", this, s -> s.current == null ? 0 : s.current.json().length)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * The latest snapshot, or null before the first build (or when snapshots are disabled).
+     * A stale one is still returned; it requests a rebuild.
+     */
+    public Snapshot current() {
+        Snapshot snapshot = current;
+        requestRebuildIfStale(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * The latest snapshot if no change has committed since it was built, otherwise null (and a
+     * rebuild is requested).
+     */
+    public Snapshot currentIfFresh() {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.version() == stockFeed.version()) {
+            return snapshot;
+        }
+        requestRebuildIfStale(snapshot);
+        return null;
+    }
+
+    private void requestRebuildIfStale(Snapshot snapshot) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long version = stockFeed.version();
+        if ((snapshot != null && snapshot.version() == version) || version == failedVersion) {
+            return;
+        }
+        if (!rebuildRequested.compareAndSet(false, true)) {
+            return; // already queued or running
+        }
+        long delayNanos = lastBuildStartedAt + config.getRefreshInterval().toNanos() - System.nanoTime();
+        try {
+            refresher.schedule(() -> {
+                try {
+                    refresh();
+                } finally {
+                    rebuildRequested.set(false);
+                }
+            }, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            rebuildRequested.set(false); // shutting down
+        }
+    }
+
+    void refresh() {
+        // Read before the items: a change committed during the build moves the version past the
+        // snapshot's, so the next check rebuilds again
+        long version = stockFeed.version();
+        Snapshot snapshot = current;
+        if ((snapshot != null && snapshot.version() == version) || version == failedVersion) {
+            return;
+        }
+        lastBuildStartedAt = System.nanoTime();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            current = build(version);
+        } catch (IOException | RuntimeException e) {
+            failedVersion = version;
+            System.err.println("CATALOG SNAPSHOT: rebuild failed, list requests read the database - " + e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("catalog.snapshot.build"));
+        }
+    }
+
+    private Snapshot build(long version) throws IOException {
+        List<Item> items = List.copyOf(itemService.findAll());
+        byte[] json = objectMapper.writeValueAsBytes(items);
+        String etag = itemVersions.catalogETag(version);
+        if (!config.isGzip()) {
+            return new Snapshot(version, items, json, null, etag, null);
+        }
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(json);
+        }
+        // A different representation needs its own strong tag
+        String gzipETag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+        return new Snapshot(version, items, json, gzipped.toByteArray(), etag, gzipETag);
+    }
+}
@@ -0,0 +1,328 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.IdempotencyConfig;
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.exception.IdempotencyKeyInProgressException;
+import com.demo.ecommerce.exception.IdempotencyKeyReusedException;
+import com.demo.ecommerce.exception.InsufficientStockException;
+import com.demo.ecommerce.exception.ItemNotFoundException;
+import com.demo.ecommerce.model.IdempotencyRecord;
+import com.demo.ecommerce.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Executes a request at most once per Idempotency-Key.
+ *
+ * The first request for a key registers an in-flight future; concurrent duplicates wait on it
+ * instead of running the action again. Successful (2xx) responses are remembered in a size- and
+ * TTL-bounded in-memory cache and in the idempotency_keys table, so retries are answered from a
+ * single map lookup (or one primary-key read after eviction or a restart).
+ *
+ * A key is bound to its request: the SHA-256 of the request body is kept with the outcome, and the
+ * same key with a different body is refused (422) instead of replaying an unrelated response.
+ *
+ * Before the action runs, the key is reserved with a pending idempotency_keys row (its own short
+ * transaction), so another instance cannot run the same key meanwhile. Then:
+ * - In direct mode the stock is taken in the caller's transaction, so the action and the row's
+ *   outcome commit together; a failed action rolls back with its key.
+ * - The engine, ledger and group-commit modes make the decision durable outside any transaction
+ *   of ours (journal, ledger writer, drainer), so no transaction (and no pooled connection) is held
+ *   while they decide; the outcome is stored right after.
+ * A request that certainly changed nothing (rejected, rolled back, or a non-2xx response) frees
+ * its key for a retry. When the outcome is not known (the commit or the outcome write failed, or
+ * the order's own outcome is unknown), the key stays pending and every retry gets 409 until it
+ * expires: running it again could take the stock twice.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private record Outcome(int status, Object body, String json) {}
+
+    private record Attempt(String requestHash, CompletableFuture<Outcome> outcome) {}
+
+    // The action may or may not have taken effect
+    private static final class OutcomeUnknown extends RuntimeException {
+        OutcomeUnknown(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyConfig config;
+    private final InventoryConfig inventoryConfig;
+    private final PlatformTransactionManager transactionManager;
+    private final Cache<String, Attempt> attempts;
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "idempotency-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              IdempotencyConfig config,
+                              InventoryConfig inventoryConfig,
+                              PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.inventoryConfig = inventoryConfig;
+        this.transactionManager = transactionManager;
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(config.getTtl())
+                .build();
+        purger.scheduleWithFixedDelay(this::purgeExpired, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        purger.shutdownNow();
+    }
+
+    /**
+     * Runs {@code action} unless a response for {@code key} (within {@code scope}) already exists.
+     * @param scope Separates endpoints and callers, so keys only need to be unique per client.
+     * @param request The request body; a retry must send the same one.
+     * @param bodyType Type used to read a stored response body back.
+     * @throws IdempotencyKeyReusedException If the key was used for a different request.
+     * @throws IdempotencyKeyInProgressException If a request with the key is still running
+     *         elsewhere, or its outcome is unknown.
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Class<T> bodyType,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = scope + ":" + key;
+        String requestHash = hash(request);
+
+        Attempt mine = new Attempt(requestHash, new CompletableFuture<>());
+        Attempt existing = attempts.asMap().putIfAbsent(cacheKey, mine);
+        if (existing != null) {
+            checkSameRequest(existing.requestHash(), requestHash);
+            return replay(await(existing.outcome()), bodyType);
+        }
+
+        try {
+            // Not in memory: it may have completed (or be running) before an eviction, a restart or elsewhere
+            IdempotencyRecord stored = repository.findById(cacheKey).orElse(null);
+            if (stored != null && stored.getCreatedAt().isBefore(LocalDateTime.now().minus(config.getTtl()))) {
+                repository.deleteById(cacheKey); // expired, not purged yet
+                stored = null;
+            }
+            if (stored != null) {
+                checkSameRequest(stored.getRequestHash(), requestHash);
+                if (stored.isPending()) {
+                    throw inProgress();
+                }
+                Outcome outcome = new Outcome(stored.getStatusCode(), null, stored.getResponseBody());
+                mine.outcome().complete(outcome);
+                return replay(outcome, bodyType);
+            }
+            reserve(cacheKey, requestHash);
+        } catch (RuntimeException e) {
+            // Nothing ran: waiters see the same failure, and the key is free in memory
+            attempts.asMap().remove(cacheKey, mine);
+            mine.outcome().completeExceptionally(e);
+            throw e;
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = inventoryConfig.getMode() == InventoryConfig.Mode.DIRECT
+                    ? runInTransaction(cacheKey, action)
+                    : runThenRecord(cacheKey, action);
+        } catch (OutcomeUnknown e) {
+            // Keep the key (in memory and in the table): a retry must not run the order again
+            System.err.println("IDEMPOTENCY: outcome of " + cacheKey + " unknown, key kept - " + e.getCause());
+            IdempotencyKeyInProgressException unknown = inProgress();
+            mine.outcome().completeExceptionally(unknown);
+            throw unknown;
+        } catch (RuntimeException e) {
+            release(cacheKey, mine);
+            mine.outcome().completeExceptionally(e);
+            throw e;
+        }
+
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            release(cacheKey, mine);
+        }
+        mine.outcome().complete(new Outcome(response.getStatusCode().value(), response.getBody(), null));
+        return response;
+    }
+
+    private void reserve(String cacheKey, String requestHash) {
+        try {
+            repository.insertPending(cacheKey, requestHash, LocalDateTime.now());
+        } catch (DataIntegrityViolationException e) {
+            throw inProgress(); // reserved by a concurrent request on another instance
+        }
+    }
+
+    // The request changed nothing: free its key for a retry
+    private void release(String cacheKey, Attempt mine) {
+        attempts.asMap().remove(cacheKey, mine);
+        try {
+            repository.deletePending(cacheKey);
+        } catch (RuntimeException e) {
+            System.err.println("IDEMPOTENCY: could not free " + cacheKey + ", retries get 409 until it expires - "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Direct mode: the action takes the stock in this transaction, and a 2xx outcome is stored in it
+     * too, so both commit or neither does. A failed action rolls back, except a stock rejection: it
+     * changed no stock, and committing keeps what it did write (its notification outbox row).
+     */
+    private <T> ResponseEntity<T> runInTransaction(String cacheKey, Supplier<ResponseEntity<T>> action) {
+        TransactionStatus transaction = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+            if (response.getStatusCode().is2xxSuccessful()) {
+                record(cacheKey, response);
+            }
+        } catch (RuntimeException | Error e) {
+            try {
+                if (e instanceof InsufficientStockException && !transaction.isRollbackOnly()) {
+                    transactionManager.commit(transaction);
+                } else {
+                    transactionManager.rollback(transaction);
+                }
+            } catch (RuntimeException endFailure) {
+                e.addSuppressed(endFailure);
+            }
+            throw e;
+        }
+        if (transaction.isRollbackOnly()) {
+            transactionManager.rollback(transaction);
+            throw new IllegalStateException("Request was rolled back");
+        }
+        try {
+            transactionManager.commit(transaction);
+        } catch (RuntimeException e) {
+            throw new OutcomeUnknown(e); // the commit may have reached the database
+        }
+        return response;
+    }
+
+    /**
+     * Other modes: the order is durable once the action returns, so the outcome is stored after it,
+     * outside any transaction the action could have held. A rejection changed nothing; any other
+     * failure, or failing to store the outcome, leaves it unknown.
+     */
+    private <T> ResponseEntity<T> runThenRecord(String cacheKey, Supplier<ResponseEntity<T>> action) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (InsufficientStockException | ItemNotFoundException | IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new OutcomeUnknown(e);
+        }
+        if (response.getStatusCode().is2xxSuccessful()) {
+            try {
+                record(cacheKey, response);
+            } catch (RuntimeException e) {
+                throw new OutcomeUnknown(e);
+            }
+        }
+        return response;
+    }
+
+    private void record(String cacheKey, ResponseEntity<?> response) {
+        if (repository.complete(cacheKey, response.getStatusCode().value(), toJson(response.getBody())) != 1) {
+            throw new IllegalStateException("Reservation of " + HEADER + " " + cacheKey + " was lost");
+        }
+    }
+
+    private static IdempotencyKeyInProgressException inProgress() {
+        return new IdempotencyKeyInProgressException("A request with this " + HEADER + " is still in progress or its "
+                + "outcome is unknown. Check your orders before placing it again under a new key");
+    }
+
+    private static void checkSameRequest(String recorded, String requestHash) {
+        if (recorded != null && !recorded.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(HEADER + " was already used for a different request");
+        }
+    }
+
+    private Outcome await(CompletableFuture<Outcome> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(Outcome outcome, Class<T> bodyType) {
+        T body;
+        if (bodyType.isInstance(outcome.body())) {
+            body = (T) outcome.body();
+        } else {
+            try {
+                body = objectMapper.readValue(outcome.json(), bodyType);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Stored response for this " + HEADER + " is unreadable", e);
+            }
+        }
+        return ResponseEntity.status(outcome.status())
+                .header(REPLAYED_HEADER, "true")
+                .body(body);
+    }
+
+    // Requests are DTO records: Jackson writes their fields in declaration order, so equal bodies hash equally
+    private String hash(Object request) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request cannot be hashed for " + HEADER, e);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored for " + HEADER, e);
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            repository.deleteCreatedBefore(LocalDateTime.now().minus(config.getTtl()));
+        } catch (Exception e) {
+            System.err.println("IDEMPOTENCY: purge of expired keys failed - " + e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package com.demo.ecommerce.service;
 
 
+import com.demo.ecommerce.dto.BatchOrderRequest;
+import com.demo.ecommerce.dto.BatchOrderResponse;
+import com.demo.ecommerce.dto.ItemFilter;
+import com.demo.ecommerce.dto.ItemPage;
 import com.demo.ecommerce.dto.PlaceOrderRequest;
+import com.demo.ecommerce.dto.ReservationResponse;
 import com.demo.ecommerce.exception.InsufficientStockException;
 import com.demo.ecommerce.exception.ItemAlreadyExistsException;
 import com.demo.ecommerce.exception.ItemNotFoundException;
+import com.demo.ecommerce.exception.ReservationNotFoundException;
 import com.demo.ecommerce.model.Item;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ItemService {
 
@@ -20,6 +29,15 @@ public interface ItemService {
      */
     Item addNewItem(Item newItem);
 
+    /**
+     * Adds a chunk of new items in one transaction, with one query for the names already taken and
+     * one multi-row INSERT for the rest (bulk import).
+     * @param newItems Valid items without ids and with distinct names.
+     * @return Ids of existing items by name (case-insensitive) for the items that were skipped as
+     *         duplicates; every other item has its generated itemId set.
+     */
+    Map<String, Long> addNewItems(List<Item> newItems);
+
     /**
      * Places an order for a given item, reducing its stock.
      * @param orderRequest The request containing item ID and quantity.
@@ -30,12 +48,36 @@ public interface ItemService {
     Item placeOrder(PlaceOrderRequest orderRequest);
 
     /**
-     * Finds an item by its ID.
-     * @param itemId The ID of the item to find.
-     * @return The found item.
+     * Places a multi-line order in a single transaction.
+     * Lines are applied in itemId order so concurrent batches lock rows in the same order.
+     * @param batchRequest The order lines and whether they must all succeed together.
+     * @return One result per line, in request order.
+     */
+    BatchOrderResponse placeOrders(BatchOrderRequest batchRequest);
+
+    /**
+     * Takes stock for a checkout without placing the order yet.
+     * The hold expires (and the stock returns) unless confirmed or released in time.
+     * @param request The item ID and quantity to hold.
+     * @return The reservation, with its ID and expiry time.
      * @throws ItemNotFoundException if the item doesn't exist.
+     * @throws InsufficientStockException if the requested quantity is not available.
      */
-    Item getItemById(Long itemId);
+    ReservationResponse reserve(PlaceOrderRequest request);
+
+    /**
+     * Turns a live reservation into a placed order; the held stock stays taken.
+     * @param reservationId The ID returned by {@link #reserve}.
+     * @throws ReservationNotFoundException if the reservation is unknown, another caller's, expired or already settled.
+     */
+    ReservationResponse confirm(String reservationId);
+
+    /**
+     * Cancels a live reservation and returns its stock.
+     * @param reservationId The ID returned by {@link #reserve}.
+     * @throws ReservationNotFoundException if the reservation is unknown, another caller's, expired or already settled.
+     */
+    ReservationResponse release(String reservationId);
 
     /**
      * Finds an item by its ID.
@@ -43,12 +85,49 @@ public interface ItemService {
      * @return The found item.
      * @throws ItemNotFoundException if the item doesn't exist.
      */
+    Item getItemById(Long itemId);
+
+    /**
+     * Finds several items in one read.
+     * @param itemIds The IDs to look up.
+     * @return The items that exist, in no particular order.
+     */
+    List<Item> getItemsByIds(Collection<Long> itemIds);
+
+    /**
+     * Finds the items below app.inventory.low-stock-threshold.
+     * @return The low-stock items, lowest stock first.
+     */
     List<Item> getLowStockItems();
 
     /**
-     * Finds all items.
+     * Finds all items. Unbounded: prefer {@link #findPage} for anything user-facing.
      * @return A list of all items.
      */
     List<Item> findAll();
+
+    /**
+     * Finds one page of items in itemId order.
+     * @param afterId Cursor from the previous page, or null for the first page.
+     * @param limit Maximum number of items on the page.
+     * @param filter Quantity, price and name filters applied in the query.
+     * @return The page, with the cursor of the next one (null on the last page).
+     */
+    ItemPage findPage(Long afterId, int limit, ItemFilter filter);
+
+    /**
+     * Searches item names by whole words, word prefixes and one-letter typos.
+     * @param query Words to look for; every word must match.
+     * @param limit Maximum number of items returned.
+     * @return The matching items, most relevant first.
+     */
+    List<Item> searchItems(String query, int limit);
+
+    /**
+     * Streams the whole catalog in itemId order, one item at a time, for exports and stream snapshots.
+     * @param action Called once per item; the item must not be kept.
+     * @return Number of items streamed.
+     */
+    long forEachItem(Consumer<? super Item> action);
 }
 
@@ -1,78 +1,368 @@
 package com.demo.ecommerce.service;
 
+import com.demo.ecommerce.config.InventoryConfig;
 import com.demo.ecommerce.dao.ItemDao;
+import com.demo.ecommerce.dto.BatchOrderRequest;
+import com.demo.ecommerce.dto.BatchOrderResponse;
+import com.demo.ecommerce.dto.ItemFilter;
+import com.demo.ecommerce.dto.ItemPage;
+import com.demo.ecommerce.dto.OrderLineResult;
+import com.demo.ecommerce.dto.OrderLineStatus;
 import com.demo.ecommerce.dto.PlaceOrderRequest;
+import com.demo.ecommerce.dto.ReservationResponse;
+import com.demo.ecommerce.dto.ReservationStatus;
 import com.demo.ecommerce.exception.*;
+import com.demo.ecommerce.inventory.InventoryEngine;
+import com.demo.ecommerce.inventory.OrderGroupCommitter;
+import com.demo.ecommerce.inventory.OrderLedger;
+import com.demo.ecommerce.inventory.ReservationBook;
+import com.demo.ecommerce.inventory.ReservationBook.Reservation;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
 import com.demo.ecommerce.model.Item;
+import com.demo.ecommerce.search.ItemSearchIndex;
 
-import com.demo.grpc.notification.NotificationRequest;
-import com.demo.grpc.notification.NotificationServiceGrpc.NotificationServiceBlockingStub;
-import net.devh.boot.grpc.client.inject.GrpcClient;
+import jakarta.annotation.PostConstruct;
 
+import org.springframework.lang.Nullable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
-import java.util.UUID;
+import java.util.Collection;
 import java.util.List;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service("fastItemService")
 public class ItemServiceImpl implements ItemService {
 
     private final ItemDao itemDao;
-    private final NotificationServiceBlockingStub notificationStub;
+    private final NotificationDeduper notificationDeduper;
+    private final InventoryConfig inventoryConfig;
+    private final InventoryEngine inventoryEngine; // null unless app.inventory.mode=engine
+    private final OrderGroupCommitter groupCommitter; // null unless app.inventory.mode=group-commit
+    private final OrderLedger orderLedger; // null unless app.inventory.mode=ledger
+    private final ReservationBook reservationBook;
+    private final StockFeed stockFeed;
+    private final ItemSearchIndex searchIndex;
 
     public ItemServiceImpl(ItemDao itemDao,
-                          @GrpcClient("notification-service") NotificationServiceBlockingStub notificationStub) {
+                          NotificationDeduper notificationDeduper,
+                          InventoryConfig inventoryConfig,
+                          @Nullable InventoryEngine inventoryEngine,
+                          @Nullable OrderGroupCommitter groupCommitter,
+                          @Nullable OrderLedger orderLedger,
+                          ReservationBook reservationBook,
+                          StockFeed stockFeed,
+                          ItemSearchIndex searchIndex) {
         this.itemDao = itemDao;
-        this.notificationStub = notificationStub;
+        this.notificationDeduper = notificationDeduper;
+        this.inventoryConfig = inventoryConfig;
+        this.inventoryEngine = inventoryEngine;
+        this.groupCommitter = groupCommitter;
+        this.orderLedger = orderLedger;
+        this.reservationBook = reservationBook;
+        this.stockFeed = stockFeed;
+        this.searchIndex = searchIndex;
+    }
+
+    @PostConstruct
+    void registerReservationExpiry() {
+        reservationBook.onExpiry(deltas -> {
+            returnStock(deltas);
+            publishCurrent(deltas);
+        });
     }
 
     // ------------------- PLACE ORDER -------------------
+    // Not @Transactional: the decrement is its own unit of work (a guarded UPDATE, an
+    // engine call or a ledger append), so the in-memory path never holds a database connection.
     @Override
-    @Transactional
     public Item placeOrder(PlaceOrderRequest orderRequest) {
 
-        Item item = itemDao.findById(orderRequest.itemId());
+        // Stock check and decrement happen in one atomic step (minimum stock included), before
+        // anything is read: an accepted order costs the decrement and nothing else
+        Integer remaining = decrementStock(orderRequest.itemId(), orderRequest.quantity());
+        if (remaining != null) {
+            Item item = findForOrder(orderRequest.itemId());
+            item.setQuantity(remaining);
+            publishChange(item, -orderRequest.quantity());
+            return item;
+        }
+
+        // Rejected or missing: read the stock that rejected it (throws if the item does not exist)
+        Item current = getItemById(orderRequest.itemId());
+        String notificationStatus = sendInsufficientStockNotification(orderRequest);
+
+        throw new InsufficientStockException(
+                notificationStatus + ". Insufficient stock. Requested = " + orderRequest.quantity() +
+                        ", Available = " + availableForOrder(current.getQuantity())
+        );
+    }
+
+    // Name and price for an accepted order: the quantity may come from the item cache, and is
+    // replaced by the one the decrement returned.
+    private Item findForOrder(Long itemId) {
+        Item item = inventoryEngine != null
+                ? inventoryEngine.snapshot(itemId)
+                : itemDao.findCatalogEntry(itemId);
         if (item == null) {
-            throw new ItemNotFoundException("Item not found: " + orderRequest.itemId());
+            throw new ItemNotFoundException("Item not found: " + itemId);
+        }
+        return item;
+    }
+
+    private Integer decrementStock(Long itemId, int quantity) {
+        int minimumStock = inventoryConfig.getMinimumStock();
+        if (inventoryEngine != null) {
+            return inventoryEngine.tryDecrement(itemId, quantity, minimumStock);
+        }
+        if (groupCommitter != null) {
+            try {
+                // Waits commit-timeout-ms for a batch to take the order, then for that batch's commit
+                return groupCommitter.submit(itemId, quantity).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    // Never taken into a batch, so never applied
+                    throw new IllegalStateException("Order for item " + itemId + " was not decided in time, please retry");
+                }
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        if (orderLedger != null) {
+            return orderLedger.tryAppend(itemId, quantity, minimumStock);
         }
+        return itemDao.tryDecrement(itemId, quantity, minimumStock);
+    }
 
-        if (orderRequest.quantity() <= item.getQuantity()) {
-            item.setQuantity(item.getQuantity() - orderRequest.quantity());
-            return itemDao.update(item);   // Transaction auto-commits
+    /**
+     * Gives stock back in one batch (expired reservations, released holds).
+     */
+    private void returnStock(Map<Long, Integer> deltas) {
+        if (inventoryEngine != null) {
+            deltas.forEach(inventoryEngine::release);
+        } else if (orderLedger != null) {
+            deltas.forEach(orderLedger::release);
+        } else {
+            itemDao.applyStockDeltas(deltas);
         }
+    }
 
-        boolean grpcSuccess = sendInsufficientStockNotification(orderRequest, item);
-        String grpcStatus = grpcSuccess ? "GRPC SENT" : "GRPC FAILED";
+    // ------------------- STOCK FEED -------------------
 
-        throw new InsufficientStockException(
-                grpcStatus + ". Insufficient stock. Requested = " + orderRequest.quantity() +
-                        ", Available = " + item.getQuantity()
-        );
+    private void publishChange(Item item, int delta) {
+        stockFeed.publish(new StockChange(item.getItemId(), item.getItemName(), item.getQuantity(), delta, false));
+    }
+
+    /**
+     * Publishes the current stock of items whose change did not produce a new quantity
+     * (returned stock). Only reads the items when someone is listening.
+     */
+    private void publishCurrent(Map<Long, Integer> deltas) {
+        if (!stockFeed.hasListeners()) {
+            stockFeed.markChanged();
+            return;
+        }
+        for (Item item : getItemsByIds(deltas.keySet())) {
+            publishChange(item, deltas.get(item.getItemId()));
+        }
+    }
+
+    // Engine and ledger decide each line themselves and undo by giving stock back;
+    // the other modes batch guarded UPDATEs in the surrounding transaction.
+    private boolean decidesOutsideTransaction() {
+        return inventoryEngine != null || orderLedger != null;
     }
 
-    private boolean sendInsufficientStockNotification(PlaceOrderRequest req, Item item) {
-        String username = getAuthenticatedUsername();
-        String failedOrderId = UUID.randomUUID().toString();
+    /**
+     * Brings a database-read item up to the stock the order path currently sees.
+     */
+    private Item overlay(Item item) {
+        if (inventoryEngine != null) {
+            return inventoryEngine.overlay(item);
+        }
+        if (orderLedger != null) {
+            return orderLedger.overlay(item);
+        }
+        return item;
+    }
 
-        NotificationRequest grpcReq = NotificationRequest.newBuilder()
-                .setItemId(String.valueOf(req.itemId()))
-                .setOrderId(failedOrderId)
-                .setRequestedQty(req.quantity())
-                .setUserId(username)
-                .build();
+    // ------------------- BATCH ORDER -------------------
+    @Override
+    @Transactional
+    public BatchOrderResponse placeOrders(BatchOrderRequest batchRequest) {
+        List<PlaceOrderRequest> lines = batchRequest.lines();
+
+        // Apply lines sorted by itemId; keep the original index to answer in request order
+        int[] order = IntStream.range(0, lines.size())
+                .boxed()
+                .sorted(Comparator.comparing(i -> lines.get(i).itemId()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        List<PlaceOrderRequest> sorted = IntStream.of(order).mapToObj(lines::get).toList();
+
+        int[] counts = decidesOutsideTransaction()
+                ? sorted.stream().mapToInt(line -> decrementStock(line.itemId(), line.quantity()) != null ? 1 : 0).toArray()
+                : itemDao.tryDecrementBatch(sorted, inventoryConfig.getMinimumStock());
+
+        boolean anyFailed = IntStream.of(counts).anyMatch(count -> count == 0);
+        boolean rollBack = anyFailed && batchRequest.allOrNothing();
+        if (rollBack) {
+            undoBatch(sorted, counts);
+        }
+
+        // One read for the post-batch stock of every touched item (same transaction)
+        List<Long> itemIds = sorted.stream().map(PlaceOrderRequest::itemId).distinct().toList();
+        Map<Long, Item> items = getItemsByIds(itemIds).stream()
+                .collect(Collectors.toMap(Item::getItemId, Function.identity()));
+
+        // Stock right after each line: the item's final quantity plus what its later lines took, so
+        // several lines for one item each report their own step instead of the final value
+        int[] stockAfter = new int[sorted.size()];
+        Map<Long, Integer> takenLater = new HashMap<>();
+        for (int i = sorted.size() - 1; i >= 0; i--) {
+            PlaceOrderRequest line = sorted.get(i);
+            Item item = items.get(line.itemId());
+            if (item != null) {
+                int later = takenLater.getOrDefault(line.itemId(), 0);
+                stockAfter[i] = item.getQuantity() + later;
+                if (counts[i] > 0 && !rollBack) {
+                    takenLater.put(line.itemId(), later + line.quantity());
+                }
+            }
+        }
+
+        OrderLineResult[] results = new OrderLineResult[lines.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            PlaceOrderRequest line = sorted.get(i);
+            Item item = items.get(line.itemId());
+            results[order[i]] = toLineResult(line, counts[i] > 0, rollBack, item, stockAfter[i]);
+            if (counts[i] > 0 && !rollBack && item != null) {
+                // delivered after commit
+                stockFeed.publish(new StockChange(item.getItemId(), item.getItemName(), stockAfter[i], -line.quantity(), false));
+            }
+        }
+        return new BatchOrderResponse(!rollBack, List.of(results));
+    }
 
+    // ------------------- RESERVATIONS -------------------
+    @Override
+    public ReservationResponse reserve(PlaceOrderRequest request) {
+        Integer remaining = decrementStock(request.itemId(), request.quantity());
+        if (remaining == null) {
+            throw new InsufficientStockException(
+                    "Insufficient stock to reserve. Requested = " + request.quantity() +
+                            ", Available = " + availableForOrder(getItemById(request.itemId()).getQuantity()));
+        }
+        // The stock is already taken (committed on its own): without a hold nothing would ever give it back
+        Item item;
+        Reservation reservation;
         try {
-            notificationStub.notifyInsufficientStock(grpcReq);
-            System.out.println("GRPC SUCCESS: Insufficient stock notification sent for item " + item.getItemName());
-            return true;
-        } catch (Exception e) {
-            System.err.println("GRPC FAILED: Unable to send notification - " + e.getMessage());
-            return false;
+            item = findForOrder(request.itemId());
+            reservation = reservationBook.hold(request.itemId(), request.quantity(), getAuthenticatedUsername());
+        } catch (RuntimeException e) {
+            try {
+                returnStock(Map.of(request.itemId(), request.quantity()));
+            } catch (RuntimeException returnFailure) {
+                e.addSuppressed(returnFailure);
+            }
+            throw e;
+        }
+        item.setQuantity(remaining);
+        publishChange(item, -request.quantity());
+        return toResponse(reservation, ReservationStatus.HELD);
+    }
+
+    @Override
+    public ReservationResponse confirm(String reservationId) {
+        return toResponse(takeReservation(reservationId), ReservationStatus.CONFIRMED);
+    }
+
+    @Override
+    public ReservationResponse release(String reservationId) {
+        Reservation reservation = takeReservation(reservationId);
+        Map<Long, Integer> returned = Map.of(reservation.itemId(), reservation.quantity());
+        returnStock(returned);
+        publishCurrent(returned);
+        return toResponse(reservation, ReservationStatus.RELEASED);
+    }
+
+    // Someone else's hold is reported as not found: the ID alone does not reveal that it exists
+    private Reservation takeReservation(String reservationId) {
+        Reservation reservation = reservationBook.take(reservationId, getAuthenticatedUsername());
+        if (reservation == null) {
+            throw new ReservationNotFoundException("Reservation not found or expired: " + reservationId);
+        }
+        return reservation;
+    }
+
+    private ReservationResponse toResponse(Reservation reservation, ReservationStatus status) {
+        return new ReservationResponse(reservation.id(), reservation.itemId(), reservation.quantity(),
+                status, reservation.expiresAt());
+    }
+
+    private void undoBatch(List<PlaceOrderRequest> lines, int[] counts) {
+        if (!decidesOutsideTransaction()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return;
         }
+        for (int i = 0; i < lines.size(); i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (inventoryEngine != null) {
+                inventoryEngine.release(lines.get(i).itemId(), lines.get(i).quantity());
+            } else {
+                orderLedger.release(lines.get(i).itemId(), lines.get(i).quantity());
+            }
+        }
+    }
+
+    private OrderLineResult toLineResult(PlaceOrderRequest line, boolean applied, boolean rolledBack, Item item,
+                                         int stockAfter) {
+        if (item == null) {
+            return new OrderLineResult(line.itemId(), line.quantity(), OrderLineStatus.ITEM_NOT_FOUND, null,
+                    "Item not found: " + line.itemId());
+        }
+        if (!applied) {
+            String notificationStatus = sendInsufficientStockNotification(line);
+            return new OrderLineResult(line.itemId(), line.quantity(), OrderLineStatus.INSUFFICIENT_STOCK, null,
+                    notificationStatus + ". Insufficient stock. Requested = " + line.quantity() +
+                            ", Available = " + availableForOrder(stockAfter));
+        }
+        if (rolledBack) {
+            return new OrderLineResult(line.itemId(), line.quantity(), OrderLineStatus.ROLLED_BACK, null,
+                    "Not placed: another line in this order failed");
+        }
+        return new OrderLineResult(line.itemId(), line.quantity(), OrderLineStatus.PLACED, stockAfter,
+                "Order placed successfully! New stock for " + item.getItemName() + " is " + stockAfter);
+    }
+
+    // Units that can still be sold without dropping below the configured minimum stock
+    private int availableForOrder(int quantity) {
+        return Math.max(0, quantity - inventoryConfig.getMinimumStock());
+    }
+
+    // Queued (or folded into the item's pending summary): the order response never waits for the RPC
+    private String sendInsufficientStockNotification(PlaceOrderRequest req) {
+        return switch (notificationDeduper.record(req.itemId(), req.quantity(), getAuthenticatedUsername())) {
+            case ENQUEUED -> "NOTIFICATION ENQUEUED";
+            case COALESCED -> "NOTIFICATION COALESCED";
+            case DROPPED -> "NOTIFICATION DROPPED";
+        };
     }
 
     private String getAuthenticatedUsername() {
@@ -94,15 +384,53 @@ public class ItemServiceImpl implements ItemService {
         throw new IllegalArgumentException("New items must NOT provide itemId. It is auto-generated.");
     }
 
-    // Check if item with same name already exists
-    Item existingItem = itemDao.findByName(newItem.getItemName());
-    if (existingItem != null) {
-        throw new ItemAlreadyExistsException("Item with name '" + newItem.getItemName() + "' already exists with ID: " + existingItem.getItemId());
+    // Check if item with same name already exists: the search index answers known names without a
+    // query; the database stays the authority for names it has not seen (other instances, index loading)
+    Long existingId = searchIndex.findByName(newItem.getItemName());
+    if (existingId == null) {
+        Item existingItem = itemDao.findByName(newItem.getItemName());
+        existingId = existingItem == null ? null : existingItem.getItemId();
+    }
+    if (existingId != null) {
+        throw new ItemAlreadyExistsException("Item with name '" + newItem.getItemName() + "' already exists with ID: " + existingId);
     }
 
-    return itemDao.save(newItem);
+    Item saved = itemDao.save(newItem);
+    added(saved);
+    return saved;
 }
 
+    @Override
+    @Transactional
+    public Map<String, Long> addNewItems(List<Item> newItems) {
+        Map<String, Long> existing = itemDao.findIdsByNames(newItems.stream().map(Item::getItemName).toList());
+        List<Item> fresh = existing.isEmpty()
+                ? newItems
+                : newItems.stream().filter(item -> !existing.containsKey(item.getItemName())).toList();
+
+        itemDao.saveAll(fresh);
+        added(fresh);
+        return existing;
+    }
+
+    private void added(Item saved) {
+        added(List.of(saved));
+    }
+
+    // New items' stock starts in the engine or ledger, and listeners (search index, live stock) hear of
+    // them: a whole chunk as one ledger batch and one feed change
+    private void added(List<Item> saved) {
+        if (inventoryEngine != null) {
+            saved.forEach(inventoryEngine::register);
+        }
+        if (orderLedger != null) {
+            orderLedger.open(saved);
+        }
+        stockFeed.publishAll(saved.stream()
+                .map(item -> new StockChange(item.getItemId(), item.getItemName(), item.getQuantity(), item.getQuantity(), true))
+                .toList());
+    }
+
 
     // ------------------- GETTERS -------------------
     @Override
@@ -112,50 +440,97 @@ public class ItemServiceImpl implements ItemService {
         if (item == null) {
             throw new ItemNotFoundException("Item not found: " + itemId);
         }
-        return item;
+        return overlay(item);
+    }
+
+    @Override
+    public List<Item> getItemsByIds(Collection<Long> itemIds) {
+        if (inventoryEngine != null) {
+            return itemIds.stream().map(inventoryEngine::snapshot).filter(Objects::nonNull).toList();
+        }
+        return itemDao.findByIds(itemIds).stream().map(this::overlay).toList();
     }
 
     @Override
     public List<Item> getLowStockItems() {
-        return itemDao.findAll().stream()
-                .filter(item -> item.getQuantity() < 5)
-                .sorted(Comparator.comparingInt(Item::getQuantity))
+        if (inventoryEngine != null) {
+            return inventoryEngine.lowStockItems(); // the database quantities lag behind the engine
+        }
+        int threshold = inventoryConfig.getLowStockThreshold();
+        List<Item> items = itemDao.findLowStock(threshold);
+        if (orderLedger == null) {
+            return items;
+        }
+        // The query saw projected quantities: items with unprojected orders are read as well, and the
+        // list is filtered and sorted again on the quantities the order path sees
+        Set<Long> lagging = orderLedger.unprojectedItemIds();
+        items.forEach(item -> lagging.remove(item.getItemId()));
+        List<Item> laggingItems = lagging.isEmpty() ? List.of() : itemDao.findByIds(lagging);
+        return Stream.concat(items.stream(), laggingItems.stream())
+                .map(this::overlay)
+                .filter(item -> item.getQuantity() < threshold)
+                .sorted(Comparator.comparing(Item::getQuantity).thenComparing(Item::getItemId))
                 .toList();
     }
 
     @Override
     public List<Item> findAll() {
-        return itemDao.findAll();
+        List<Item> items = itemDao.findAll();
+        items.forEach(this::overlay);
+        return items;
     }
 
-    // ------------------- ORDER PROCESSING (for JSP page) -------------------
-    @Transactional
-    public Item processOrderWithLowStockCheck(Long itemId, int quantity) {
-        Item item = itemDao.findById(itemId);
-        if (item == null) {
-            throw new ItemNotFoundException("Item not found: " + itemId);
+    @Override
+    public ItemPage findPage(Long afterId, int limit, ItemFilter filter) {
+        // In ledger mode the table's quantities lag: items with unprojected orders are read whatever
+        // their stored quantity, and the quantity range is checked once they are overlaid
+        Set<Long> lagging = orderLedger != null && hasQuantityRange(filter)
+                ? orderLedger.unprojectedItemIds()
+                : Set.of();
+        // One extra row tells whether another page exists without a COUNT query
+        List<Item> items = itemDao.findPage(afterId, limit + 1, filter, lagging);
+        boolean more = items.size() > limit;
+        if (more) {
+            items = items.subList(0, limit);
+        }
+        Long nextCursor = more ? items.get(items.size() - 1).getItemId() : null;
+        items.forEach(this::overlay);
+        if (decidesOutsideTransaction() && hasQuantityRange(filter)) {
+            items = items.stream().filter(item -> inQuantityRange(item, filter)).toList();
         }
+        return new ItemPage(items, nextCursor);
+    }
 
-        // Check if requested quantity exceeds available stock
-        if (quantity > item.getQuantity()) {
-            // Send insufficient stock notification via gRPC and track success/failure
-            boolean grpcSuccess = sendInsufficientStockNotification(
-                new PlaceOrderRequest(itemId, quantity),
-                item
-            );
+    private static boolean hasQuantityRange(ItemFilter filter) {
+        return filter.minQuantity() != null || filter.maxQuantity() != null;
+    }
 
-            String grpcStatus = grpcSuccess ? "GRPC SENT" : "GRPC FAILED";
-            throw new InsufficientStockException(
-                grpcStatus + ". Insufficient stock. Requested = " + quantity +
-                ", Available = " + item.getQuantity()
-            );
+    private static boolean inQuantityRange(Item item, ItemFilter filter) {
+        return (filter.minQuantity() == null || item.getQuantity() >= filter.minQuantity())
+                && (filter.maxQuantity() == null || item.getQuantity() <= filter.maxQuantity());
+    }
+
+    @Override
+    public List<Item> searchItems(String query, int limit) {
+        if (!searchIndex.isReady()) {
+            // Index still loading (or failed to load): plain name-prefix match from the database
+            return findPage(null, limit, new ItemFilter(null, null, null, null, query.trim())).items();
         }
+        List<Long> ranked = searchIndex.search(query, limit);
+        Map<Long, Item> items = getItemsByIds(ranked).stream()
+                .collect(Collectors.toMap(Item::getItemId, Function.identity()));
+        return ranked.stream().map(items::get).filter(Objects::nonNull).toList();
+    }
 
-        // Update quantity - no gRPC notification for successful orders
-        item.setQuantity(item.getQuantity() - quantity);
-        Item updatedItem = itemDao.update(item);
+    @Override
+    public long forEachItem(Consumer<? super Item> action) {
+        return itemDao.forEachItem(item -> action.accept(overlay(item)));
+    }
 
-        return updatedItem;
+    // ------------------- ORDER PROCESSING (for JSP page) -------------------
+    public Item processOrderWithLowStockCheck(Long itemId, int quantity) {
+        // Same guarded decrement and gRPC notification as the REST order path
+        return placeOrder(new PlaceOrderRequest(itemId, quantity));
     }
 
 }
@@ -0,0 +1,42 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.model.Item;
+import org.springframework.stereotype.Component;
+
+/**
+ * Strong ETags for item reads, so unchanged items and pages can be answered with 304.
+ *
+ * Item: the row version (bumped by every write to the row) plus the stock as served. The stock is
+ * included because in engine and ledger modes it runs ahead of the row.
+ *
+ * Catalog: the number of committed changes made through this instance ({@link StockFeed#version}),
+ * prefixed with the startup time so a restart never reuses an old tag. Like the item cache it only
+ * sees writes made through this instance. It is read before the data, so a change that races a
+ * request can only make a later revalidation miss, never serve stale data as current.
+ */
+@Component
+public class ItemVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final StockFeed stockFeed;
+
+    public ItemVersions(StockFeed stockFeed) {
+        this.stockFeed = stockFeed;
+    }
+
+    public String itemETag(Item item) {
+        return "\"" + item.getVersion() + "-" + item.getQuantity() + "\"";
+    }
+
+    public String catalogETag() {
+        return catalogETag(stockFeed.version());
+    }
+
+    /**
+     * The catalog ETag as of an earlier version, for responses built from a snapshot.
+     */
+    public String catalogETag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,217 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import com.demo.grpc.notification.NotificationRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collapses insufficient-stock notifications per item.
+ *
+ * The first rejection for an item is sent at once and opens a window of
+ * app.notification.dedupe-window. Rejections inside the window are only counted; when it ends,
+ * one summary carrying the summed requested quantity, the number of rejected orders and the
+ * (estimated) number of distinct users is sent, and the window slides on while rejections keep
+ * coming. A window that ends with nothing counted closes, so the next rejection is sent at once.
+ *
+ * The suppressed path is lock-free and allocation-free: two atomic adds (orders, quantity) and
+ * one CAS on a 512-bit user bitmap (linear counting), all on the window's current tally. The
+ * sweeper swaps in a fresh tally and waits for the records still adding to the old one, so a
+ * summary never mixes two windows or loses a rejection counted while it was read.
+ */
+@Service
+public class NotificationDeduper {
+
+    public enum Outcome {
+        ENQUEUED,
+        DROPPED,
+        COALESCED
+    }
+
+    private static final int USER_WORDS = 8;
+    private static final int USER_BITS = USER_WORDS * 64;
+
+    private static final class Tally {
+        final AtomicLong orders = new AtomicLong();
+        final AtomicLong quantity = new AtomicLong();
+        final AtomicLongArray users = new AtomicLongArray(USER_WORDS);
+        // Records still adding to this tally; the sweeper waits for them after swapping it out
+        final AtomicInteger writers = new AtomicInteger();
+    }
+
+    private static final class Window {
+        final AtomicReference<Tally> tally = new AtomicReference<>(new Tally());
+        // 0 while closed, otherwise System.nanoTime() when the current window opened
+        final AtomicLong openedAt = new AtomicLong();
+    }
+
+    private final NotificationDispatcher dispatcher; // null unless app.notification.delivery=queue
+    private final NotificationOutbox outbox; // null unless app.notification.delivery=outbox
+    private final long windowNanos;
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+    private final Counter suppressed;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "notification-dedupe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NotificationDeduper(@Nullable NotificationDispatcher dispatcher,
+                               @Nullable NotificationOutbox outbox,
+                               NotificationConfig config,
+                               MeterRegistry meterRegistry) {
+        this.dispatcher = dispatcher;
+        this.outbox = outbox;
+        this.windowNanos = config.getDedupeWindow().toNanos();
+        this.suppressed = meterRegistry.counter("notifications.suppressed");
+        if (windowNanos > 0) {
+            long sweepMs = Math.max(50, config.getDedupeWindow().toMillis() / 10);
+            sweeper.scheduleWithFixedDelay(this::sweep, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Records a rejected order; sends it right away unless its item already has an open window.
+     */
+    public Outcome record(Long itemId, int requestedQty, String userId) {
+        if (windowNanos <= 0) {
+            return send(single(itemId, requestedQty, userId));
+        }
+
+        // One window per item that ever ran out of stock; never removed, so never re-allocated
+        Window window = windows.computeIfAbsent(itemId, id -> new Window());
+        if (window.openedAt.get() == 0 && window.openedAt.compareAndSet(0, System.nanoTime())) {
+            return send(single(itemId, requestedQty, userId));
+        }
+
+        Tally tally = enter(window);
+        try {
+            tally.orders.incrementAndGet();
+            tally.quantity.addAndGet(requestedQty);
+            markUser(tally, userId);
+        } finally {
+            tally.writers.decrementAndGet();
+        }
+        suppressed.increment();
+        return Outcome.COALESCED;
+    }
+
+    void sweep() {
+        try {
+            long now = System.nanoTime();
+            windows.forEach((itemId, window) -> {
+                long openedAt = window.openedAt.get();
+                if (openedAt == 0 || now - openedAt < windowNanos) {
+                    return;
+                }
+                // Quiet window: close it first, so later rejections are sent at once instead of counted
+                boolean quiet = window.tally.get().orders.get() == 0;
+                if (quiet && !window.openedAt.compareAndSet(openedAt, 0)) {
+                    return;
+                }
+                Tally closed = window.tally.getAndSet(new Tally());
+                while (closed.writers.get() != 0) {
+                    Thread.onSpinWait(); // a record between its check and its adds; a few instructions
+                }
+                long orders = closed.orders.get();
+                if (orders == 0) {
+                    return;
+                }
+                if (!quiet) {
+                    window.openedAt.set(now);
+                } // else: rejections counted just before the close, still summarized below
+                send(NotificationRequest.newBuilder()
+                        .setItemId(String.valueOf(itemId))
+                        .setOrderId("summary-" + itemId + "-" + System.currentTimeMillis())
+                        .setRequestedQty(saturatedInt(closed.quantity.get()))
+                        .setAggregatedOrders(saturatedInt(orders))
+                        .setDistinctUsers(distinctUsers(closed))
+                        .build());
+            });
+        } catch (Exception e) {
+            System.err.println("NOTIFICATION DEDUPE: sweep failed - " + e.getMessage());
+        }
+    }
+
+    private Outcome send(NotificationRequest request) {
+        if (outbox != null) {
+            outbox.append(request);
+            return Outcome.ENQUEUED;
+        }
+        return dispatcher.enqueue(request) ? Outcome.ENQUEUED : Outcome.DROPPED;
+    }
+
+    private NotificationRequest single(Long itemId, int requestedQty, String userId) {
+        return NotificationRequest.newBuilder()
+                .setItemId(String.valueOf(itemId))
+                .setOrderId(UUID.randomUUID().toString())
+                .setRequestedQty(requestedQty)
+                .setUserId(userId)
+                .setDistinctUsers(1)
+                .setAggregatedOrders(1)
+                .build();
+    }
+
+    // Joins the window's current tally; the caller decrements its writers when done
+    private static Tally enter(Window window) {
+        while (true) {
+            Tally tally = window.tally.get();
+            tally.writers.incrementAndGet();
+            if (window.tally.get() == tally) {
+                return tally; // swapped out later: the sweeper waits for this writer
+            }
+            tally.writers.decrementAndGet(); // swapped out meanwhile: join the new one
+        }
+    }
+
+    private static int saturatedInt(long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+    private static void markUser(Tally tally, String userId) {
+        int hash = userId.hashCode() * 0x9E3779B9; // spread similar names across the bitmap
+        int bit = (hash >>> 7) % USER_BITS;
+        int word = bit >>> 6;
+        long mask = 1L << (bit & 63);
+        long current;
+        while (((current = tally.users.get(word)) & mask) == 0) {
+            if (tally.users.compareAndSet(word, current, current | mask)) {
+                return;
+            }
+        }
+    }
+
+    // Linear counting over the bitmap of a closed tally
+    private static int distinctUsers(Tally tally) {
+        int zeros = 0;
+        for (int i = 0; i < USER_WORDS; i++) {
+            zeros += 64 - Long.bitCount(tally.users.get(i));
+        }
+        if (zeros == USER_BITS) {
+            return 0;
+        }
+        if (zeros == 0) {
+            return USER_BITS; // saturated: at least this many
+        }
+        return (int) Math.round(-USER_BITS * Math.log((double) zeros / USER_BITS));
+    }
+}
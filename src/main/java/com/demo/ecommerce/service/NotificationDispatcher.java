@@ -0,0 +1,356 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import com.demo.grpc.notification.NotificationBatchResponse;
+import com.demo.grpc.notification.NotificationRequest;
+import com.demo.grpc.notification.NotificationResponse;
+import com.demo.grpc.notification.NotificationServiceGrpc;
+import com.demo.grpc.notification.NotificationServiceGrpc.NotificationServiceFutureStub;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends insufficient-stock notifications in the background (app.notification.delivery=queue).
+ *
+ * {@link #enqueue} never blocks: the request goes into a bounded queue (overflow handled by
+ * app.notification.overflow-policy) and the caller carries on. One dispatcher thread drains the
+ * queue. With the STREAM transport it collects up to batch-size notifications or waits at most
+ * batch-window, then writes them onto one long-lived client stream, which is rotated after
+ * stream-max-messages or stream-max-age (the server's answer to a completed stream acknowledges
+ * everything sent on it). With UNARY, each notification is its own call through the future stub,
+ * with at most max-in-flight calls outstanding. Every call carries a deadline.
+ *
+ * Transient failures are retried with exponential backoff and full jitter by putting the
+ * notification back on the queue after the delay. When a stream fails, every notification
+ * written on it is retried, so delivery is at-least-once.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.notification", name = "delivery", havingValue = "queue")
+public class NotificationDispatcher {
+
+    private static final Set<Status.Code> RETRYABLE = EnumSet.of(
+            Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED,
+            Status.Code.RESOURCE_EXHAUSTED, Status.Code.ABORTED);
+
+    private record Attempt(NotificationRequest request, int number) {}
+
+    private final NotificationServiceFutureStub stub;
+    private final NotificationConfig config;
+    private final BlockingQueue<Attempt> queue;
+    private final Semaphore inFlight;
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter dropped;
+    private final Counter retried;
+    private final DistributionSummary batchSizes;
+
+    private final Thread dispatcher = new Thread(this::dispatchLoop, "notification-dispatcher");
+    private final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "notification-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+    private volatile boolean streaming;
+
+    // Dispatcher thread only
+    private OutboundStream stream;
+
+    public NotificationDispatcher(@GrpcClient("notification-service") NotificationServiceFutureStub stub,
+                                  NotificationConfig config,
+                                  MeterRegistry meterRegistry) {
+        this.stub = stub;
+        this.config = config;
+        this.streaming = config.getTransport() == NotificationConfig.Transport.STREAM;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.inFlight = new Semaphore(config.getMaxInFlight());
+        this.sent = meterRegistry.counter("notifications.sent");
+        this.failed = meterRegistry.counter("notifications.failed");
+        this.dropped = meterRegistry.counter("notifications.dropped");
+        this.retried = meterRegistry.counter("notifications.retried");
+        this.batchSizes = DistributionSummary.builder("notifications.batch_size")
+                .description("Notifications written per stream batch")
+                .register(meterRegistry);
+        Gauge.builder("notifications.queued", queue, BlockingQueue::size).register(meterRegistry);
+
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        retries.shutdownNow();
+    }
+
+    /**
+     * Queues a notification for delivery without waiting for it.
+     * @return false if it was dropped because the queue is full (DROP_NEWEST).
+     */
+    public boolean enqueue(NotificationRequest request) {
+        return offer(new Attempt(request, 1));
+    }
+
+    private boolean offer(Attempt attempt) {
+        if (queue.offer(attempt)) {
+            return true;
+        }
+        if (config.getOverflowPolicy() == NotificationConfig.OverflowPolicy.DROP_OLDEST) {
+            // Keep trying: another producer may take the freed slot first
+            while (!queue.offer(attempt)) {
+                if (queue.poll() != null) {
+                    dropped.increment();
+                }
+            }
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void dispatchLoop() {
+        List<Attempt> batch = new ArrayList<>(config.getBatchSize());
+        while (running) {
+            try {
+                Attempt first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    closeStreamIfExpired(); // an idle stream must not run into its deadline
+                    continue;
+                }
+                batch.add(first);
+                if (streaming) {
+                    collectBatch(batch);
+                    try {
+                        writeToStream(batch);
+                    } catch (RuntimeException e) {
+                        stream = null;
+                        requeue(batch, e);
+                    }
+                } else {
+                    queue.drainTo(batch, config.getBatchSize() - 1);
+                    for (Attempt attempt : batch) {
+                        inFlight.acquire();
+                        sendUnary(attempt);
+                    }
+                }
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    // Fills the batch until it is full or the window since its first notification has passed
+    private void collectBatch(List<Attempt> batch) throws InterruptedException {
+        long windowEnds = System.nanoTime() + config.getBatchWindow().toNanos();
+        while (batch.size() < config.getBatchSize()) {
+            queue.drainTo(batch, config.getBatchSize() - batch.size());
+            long remaining = windowEnds - System.nanoTime();
+            if (batch.size() >= config.getBatchSize() || remaining <= 0) {
+                return;
+            }
+            Attempt next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    // ------------------- UNARY -------------------
+
+    private void sendUnary(Attempt attempt) {
+        try {
+            Futures.addCallback(
+                    stub.withDeadlineAfter(config.getDeadline().toMillis(), TimeUnit.MILLISECONDS)
+                            .notifyInsufficientStock(attempt.request()),
+                    new FutureCallback<NotificationResponse>() {
+                        @Override
+                        public void onSuccess(NotificationResponse response) {
+                            inFlight.release();
+                            sent.increment();
+                        }
+
+                        @Override
+                        public void onFailure(Throwable t) {
+                            inFlight.release();
+                            retryOrGiveUp(attempt, t);
+                        }
+                    },
+                    MoreExecutors.directExecutor());
+        } catch (RuntimeException e) {
+            inFlight.release();
+            retryOrGiveUp(attempt, e);
+        }
+    }
+
+    // ------------------- STREAM -------------------
+
+    private void writeToStream(List<Attempt> batch) throws InterruptedException {
+        if (stream == null || !stream.write(batch)) {
+            stream = new OutboundStream();
+            if (!stream.write(batch)) {
+                // Failed before anything was written: the batch is still ours to retry
+                Throwable failure = stream.failure;
+                stream = null;
+                requeue(batch, failure);
+                return;
+            }
+        }
+        batchSizes.record(batch.size());
+        if (stream.written >= config.getStreamMaxMessages()) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private void closeStreamIfExpired() {
+        if (stream != null && System.nanoTime() - stream.openedAt >= config.getStreamMaxAge().toNanos()) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private final class OutboundStream implements ClientResponseObserver<NotificationRequest, NotificationBatchResponse> {
+
+        final long openedAt = System.nanoTime();
+        int written;
+
+        // Guarded by this: notifications written but not acknowledged yet
+        private final List<Attempt> unacknowledged = new ArrayList<>();
+        private boolean ended;
+        private Throwable failure;
+        private ClientCallStreamObserver<NotificationRequest> requests;
+
+        OutboundStream() {
+            long deadlineMs = config.getStreamMaxAge().plus(config.getDeadline()).toMillis();
+            NotificationServiceGrpc.newStub(stub.getChannel())
+                    .withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+                    .notifyInsufficientStockBatch(this);
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<NotificationRequest> requestStream) {
+            this.requests = requestStream;
+            requestStream.setOnReadyHandler(() -> {
+                synchronized (this) {
+                    notifyAll();
+                }
+            });
+        }
+
+        /**
+         * @return false if the stream has already ended; the batch was not written.
+         */
+        synchronized boolean write(List<Attempt> batch) throws InterruptedException {
+            // Respect transport flow control instead of buffering without bound
+            while (!ended && !requests.isReady()) {
+                wait(100);
+            }
+            if (ended) {
+                return false;
+            }
+            for (Attempt attempt : batch) {
+                requests.onNext(attempt.request());
+                unacknowledged.add(attempt);
+            }
+            written += batch.size();
+            return true;
+        }
+
+        synchronized void close() {
+            if (!ended) {
+                requests.onCompleted();
+            }
+        }
+
+        @Override
+        public void onNext(NotificationBatchResponse response) {
+            // The only message, sent when the server has consumed the whole stream
+        }
+
+        @Override
+        public void onCompleted() {
+            sent.increment(end().size());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            synchronized (this) {
+                failure = t;
+            }
+            if (Status.fromThrowable(t).getCode() == Status.Code.UNIMPLEMENTED && streaming) {
+                streaming = false;
+                System.err.println("NOTIFICATION: server has no batch stream, falling back to unary calls");
+            }
+            requeue(end(), t);
+        }
+
+        private synchronized List<Attempt> end() {
+            ended = true;
+            notifyAll();
+            List<Attempt> pending = new ArrayList<>(unacknowledged);
+            unacknowledged.clear();
+            return pending;
+        }
+    }
+
+    // ------------------- RETRY -------------------
+
+    private void requeue(List<Attempt> attempts, Throwable t) {
+        if (!streaming && Status.fromThrowable(t).getCode() == Status.Code.UNIMPLEMENTED) {
+            attempts.forEach(this::offer); // not the notification's fault: resend as unary calls
+            return;
+        }
+        attempts.forEach(attempt -> retryOrGiveUp(attempt, t));
+    }
+
+    private void retryOrGiveUp(Attempt attempt, Throwable t) {
+        Status status = Status.fromThrowable(t);
+        if (attempt.number() >= config.getMaxAttempts() || !RETRYABLE.contains(status.getCode())) {
+            failed.increment();
+            System.err.println("NOTIFICATION FAILED: order " + attempt.request().getOrderId()
+                    + " after " + attempt.number() + " attempt(s) - " + status);
+            return;
+        }
+        retried.increment();
+        retries.schedule(() -> offer(new Attempt(attempt.request(), attempt.number() + 1)),
+                backoffMillis(attempt.number()), TimeUnit.MILLISECONDS);
+    }
+
+    // Full jitter: uniform in [0, min(max, initial * 2^(attempt-1))]
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(config.getMaxBackoff().toMillis(),
+                config.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
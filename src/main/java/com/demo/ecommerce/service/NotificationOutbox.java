@@ -0,0 +1,45 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.dao.NotificationOutboxDao;
+import com.demo.grpc.notification.NotificationRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Write side of the notification outbox (app.notification.delivery=outbox, the default).
+ * A notification is one local insert in the caller's transaction; NotificationOutboxRelay sends it.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.notification", name = "delivery", havingValue = "outbox", matchIfMissing = true)
+public class NotificationOutbox {
+
+    private final NotificationOutboxDao outboxDao;
+    private final TransactionTemplate requiresNew;
+
+    public NotificationOutbox(NotificationOutboxDao outboxDao, PlatformTransactionManager transactionManager) {
+        this.outboxDao = outboxDao;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional
+    public void append(NotificationRequest request) {
+        if (TransactionAspectSupport.currentTransactionStatus().isRollbackOnly()) {
+            // The surrounding order is being undone (all-or-nothing batch), but the rejection did happen
+            requiresNew.executeWithoutResult(status -> insert(request));
+            return;
+        }
+        insert(request);
+    }
+
+    private void insert(NotificationRequest request) {
+        outboxDao.insert(request.toByteArray(), LocalDateTime.now());
+    }
+}
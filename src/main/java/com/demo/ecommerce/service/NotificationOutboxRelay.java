@@ -0,0 +1,224 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import com.demo.ecommerce.dao.NotificationOutboxDao;
+import com.demo.ecommerce.dao.NotificationOutboxDao.PendingNotification;
+import com.demo.grpc.notification.NotificationBatchResponse;
+import com.demo.grpc.notification.NotificationRequest;
+import com.demo.grpc.notification.NotificationServiceGrpc;
+import com.demo.grpc.notification.NotificationServiceGrpc.NotificationServiceStub;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the notification outbox.
+ *
+ * Each round claims a batch of undelivered rows in a short transaction: SELECT ... FOR UPDATE SKIP
+ * LOCKED picks rows no other relay holds and a lease (app.notification.outbox.lease) is written on
+ * them, so several instances can relay side by side without sending a row twice. The batch is then
+ * sent outside any transaction, as one NotifyInsufficientStockBatch stream (or unary calls if the
+ * server lacks it), so no row lock is held across the RPC. Delivered rows are marked; a failed batch
+ * drops its lease, stays pending with its attempt count up, and the relay backs off with jitter. A
+ * relay that dies mid-send leaves its rows to be claimed again once the lease runs out. Lag (age of
+ * the oldest pending row) and delivered counts are exported as metrics.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.notification", name = "delivery", havingValue = "outbox", matchIfMissing = true)
+public class NotificationOutboxRelay {
+
+    private final NotificationOutboxDao outboxDao;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationServiceStub stub;
+    private final NotificationConfig config;
+    private final Counter delivered;
+    private final Counter failedBatches;
+    private final Timer batchLatency;
+    private final ScheduledExecutorService relay = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "notification-outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Relay thread only
+    private boolean streamSupported = true;
+    private int consecutiveFailures;
+    private long retryAtMs; // wall clock; 0 = due now
+    private volatile double lagSeconds;
+
+    public NotificationOutboxRelay(NotificationOutboxDao outboxDao,
+                                   PlatformTransactionManager transactionManager,
+                                   @GrpcClient("notification-service") NotificationServiceStub stub,
+                                   NotificationConfig config,
+                                   MeterRegistry meterRegistry) {
+        this.outboxDao = outboxDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stub = stub;
+        this.config = config;
+        this.delivered = meterRegistry.counter("notifications.outbox.delivered");
+        this.failedBatches = meterRegistry.counter("notifications.outbox.failed_batches");
+        this.batchLatency = Timer.builder("notifications.outbox.batch")
+                .description("Time to send and mark one outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("notifications.outbox.lag_seconds", this, r -> r.lagSeconds)
+                .description("Age of the oldest undelivered notification")
+                .register(meterRegistry);
+
+        long pollMs = config.getOutbox().getPollInterval().toMillis();
+        relay.scheduleWithFixedDelay(this::poll, pollMs, pollMs, TimeUnit.MILLISECONDS);
+        relay.scheduleWithFixedDelay(this::purgeDelivered, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        relay.shutdownNow();
+    }
+
+    void poll() {
+        if (System.currentTimeMillis() < retryAtMs) {
+            return;
+        }
+        try {
+            // Keep going while batches come back full: the outbox is behind
+            while (relayBatch() == config.getOutbox().getBatchSize()) {
+                // next batch
+            }
+            LocalDateTime oldest = outboxDao.oldestPendingCreatedAt();
+            lagSeconds = oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+        } catch (Exception e) {
+            backOff();
+            System.err.println("NOTIFICATION OUTBOX: relay round failed - " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return rows delivered, or -1 if the batch could not be sent.
+     */
+    int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PendingNotification> rows = transactionTemplate.execute(status -> outboxDao.claimPending(
+                config.getOutbox().getBatchSize(), now, now.plus(config.getOutbox().getLease())));
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = rows.stream().map(PendingNotification::id).toList();
+        long started = System.nanoTime();
+        try {
+            send(rows);
+        } catch (RuntimeException e) {
+            outboxDao.recordFailedAttempt(ids);
+            failedBatches.increment();
+            backOff();
+            System.err.println("NOTIFICATION OUTBOX: batch of " + rows.size() + " not delivered, will retry - " + e.getMessage());
+            return -1;
+        }
+        outboxDao.markDelivered(ids, LocalDateTime.now());
+        batchLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        delivered.increment(rows.size());
+        consecutiveFailures = 0;
+        return rows.size();
+    }
+
+    private void send(List<PendingNotification> rows) {
+        List<NotificationRequest> requests = new ArrayList<>(rows.size());
+        for (PendingNotification row : rows) {
+            try {
+                requests.add(NotificationRequest.parseFrom(row.payload()));
+            } catch (InvalidProtocolBufferException e) {
+                // Unreadable rows can never be delivered; let them through instead of blocking the outbox
+                System.err.println("NOTIFICATION OUTBOX: dropping unreadable row " + row.id());
+            }
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        if (streamSupported) {
+            try {
+                sendAsStream(requests);
+                return;
+            } catch (RuntimeException e) {
+                if (Status.fromThrowable(e).getCode() != Status.Code.UNIMPLEMENTED) {
+                    throw e;
+                }
+                streamSupported = false;
+                System.err.println("NOTIFICATION OUTBOX: server has no batch stream, falling back to unary calls");
+            }
+        }
+        NotificationServiceGrpc.NotificationServiceBlockingStub blocking = NotificationServiceGrpc.newBlockingStub(stub.getChannel());
+        for (NotificationRequest request : requests) {
+            blocking.withDeadlineAfter(config.getDeadline().toMillis(), TimeUnit.MILLISECONDS)
+                    .notifyInsufficientStock(request);
+        }
+    }
+
+    private void sendAsStream(List<NotificationRequest> requests) {
+        CompletableFuture<NotificationBatchResponse> response = new CompletableFuture<>();
+        StreamObserver<NotificationRequest> stream = stub
+                .withDeadlineAfter(config.getDeadline().toMillis(), TimeUnit.MILLISECONDS)
+                .notifyInsufficientStockBatch(new StreamObserver<>() {
+                    @Override
+                    public void onNext(NotificationBatchResponse value) {
+                        response.complete(value);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        response.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        response.complete(NotificationBatchResponse.getDefaultInstance());
+                    }
+                });
+        requests.forEach(stream::onNext);
+        stream.onCompleted();
+
+        try {
+            response.get(); // bounded by the call deadline
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withCause(e).asRuntimeException();
+        } catch (ExecutionException e) {
+            throw Status.fromThrowable(e.getCause()).asRuntimeException();
+        }
+    }
+
+    private void backOff() {
+        consecutiveFailures++;
+        long ceiling = Math.min(config.getMaxBackoff().toMillis(),
+                config.getInitialBackoff().toMillis() << Math.min(consecutiveFailures - 1, 20));
+        retryAtMs = System.currentTimeMillis() + ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void purgeDelivered() {
+        try {
+            transactionTemplate.execute(status ->
+                    outboxDao.deleteDeliveredBefore(LocalDateTime.now().minus(config.getOutbox().getRetention())));
+        } catch (Exception e) {
+            System.err.println("NOTIFICATION OUTBOX: purge of delivered rows failed - " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- The springitems table as Hibernate creates it from model/Item.java (ddl-auto=update). jOOQ code
+-- generation reads this script instead of a live database; keep the two in step.
+CREATE TABLE springitems (
+    item_id   BIGINT       NOT NULL AUTO_INCREMENT,
+    item_name VARCHAR(255) NOT NULL,
+    quantity  INT          NOT NULL,
+    price     INT          NOT NULL,
+    version   BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (item_id)
+);
+
+CREATE INDEX idx_springitems_quantity ON springitems (quantity);
+CREATE INDEX idx_springitems_name ON springitems (item_name);
@@ -337,7 +337,7 @@
                                 </div>
                                 <div class="item-detail">
                                     <span class="detail-label">Available Stock:</span>
-                                    <span class="detail-value stock">${item.quantity}</span>
+                                    <span class="detail-value stock" id="stock-${item.itemId}">${item.quantity}</span>
                                 </div>
                             </div>
 
@@ -477,84 +477,56 @@
             let failedOrders = [];
             let failureDetails = [];
 
-            // Process each order by calling the backend API
-            for (let itemId in orderItems) {
-                const item = orderItems[itemId];
-                console.log('Processing order for item:', item); // Debug log
+            // Send the whole cart as one batch order: one request, one transaction
+            const lines = Object.keys(orderItems).map(itemId => ({
+                itemId: parseInt(itemId),
+                quantity: orderItems[itemId].quantity
+            }));
+
+            // One key per checkout: a retried request is answered with the original result
+            const idempotencyKey = window.crypto && crypto.randomUUID
+                ? crypto.randomUUID()
+                : Date.now() + '-' + Math.random().toString(36).slice(2);
+
+            let results;
+            try {
+                const response = await fetch('/jsp/orders/batch', {
+                    method: 'POST',
+                    headers: {
+                        'Content-Type': 'application/json',
+                        'Idempotency-Key': idempotencyKey
+                    },
+                    // Partial success: lines with enough stock are placed even if others fail
+                    body: JSON.stringify({
+                        lines: lines,
+                        allOrNothing: false
+                    })
+                });
+                const body = await response.json();
+                results = body.results || lines.map(line => ({ itemId: line.itemId, status: 'FAILED', message: body.message }));
+            } catch (error) {
+                results = lines.map(line => ({ itemId: line.itemId, status: 'NETWORK_ERROR' }));
+            }
+
+            results.forEach(result => {
+                const item = orderItems[result.itemId];
                 const itemTotal = item.price * item.quantity;
                 totalAmount += itemTotal;
 
-                try {
-                    // Call the backend to place the order and send notification
-                    const response = await fetch('/jsp/orders', {
-                        method: 'POST',
-                        headers: {
-                            'Content-Type': 'application/json'
-                        },
-                        body: JSON.stringify({
-                            itemId: itemId,
-                            quantity: item.quantity
-                        })
-                    });
+                if (result.status === 'PLACED') {
+                    console.log('Order succeeded for item:', item.name); // Debug log
 
-                    if (response.ok) {
-                        const result = await response.json();
-                        console.log('Order succeeded for item:', item.name); // Debug log
-
-                        // Success - build with string concatenation
-                        let successHtml = '<div class="order-item" style="background: #e8f5e9;">';
-                        successHtml += '<div>';
-                        successHtml += '<strong>' + (item.name || 'Unknown Item') + '</strong> ✓<br>';
-                        successHtml += '<small>Quantity: ' + item.quantity + ' x $' + item.price + '</small>';
-                        successHtml += '</div>';
-                        successHtml += '<div style="text-align: right; font-weight: bold; color: #27ae60;">$' + itemTotal + '</div>';
-                        successHtml += '</div>';
-
-                        orderSummary += successHtml;
-                    } else {
-                        const error = await response.json();
-                        console.log('Order failed for item:', item.name, 'Error:', error); // Debug log
-
-                        allOrdersSuccessful = false;
-                        failedOrders.push(item.name);
-
-                        // Check if error message indicates notification status
-                        const isNotificationSent = error.message && error.message.includes('NOTIFICATION SENT');
-                        const isNotificationFailed = error.message && error.message.includes('NOTIFICATION FAILED');
-                        const hasNotificationStatus = isNotificationSent || isNotificationFailed;
-
-                        console.log('Notification Status - Sent:', isNotificationSent, 'Failed:', isNotificationFailed); // Debug log
-
-                        const notificationMessage = isNotificationSent
-                            ? '🔔 Notification sent successfully'
-                            : '⚠️ Notification failed';
-
-                        // Track detailed failure information
-                        const notificationStatusText = isNotificationSent ? 'notification sent' :'notification failed';
-                        failureDetails.push({
-                            name: item.name,
-                            notificationStatus: notificationStatusText,
-                            hasNotification: hasNotificationStatus
-                        });
-
-                        // Build the error display with proper string concatenation
-                        let errorHtml = '<div class="order-item" style="background: #ffebee;">';
-                        errorHtml += '<div>';
-                        errorHtml += '<strong>' + (item.name || 'Unknown Item') + '</strong> ✗<br>';
-                        errorHtml += '<small style="color: #c62828; font-weight: 600;">' + (error.message || 'Order failed') + '</small>';
-
-                        if (hasNotificationStatus) {
-                            const notificationColor = isNotificationSent ? '#ff9800' : '#d32f2f';
-                            errorHtml += '<br><small style="color: ' + notificationColor + '; font-weight: 600;">' + notificationMessage + '</small>';
-                        }
-
-                        errorHtml += '</div>';
-                        errorHtml += '<div style="text-align: right; font-weight: bold; color: #c62828;">Failed</div>';
-                        errorHtml += '</div>';
-
-                        orderSummary += errorHtml;
-                    }
-                } catch (error) {
+                    // Success - build with string concatenation
+                    let successHtml = '<div class="order-item" style="background: #e8f5e9;">';
+                    successHtml += '<div>';
+                    successHtml += '<strong>' + (item.name || 'Unknown Item') + '</strong> ✓<br>';
+                    successHtml += '<small>Quantity: ' + item.quantity + ' x $' + item.price + '</small>';
+                    successHtml += '</div>';
+                    successHtml += '<div style="text-align: right; font-weight: bold; color: #27ae60;">$' + itemTotal + '</div>';
+                    successHtml += '</div>';
+
+                    orderSummary += successHtml;
+                } else if (result.status === 'NETWORK_ERROR') {
                     allOrdersSuccessful = false;
                     failedOrders.push(item.name);
 
@@ -576,8 +548,49 @@
                             </div>
                         </div>
                     `;
+                } else {
+                    console.log('Order failed for item:', item.name, 'Result:', result); // Debug log
+
+                    allOrdersSuccessful = false;
+                    failedOrders.push(item.name);
+
+                    // Check if error message indicates notification status
+                    const isNotificationSent = result.message && (result.message.includes('NOTIFICATION ENQUEUED') || result.message.includes('NOTIFICATION COALESCED'));
+                    const isNotificationFailed = result.message && result.message.includes('NOTIFICATION DROPPED');
+                    const hasNotificationStatus = isNotificationSent || isNotificationFailed;
+
+                    console.log('Notification Status - Enqueued:', isNotificationSent, 'Dropped:', isNotificationFailed); // Debug log
+
+                    const notificationMessage = isNotificationSent
+                        ? '🔔 Notification queued'
+                        : '⚠️ Notification dropped';
+
+                    // Track detailed failure information
+                    const notificationStatusText = isNotificationSent ? 'notification queued' :'notification dropped';
+                    failureDetails.push({
+                        name: item.name,
+                        notificationStatus: notificationStatusText,
+                        hasNotification: hasNotificationStatus
+                    });
+
+                    // Build the error display with proper string concatenation
+                    let errorHtml = '<div class="order-item" style="background: #ffebee;">';
+                    errorHtml += '<div>';
+                    errorHtml += '<strong>' + (item.name || 'Unknown Item') + '</strong> ✗<br>';
+                    errorHtml += '<small style="color: #c62828; font-weight: 600;">' + (result.message || 'Order failed') + '</small>';
+
+                    if (hasNotificationStatus) {
+                        const notificationColor = isNotificationSent ? '#ff9800' : '#d32f2f';
+                        errorHtml += '<br><small style="color: ' + notificationColor + '; font-weight: 600;">' + notificationMessage + '</small>';
+                    }
+
+                    errorHtml += '</div>';
+                    errorHtml += '<div style="text-align: right; font-weight: bold; color: #c62828;">Failed</div>';
+                    errorHtml += '</div>';
+
+                    orderSummary += errorHtml;
                 }
-            }
+            });
 
             // Add total and status
             orderSummary += '<div style="margin-top: 20px; padding-top: 15px; border-top: 2px solid #ddd; text-align: right;">';
@@ -634,14 +647,40 @@
                 el.textContent = '1';
             });
 
-            // Reload page after 3 seconds to refresh stock quantities
-            if (allOrdersSuccessful || (failedOrders.length < Object.keys(orderItems).length)) {
+            // Stock on the page is kept current by the stock event stream; reload only without it
+            if (!stockEvents && (allOrdersSuccessful || (failedOrders.length < Object.keys(orderItems).length))) {
                 setTimeout(() => {
                     window.location.reload();
                 }, 3000);
             }
         }
 
+        // Live stock: one event per committed stock change, {"i": itemId, "q": quantity, "d": delta}.
+        // Reconnects resume from the last event received (Last-Event-ID).
+        let stockEvents = null;
+        if (window.EventSource) {
+            stockEvents = new EventSource('/items/stock-events?since=' + encodeURIComponent('${stockEventsSince}'));
+            stockEvents.onmessage = function(event) {
+                const change = JSON.parse(event.data);
+                const stockElement = document.getElementById('stock-' + change.i);
+                if (!stockElement) {
+                    return; // not on this page (e.g. added after it was rendered)
+                }
+                stockElement.textContent = change.q;
+                document.querySelectorAll('[data-item-id="' + change.i + '"][data-item-stock]').forEach(el => {
+                    el.setAttribute('data-item-stock', change.q);
+                });
+                document.querySelectorAll('[data-item-id="' + change.i + '"][data-max-stock]').forEach(el => {
+                    el.setAttribute('data-max-stock', change.q);
+                });
+            };
+            // Too far behind to patch (or the server restarted): render the page again
+            stockEvents.addEventListener('resync', function() {
+                stockEvents.close();
+                window.location.reload();
+            });
+        }
+
         // Show alert modal
         function showAlert(title, message) {
             const modal = document.getElementById('alertModal');
@@ -0,0 +1,141 @@
+package com.demo.ecommerce.controller;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StockEventStreamTest {
+
+    private final StockFeed stockFeed = new StockFeed();
+    private final InventoryConfig inventoryConfig = new InventoryConfig();
+    private StockEventStream stream;
+
+    @AfterEach
+    public void tearDown() {
+        stream.stop();
+    }
+
+    // Always-writable stream that records what the browser would receive
+    private static final class RecordingOutputStream extends ServletOutputStream {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                writeListener.onWritePossible();
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        @Override
+        public void write(int b) {
+            bytes.write(b);
+        }
+
+        synchronized String received() {
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private RecordingOutputStream open(String lastEventId, AsyncContext async) throws IOException {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        RecordingOutputStream out = new RecordingOutputStream();
+        when(request.startAsync(request, response)).thenReturn(async);
+        when(response.getOutputStream()).thenReturn(out);
+        stream.open(request, response, lastEventId);
+        return out;
+    }
+
+    private static void awaitReceived(RecordingOutputStream out, String text) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!out.received().contains(text) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(out.received().contains(text), out.received());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: A stream resumes after the page's id, then gets live changes
+    // ---------------------------------------------------------------------
+    @Test
+    public void testResumeThenLive() throws Exception {
+        stream = new StockEventStream(stockFeed, inventoryConfig, new SimpleMeterRegistry());
+        String renderedAt = stream.currentId();
+        stockFeed.publish(new StockChange(1L, "Laptop", 9, -1, false)); // after the page was rendered
+
+        RecordingOutputStream out = open(renderedAt, mock(AsyncContext.class));
+        assertTrue(out.received().contains("data: {\"i\":1,\"q\":9,\"d\":-1}\n\n"), out.received());
+
+        stockFeed.publish(new StockChange(2L, "Mouse", 5, -2, false));
+        awaitReceived(out, "data: {\"i\":2,\"q\":5,\"d\":-2}\n\n");
+        assertEquals(1, stream.connectionCount());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: An id that has left the buffer (or is from another run) gets a resync
+    // ---------------------------------------------------------------------
+    @Test
+    public void testStaleIdGetsResync() throws Exception {
+        inventoryConfig.getStockEvents().setBufferSize(4);
+        stream = new StockEventStream(stockFeed, inventoryConfig, new SimpleMeterRegistry());
+        String renderedAt = stream.currentId();
+        for (int i = 0; i < 10; i++) {
+            stockFeed.publish(new StockChange(1L, "Laptop", 100 - i, -1, false));
+        }
+
+        AsyncContext behind = mock(AsyncContext.class);
+        assertEquals("event: resync\ndata: \n\n", open(renderedAt, behind).received());
+        verify(behind).complete();
+
+        AsyncContext restarted = mock(AsyncContext.class);
+        assertEquals("event: resync\ndata: \n\n", open("abc-3", restarted).received());
+        verify(restarted).complete();
+        assertEquals(0, stream.connectionCount());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: A bulk import's added items take no room in the ring; its other changes are sent
+    // ---------------------------------------------------------------------
+    @Test
+    public void testBulkAddDoesNotOverflowTheRing() throws Exception {
+        inventoryConfig.getStockEvents().setBufferSize(4);
+        stream = new StockEventStream(stockFeed, inventoryConfig, new SimpleMeterRegistry());
+        String renderedAt = stream.currentId();
+        List<StockChange> chunk = new ArrayList<>();
+        for (long id = 10; id < 20; id++) {
+            chunk.add(new StockChange(id, "Item", 5, 5, true));
+        }
+        chunk.add(new StockChange(1L, "Laptop", 9, -1, false));
+        stockFeed.publishAll(chunk);
+
+        RecordingOutputStream out = open(renderedAt, mock(AsyncContext.class));
+        assertEquals("id: " + renderedAt.substring(0, renderedAt.indexOf('-')) + "-1\ndata: {\"i\":1,\"q\":9,\"d\":-1}\n\n",
+                out.received());
+        assertEquals(1, stream.connectionCount());
+    }
+}
@@ -0,0 +1,132 @@
+package com.demo.ecommerce.dao;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.model.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingItemDaoTest {
+
+    private final ItemDaoImpl delegate = mock(ItemDaoImpl.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CachingItemDao cachingItemDao = new CachingItemDao(delegate, new InventoryConfig(), meterRegistry);
+
+    private static Item item(long id, int quantity) {
+        Item item = new Item("Laptop", quantity, 1200);
+        item.setItemId(id);
+        return item;
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Repeated reads hit the cache; callers cannot change the cached item
+    // ---------------------------------------------------------------------
+    @Test
+    public void testReadThrough() {
+        when(delegate.findById(1L)).thenReturn(item(1, 10));
+
+        Item first = cachingItemDao.findById(1L);
+        first.setQuantity(0);
+        Item second = cachingItemDao.findCatalogEntry(1L);
+
+        assertEquals(10, second.getQuantity());
+        verify(delegate, times(1)).findById(1L);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "items").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "items").tag("result", "miss").functionCounter().count());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A stock write makes findById re-read the quantity (and only the quantity);
+    //         update drops the entry
+    // ---------------------------------------------------------------------
+    @Test
+    public void testWritesInvalidate() {
+        when(delegate.findById(1L)).thenReturn(item(1, 10));
+        when(delegate.tryDecrement(1L, 3, 2)).thenReturn(7);
+        when(delegate.findQuantity(1L)).thenReturn(7);
+        cachingItemDao.findById(1L);
+
+        assertEquals(7, cachingItemDao.tryDecrement(1L, 3, 2));
+
+        assertEquals(7, cachingItemDao.findById(1L).getQuantity());
+        assertEquals(7, cachingItemDao.findById(1L).getQuantity()); // reloaded quantity is cached again
+        verify(delegate, times(1)).findQuantity(1L);
+        verify(delegate, times(1)).findById(1L);
+        assertEquals(1, meterRegistry.counter("items.cache.quantity_reloads").count());
+
+        Item renamed = item(1, 7);
+        renamed.setItemName("Laptop Pro");
+        when(delegate.update(renamed)).thenReturn(renamed);
+        when(delegate.findById(1L)).thenReturn(renamed);
+        cachingItemDao.update(renamed);
+
+        assertEquals("Laptop Pro", cachingItemDao.findCatalogEntry(1L).getItemName());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: Concurrent misses on one id share a single load
+    // ---------------------------------------------------------------------
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.findById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return item(1, 10);
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Item>> readers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            readers.add(pool.submit(() -> cachingItemDao.findCatalogEntry(1L)));
+        }
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50); // let the other readers block on the same load
+        release.countDown();
+
+        for (Future<Item> reader : readers) {
+            assertEquals(10, reader.get(5, TimeUnit.SECONDS).getQuantity());
+        }
+        verify(delegate, times(1)).findById(1L);
+        pool.shutdown();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4: Quantities rewritten behind the DAO are re-read, including entries loaded mid-transaction
+    // ---------------------------------------------------------------------
+    @Test
+    public void testMarkAllQuantitiesStale() {
+        when(delegate.findById(1L)).thenReturn(item(1, 10));
+        when(delegate.findById(2L)).thenReturn(item(2, 20));
+        when(delegate.findQuantity(1L)).thenReturn(4);
+        when(delegate.findQuantity(2L)).thenReturn(15);
+        cachingItemDao.findById(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cachingItemDao.markAllQuantitiesStale();
+            cachingItemDao.findById(2L); // loads the pre-commit quantity
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync ->
+                    sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(4, cachingItemDao.findById(1L).getQuantity());
+        assertEquals(15, cachingItemDao.findById(2L).getQuantity());
+        verify(delegate).markAllQuantitiesStale();
+    }
+}
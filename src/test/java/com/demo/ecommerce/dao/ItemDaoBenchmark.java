@@ -0,0 +1,133 @@
+package com.demo.ecommerce.dao;
+
+import com.demo.ecommerce.model.Item;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.demo.ecommerce.jooq.Tables.SPRINGITEMS;
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * jOOQ overhead per ItemDaoImpl query: the string-built queries with reflective into(Item.class) it
+ * used to run ("strings"), the same queries on the generated table with the hand-written mapper
+ * ("typed"), and what ItemDaoImpl runs now ("dao": pre-rendered SQL for point queries).
+ *
+ * The database is in-memory H2 in MySQL mode, so its share of each call is the same for every variant
+ * and the differences are jOOQ rendering and mapping. Run with:
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="ItemDaoBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemDaoBenchmark {
+
+    private static final int ITEMS = 500;
+
+    private Connection connection;
+    private DSLContext dsl;
+    private ItemDaoImpl itemDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = ItemDaoImplTest.openDatabase("item-dao-benchmark");
+        dsl = ItemDaoImplTest.mysqlLikeDatabase(connection);
+        dsl.settings().setExecuteLogging(false); // the test classpath logs at DEBUG; the app does not
+        itemDao = new ItemDaoImpl(dsl);
+        for (int i = 0; i < ITEMS; i++) {
+            itemDao.save(new Item("Item " + i, 1_000_000, 100 + i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.createStatement().execute("DROP ALL OBJECTS");
+        connection.close();
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, ITEMS + 1);
+    }
+
+    // ------------------- findById -------------------
+
+    @Benchmark
+    public Item findById_strings() {
+        Record record = dsl.select()
+                .from(table("springitems"))
+                .where(field("item_id").eq(randomId()))
+                .fetchOne();
+        return record == null ? null : record.into(Item.class);
+    }
+
+    @Benchmark
+    public Item findById_typed() {
+        return dsl.selectFrom(SPRINGITEMS)
+                .where(SPRINGITEMS.ITEM_ID.eq(randomId()))
+                .fetchOne(ItemDaoImpl.ITEM);
+    }
+
+    @Benchmark
+    public Item findById_dao() {
+        return itemDao.findById(randomId());
+    }
+
+    // ------------------- order: decrement, then read back -------------------
+
+    @Benchmark
+    public Integer tryDecrement_strings() {
+        long id = randomId();
+        Field<Integer> qty = field("quantity", Integer.class);
+        Field<Long> version = field("version", Long.class);
+        dsl.update(table("springitems"))
+                .set(qty, qty.minus(1))
+                .set(version, version.plus(org.jooq.impl.DSL.inline(1L)))
+                .where(field("item_id").eq(id))
+                .and(qty.minus(1).ge(2))
+                .execute();
+        return dsl.select(qty)
+                .from(table("springitems"))
+                .where(field("item_id").eq(id))
+                .fetchOne(qty);
+    }
+
+    @Benchmark
+    public Integer tryDecrement_dao() {
+        return itemDao.tryDecrement(randomId(), 1, 2);
+    }
+
+    // ------------------- all rows (mapping dominates) -------------------
+
+    @Benchmark
+    public List<Item> findAll_strings() {
+        return dsl.select()
+                .from(table("springitems"))
+                .fetchInto(Item.class);
+    }
+
+    @Benchmark
+    public List<Item> findAll_dao() {
+        return itemDao.findAll();
+    }
+}
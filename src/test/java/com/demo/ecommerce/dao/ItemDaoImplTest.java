@@ -0,0 +1,149 @@
+package com.demo.ecommerce.dao;
+
+import com.demo.ecommerce.dto.ItemFilter;
+import com.demo.ecommerce.dto.PlaceOrderRequest;
+import com.demo.ecommerce.model.Item;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemDaoImplTest {
+
+    private Connection connection;
+    private ItemDaoImpl itemDao;
+
+    /**
+     * H2 in MySQL mode with the codegen DDL, and the MySQL dialect JooqConfig uses, so the pre-rendered
+     * SQL is exactly what production sends.
+     */
+    static DSLContext mysqlLikeDatabase(Connection connection) throws IOException {
+        DSLContext dsl = DSL.using(connection, SQLDialect.MYSQL);
+        String ddl = Files.readString(Path.of("src/main/jooq/springitems.sql")).replaceAll("(?m)^--.*$", "");
+        for (String statement : ddl.split(";")) {
+            if (!statement.isBlank()) {
+                dsl.execute(statement);
+            }
+        }
+        return dsl;
+    }
+
+    static Connection openDatabase(String name) throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        return dataSource.getConnection();
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        connection = openDatabase("item-dao-test");
+        itemDao = new ItemDaoImpl(mysqlLikeDatabase(connection));
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.createStatement().execute("DROP ALL OBJECTS");
+        connection.close();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Save returns the generated id; point queries and mapping read back every column
+    // ---------------------------------------------------------------------
+    @Test
+    public void testSaveAndPointQueries() {
+        Item laptop = itemDao.save(new Item("Laptop", 10, 1200));
+        Item mouse = itemDao.save(new Item("Gaming Mouse", 3, 50));
+        assertNotNull(laptop.getItemId());
+        assertNotEquals(laptop.getItemId(), mouse.getItemId());
+
+        Item found = itemDao.findById(laptop.getItemId());
+        assertEquals("Laptop", found.getItemName());
+        assertEquals(10, found.getQuantity());
+        assertEquals(1200, found.getPrice());
+        assertEquals(0, found.getVersion());
+        assertEquals(mouse.getItemId(), itemDao.findByName("Gaming Mouse").getItemId());
+        assertNull(itemDao.findByName("Keyboard"));
+        assertNull(itemDao.findById(999L));
+        assertTrue(itemDao.exists(mouse.getItemId()));
+        assertFalse(itemDao.exists(999L));
+        assertEquals(3, itemDao.findQuantityForUpdate(mouse.getItemId()));
+
+        List<Item> page = itemDao.findPage(null, 10, new ItemFilter(null, null, null, null, "Gam"), List.of());
+        assertEquals(List.of(mouse.getItemId()), page.stream().map(Item::getItemId).toList());
+        ItemFilter inStock = new ItemFilter(5, null, null, null, null);
+        assertEquals(List.of(laptop.getItemId()), itemDao.findPage(null, 10, inStock, List.of()).stream()
+                .map(Item::getItemId).toList());
+        // An item whose quantity the caller checks itself skips the range, but not the other filters
+        assertEquals(List.of(laptop.getItemId(), mouse.getItemId()), itemDao.findPage(null, 10, inStock,
+                List.of(mouse.getItemId())).stream().map(Item::getItemId).toList());
+        assertEquals(List.of(), itemDao.findPage(null, 10, new ItemFilter(5, null, null, 40, null),
+                List.of(mouse.getItemId())));
+        assertEquals(2, itemDao.findByIds(List.of(laptop.getItemId(), mouse.getItemId())).size());
+        assertEquals("Gaming Mouse", itemDao.findLowStock(5).get(0).getItemName());
+
+        List<String> names = new ArrayList<>();
+        assertEquals(2, itemDao.forEachItem(item -> names.add(item.getItemName())));
+        assertEquals(List.of("Laptop", "Gaming Mouse"), names);
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: Decrements (single and batched) respect the minimum and bump the version
+    // ---------------------------------------------------------------------
+    @Test
+    public void testDecrementsBumpVersion() {
+        long laptop = itemDao.save(new Item("Laptop", 10, 1200)).getItemId();
+        long mouse = itemDao.save(new Item("Gaming Mouse", 3, 50)).getItemId();
+
+        assertEquals(7, itemDao.tryDecrement(laptop, 3, 2));
+        assertNull(itemDao.tryDecrement(laptop, 6, 2)); // would leave 1
+        assertEquals(7, itemDao.findQuantity(laptop));
+        assertEquals(1, itemDao.findById(laptop).getVersion());
+
+        int[] counts = itemDao.tryDecrementBatch(List.of(
+                new PlaceOrderRequest(laptop, 5), new PlaceOrderRequest(mouse, 5)), 2);
+        assertEquals(1, counts[0]);
+        assertEquals(0, counts[1]);
+        assertEquals(2, itemDao.findQuantity(laptop));
+        assertEquals(3, itemDao.findQuantity(mouse));
+
+        itemDao.applyStockDeltas(Map.of(mouse, 4));
+        Item restocked = itemDao.findById(mouse);
+        assertEquals(7, restocked.getQuantity());
+        assertEquals(1, restocked.getVersion());
+        assertEquals(0, itemDao.tryDecrement(mouse, 7, 0)); // the new quantity, even when it is 0
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: A multi-row insert sets every generated id; names are looked up in one query, ignoring case
+    // ---------------------------------------------------------------------
+    @Test
+    public void testSaveAllAndFindIdsByNames() {
+        long laptop = itemDao.save(new Item("Laptop", 10, 1200)).getItemId();
+        List<Item> added = itemDao.saveAll(List.of(
+                new Item("Keyboard", 8, 1500), new Item("Monitor", 5, 9000), new Item("Webcam", 4, 40)));
+
+        assertEquals(List.of(laptop + 1, laptop + 2, laptop + 3), added.stream().map(Item::getItemId).toList());
+        assertEquals("Monitor", itemDao.findById(laptop + 2).getItemName());
+        assertTrue(itemDao.saveAll(List.of()).isEmpty());
+
+        Map<String, Long> ids = itemDao.findIdsByNames(List.of("Laptop", "Webcam", "Headset"));
+        assertEquals(2, ids.size());
+        assertEquals(laptop, ids.get("laptop"));
+        assertEquals(laptop + 3, ids.get("Webcam"));
+        assertTrue(itemDao.findIdsByNames(List.of()).isEmpty());
+    }
+}
@@ -0,0 +1,250 @@
+package com.demo.ecommerce.grpc;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.exception.ItemNotFoundException;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
+import com.demo.ecommerce.model.Item;
+import com.demo.ecommerce.service.ItemService;
+import com.demo.grpc.inventory.GetItemRequest;
+import com.demo.grpc.inventory.GetItemsRequest;
+import com.demo.grpc.inventory.InventoryServiceGrpc;
+import com.demo.grpc.inventory.StockEvent;
+import com.demo.grpc.inventory.WatchStockRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class InventoryGrpcServerTest {
+
+    private final ItemService itemService = mock(ItemService.class);
+    private final StockFeed stockFeed = new StockFeed();
+    private final InventoryConfig inventoryConfig = new InventoryConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InventoryGrpcServer inventoryServer;
+    private Server server;
+    private ManagedChannel channel;
+
+    private InventoryServiceGrpc.InventoryServiceStub connect(String name) throws Exception {
+        inventoryServer = new InventoryGrpcServer(itemService, stockFeed, inventoryConfig, meterRegistry);
+        server = InProcessServerBuilder.forName(name).addService(inventoryServer).build().start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        return InventoryServiceGrpc.newStub(channel);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+        inventoryServer.stop();
+    }
+
+    private static Item item(long id, int quantity) {
+        Item item = new Item("Item " + id, quantity, 100);
+        item.setItemId(id);
+        return item;
+    }
+
+    private static void awaitWatchers(InventoryGrpcServer inventoryServer, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (inventoryServer.watcherCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, inventoryServer.watcherCount());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: GetItem answers from the item service; unknown items are NOT_FOUND
+    // ---------------------------------------------------------------------
+    @Test
+    public void testGetItem() throws Exception {
+        connect("inventory-test-get");
+        when(itemService.getItemById(1L)).thenReturn(item(1, 7));
+        when(itemService.getItemById(2L)).thenThrow(new ItemNotFoundException("Item not found: 2"));
+        InventoryServiceGrpc.InventoryServiceBlockingStub stub = InventoryServiceGrpc.newBlockingStub(channel);
+
+        assertEquals(7, stub.getItem(GetItemRequest.newBuilder().setItemId(1).build()).getQuantity());
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                () -> stub.getItem(GetItemRequest.newBuilder().setItemId(2).build()));
+        assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A watcher gets the snapshot, then only the changes to its items, also from a bulk change
+    // ---------------------------------------------------------------------
+    @Test
+    public void testWatchStockSnapshotThenChanges() throws Exception {
+        InventoryServiceGrpc.InventoryServiceStub stub = connect("inventory-test-watch");
+        when(itemService.getItemsByIds(any())).thenReturn(List.of(item(1, 10)));
+        BlockingQueue<StockEvent> received = new LinkedBlockingQueue<>();
+
+        stub.watchStock(WatchStockRequest.newBuilder().addItemIds(1).setIncludeSnapshot(true).build(),
+                new StreamObserver<>() {
+                    @Override
+                    public void onNext(StockEvent event) {
+                        received.add(event);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+
+        StockEvent snapshot = received.poll(2, TimeUnit.SECONDS);
+        assertNotNull(snapshot);
+        assertEquals(StockEvent.Type.SNAPSHOT, snapshot.getType());
+        assertEquals(10, snapshot.getQuantity());
+
+        stockFeed.publish(new StockChange(2L, "Item 2", 5, -1, false)); // not watched
+        stockFeed.publish(new StockChange(1L, "Item 1", 7, -3, false));
+
+        StockEvent change = received.poll(2, TimeUnit.SECONDS);
+        assertNotNull(change);
+        assertEquals(1, change.getItemId());
+        assertEquals(7, change.getQuantity());
+        assertEquals(-3, change.getDelta());
+        assertEquals(StockEvent.Type.CHANGED, change.getType());
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+
+        stockFeed.publishAll(List.of(new StockChange(3L, "Item 3", 4, 4, true), new StockChange(1L, "Item 1", 6, -1, false)));
+        StockEvent bulk = received.poll(2, TimeUnit.SECONDS);
+        assertNotNull(bulk);
+        assertEquals(1, bulk.getItemId());
+        assertEquals(6, bulk.getQuantity());
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: A client that stops reading is coalesced, then disconnected
+    // ---------------------------------------------------------------------
+    @Test
+    public void testSlowConsumerIsCoalescedThenEvicted() throws Exception {
+        inventoryConfig.getGrpc().setMaxPendingPerWatcher(3);
+        inventoryConfig.getGrpc().setSlowConsumerTimeout(Duration.ofHours(1)); // only the pending bound applies
+        InventoryServiceGrpc.InventoryServiceStub stub = connect("inventory-test-slow");
+        CompletableFuture<Throwable> closed = new CompletableFuture<>();
+
+        stub.watchStock(WatchStockRequest.getDefaultInstance(), new ClientResponseObserver<WatchStockRequest, StockEvent>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<WatchStockRequest> requestStream) {
+                requestStream.disableAutoRequestWithInitial(0); // never asks for a message
+            }
+
+            @Override
+            public void onNext(StockEvent event) {
+                fail("nothing was requested");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                closed.complete(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                closed.complete(null);
+            }
+        });
+        awaitWatchers(inventoryServer, 1);
+
+        // Many changes to one item stay a single pending event
+        for (int i = 0; i < 100; i++) {
+            stockFeed.publish(new StockChange(1L, "Item 1", 100 - i, -1, false));
+        }
+        assertFalse(closed.isDone());
+        assertEquals(99, meterRegistry.counter("inventory.watch.events_coalesced").count());
+
+        // Falling behind on more items than allowed gets the client disconnected
+        for (long itemId = 2; itemId <= 4; itemId++) {
+            stockFeed.publish(new StockChange(itemId, "Item " + itemId, 1, -1, false));
+        }
+        Throwable error = closed.get(2, TimeUnit.SECONDS);
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(error).getCode());
+        assertEquals(1, meterRegistry.counter("inventory.watch.evicted").count());
+        awaitWatchers(inventoryServer, 0);
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4: GetItems needs 1 to max-items-per-request IDs; it never returns the whole catalog
+    // ---------------------------------------------------------------------
+    @Test
+    public void testGetItemsRejectsEmptyAndOversizedRequests() throws Exception {
+        inventoryConfig.getGrpc().setMaxItemsPerRequest(2);
+        connect("inventory-test-get-items");
+        when(itemService.getItemsByIds(List.of(1L, 2L))).thenReturn(List.of(item(1, 7), item(2, 3)));
+        InventoryServiceGrpc.InventoryServiceBlockingStub stub = InventoryServiceGrpc.newBlockingStub(channel);
+
+        assertEquals(2, stub.getItems(GetItemsRequest.newBuilder().addItemIds(1).addItemIds(2).build()).getItemsCount());
+
+        StatusRuntimeException empty = assertThrows(StatusRuntimeException.class,
+                () -> stub.getItems(GetItemsRequest.getDefaultInstance()));
+        assertEquals(Status.Code.INVALID_ARGUMENT, empty.getStatus().getCode());
+        StatusRuntimeException oversized = assertThrows(StatusRuntimeException.class,
+                () -> stub.getItems(GetItemsRequest.newBuilder().addAllItemIds(List.of(1L, 2L, 3L)).build()));
+        assertEquals(Status.Code.INVALID_ARGUMENT, oversized.getStatus().getCode());
+        verify(itemService, never()).findAll();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 5: A whole-catalog snapshot is streamed on the snapshot thread, not the call thread
+    // ---------------------------------------------------------------------
+    @Test
+    public void testWholeCatalogSnapshotIsReadOffTheCallThread() throws Exception {
+        InventoryServiceGrpc.InventoryServiceStub stub = connect("inventory-test-snapshot");
+        CompletableFuture<String> readOn = new CompletableFuture<>();
+        when(itemService.forEachItem(any())).thenAnswer(invocation -> {
+            readOn.complete(Thread.currentThread().getName());
+            Consumer<Item> action = invocation.getArgument(0);
+            action.accept(item(1, 10));
+            action.accept(item(2, 20));
+            return 2L;
+        });
+        BlockingQueue<StockEvent> received = new LinkedBlockingQueue<>();
+
+        stub.watchStock(WatchStockRequest.newBuilder().setIncludeSnapshot(true).build(), new StreamObserver<>() {
+            @Override
+            public void onNext(StockEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+
+        assertEquals("inventory-watch-snapshot", readOn.get(2, TimeUnit.SECONDS));
+        assertEquals(10, received.poll(2, TimeUnit.SECONDS).getQuantity());
+        assertEquals(20, received.poll(2, TimeUnit.SECONDS).getQuantity());
+        verify(itemService, never()).findAll();
+    }
+}
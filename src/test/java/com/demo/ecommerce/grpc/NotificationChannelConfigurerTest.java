@@ -0,0 +1,169 @@
+package com.demo.ecommerce.grpc;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import com.demo.grpc.notification.NotificationRequest;
+import com.demo.grpc.notification.NotificationResponse;
+import com.demo.grpc.notification.NotificationServiceGrpc;
+import com.demo.grpc.notification.NotificationServiceGrpc.NotificationServiceBlockingStub;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotificationChannelConfigurerTest {
+
+    private static final NotificationRequest REQUEST = NotificationRequest.newBuilder()
+            .setItemId("1").setOrderId("order-1").setRequestedQty(3).setUserId("testUser").build();
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    public void tearDown() {
+        if (channel != null) {
+            channel.shutdownNow();
+        }
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts an in-process server whose answer to the n-th call (1-based) is chosen by {@code behaviour}:
+     * a status to fail with, or null to succeed. {@code delayMs} is added before every answer.
+     */
+    private AtomicInteger startServer(String name, long delayMs, IntFunction<Status> behaviour) throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new NotificationServiceGrpc.NotificationServiceImplBase() {
+                    @Override
+                    public void notifyInsufficientStock(NotificationRequest request, StreamObserver<NotificationResponse> observer) {
+                        Status failure = behaviour.apply(calls.incrementAndGet());
+                        try {
+                            Thread.sleep(delayMs);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        if (failure != null) {
+                            observer.onError(failure.asRuntimeException());
+                            return;
+                        }
+                        observer.onNext(NotificationResponse.getDefaultInstance());
+                        observer.onCompleted();
+                    }
+                })
+                .build()
+                .start();
+        return calls;
+    }
+
+    private NotificationServiceBlockingStub connect(String name, NotificationConfig config, NotificationCircuitBreaker breaker) {
+        InProcessChannelBuilder builder = InProcessChannelBuilder.forName(name);
+        new NotificationChannelConfigurer(config, breaker).accept(builder, NotificationChannelConfigurer.CHANNEL);
+        channel = builder.build();
+        return NotificationServiceGrpc.newBlockingStub(channel);
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: With channel retries enabled, UNAVAILABLE is retried by the channel; the caller sees one success
+    // ---------------------------------------------------------------------
+    @Test
+    public void testTransientFailuresAreRetriedByTheChannel() throws Exception {
+        AtomicInteger calls = startServer("channel-test-retry", 0, n -> n < 3 ? Status.UNAVAILABLE : null);
+        NotificationConfig config = new NotificationConfig();
+        config.getChannel().setMaxAttempts(3);
+        config.getChannel().setInitialBackoff(Duration.ofMillis(10));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationCircuitBreaker breaker = new NotificationCircuitBreaker(config, meterRegistry);
+
+        connect("channel-test-retry", config, breaker).notifyInsufficientStock(REQUEST);
+
+        assertEquals(3, calls.get());
+        assertEquals(NotificationCircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(1, meterRegistry.get("notifications.grpc.latency").tag("status", "OK").timer().count());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1b: By default the channel does not retry; the delivery layer owns retries
+    // ---------------------------------------------------------------------
+    @Test
+    public void testChannelDoesNotRetryByDefault() throws Exception {
+        AtomicInteger calls = startServer("channel-test-no-retry", 0, n -> n < 3 ? Status.UNAVAILABLE : null);
+        NotificationConfig config = new NotificationConfig();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationServiceBlockingStub stub = connect("channel-test-no-retry", config,
+                new NotificationCircuitBreaker(config, meterRegistry));
+
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> stub.notifyInsufficientStock(REQUEST));
+        assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+        assertEquals(1, calls.get());
+
+        // The latency timer is registered once and reused
+        assertThrows(StatusRuntimeException.class, () -> stub.notifyInsufficientStock(REQUEST));
+        assertEquals(2, meterRegistry.get("notifications.grpc.latency").tag("status", "UNAVAILABLE").timer().count());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A slow server runs into the default deadline
+    // ---------------------------------------------------------------------
+    @Test
+    public void testCallsWithoutDeadlineGetTheDefault() throws Exception {
+        startServer("channel-test-slow", 1_000, n -> null);
+        NotificationConfig config = new NotificationConfig();
+        config.setDeadline(Duration.ofMillis(100));
+        NotificationCircuitBreaker breaker = new NotificationCircuitBreaker(config, new SimpleMeterRegistry());
+        NotificationServiceBlockingStub stub = connect("channel-test-slow", config, breaker);
+
+        long started = System.nanoTime();
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> stub.notifyInsufficientStock(REQUEST));
+
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, e.getStatus().getCode());
+        assertTrue(System.nanoTime() - started < 900_000_000L, "should not wait for the slow server");
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: Repeated failures open the breaker; it half-opens after the open duration
+    // ---------------------------------------------------------------------
+    @Test
+    public void testBreakerOpensFailsFastAndRecovers() throws Exception {
+        AtomicInteger failuresLeft = new AtomicInteger(3);
+        AtomicInteger calls = startServer("channel-test-breaker", 0,
+                n -> failuresLeft.getAndDecrement() > 0 ? Status.INTERNAL : null);
+        NotificationConfig config = new NotificationConfig();
+        config.getCircuitBreaker().setFailureThreshold(3);
+        config.getCircuitBreaker().setOpenDuration(Duration.ofMillis(200));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationCircuitBreaker breaker = new NotificationCircuitBreaker(config, meterRegistry);
+        NotificationServiceBlockingStub stub = connect("channel-test-breaker", config, breaker);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(StatusRuntimeException.class, () -> stub.notifyInsufficientStock(REQUEST));
+        }
+        assertEquals(NotificationCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(2, meterRegistry.get("notifications.grpc.circuit_state").gauge().value());
+
+        // Open: rejected without reaching the server
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> stub.notifyInsufficientStock(REQUEST));
+        assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+        assertEquals(3, calls.get());
+        assertEquals(1, meterRegistry.counter("notifications.grpc.short_circuited").count());
+
+        // After the open duration the trial call goes through and closes the breaker
+        Thread.sleep(250);
+        stub.notifyInsufficientStock(REQUEST);
+        assertEquals(4, calls.get());
+        assertEquals(NotificationCircuitBreaker.State.CLOSED, breaker.state());
+    }
+}
@@ -0,0 +1,95 @@
+package com.demo.ecommerce.image;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.image.ItemImageStore.StoredImage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemImageSenderTest {
+
+    @TempDir
+    Path dir;
+
+    private ItemImageSender sender;
+    private StoredImage image;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        InventoryConfig config = new InventoryConfig();
+        config.getImages().setDir(dir.toString());
+        config.getImages().setCacheMaxImageSize(DataSize.ofBytes(8)); // the test image is sent from the file
+        ItemImageStore store = new ItemImageStore(config, new SimpleMeterRegistry());
+        sender = new ItemImageSender(store, config);
+        image = store.save(1, new ByteArrayInputStream(ItemImageStoreTest.PNG));
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request, boolean versioned) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        sender.send(image, versioned, request, response);
+        return response;
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Whole image with the hash ETag; versioned URLs are cached for good; 304 on a match
+    // ---------------------------------------------------------------------
+    @Test
+    public void testWholeImageAndConditionalGet() throws IOException {
+        MockHttpServletResponse whole = get(new MockHttpServletRequest("GET", "/api/items/1/image"), true);
+        assertEquals(200, whole.getStatus());
+        assertEquals("image/png", whole.getContentType());
+        assertArrayEquals(ItemImageStoreTest.PNG, whole.getContentAsByteArray());
+        assertEquals(image.etag(), whole.getHeader("ETag"));
+        assertEquals("max-age=31536000, private, immutable", whole.getHeader("Cache-Control"));
+
+        MockHttpServletRequest revalidate = new MockHttpServletRequest("GET", "/api/items/1/image");
+        revalidate.addHeader("If-None-Match", "\"other\", " + image.etag());
+        MockHttpServletResponse notModified = get(revalidate, false);
+        assertEquals(304, notModified.getStatus());
+        assertEquals("max-age=3600, private", notModified.getHeader("Cache-Control"));
+        assertEquals(0, notModified.getContentAsByteArray().length);
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: Byte ranges: 206 with Content-Range, suffix ranges, 416, and If-Range for another image
+    // ---------------------------------------------------------------------
+    @Test
+    public void testRanges() throws IOException {
+        byte[] png = ItemImageStoreTest.PNG;
+
+        MockHttpServletRequest middle = new MockHttpServletRequest("GET", "/api/items/1/image");
+        middle.addHeader("Range", "bytes=1-3");
+        MockHttpServletResponse partial = get(middle, false);
+        assertEquals(206, partial.getStatus());
+        assertEquals("bytes 1-3/" + png.length, partial.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(png, 1, 4), partial.getContentAsByteArray());
+
+        MockHttpServletRequest tail = new MockHttpServletRequest("GET", "/api/items/1/image");
+        tail.addHeader("Range", "bytes=-4");
+        assertArrayEquals(Arrays.copyOfRange(png, png.length - 4, png.length), get(tail, false).getContentAsByteArray());
+
+        MockHttpServletRequest beyond = new MockHttpServletRequest("GET", "/api/items/1/image");
+        beyond.addHeader("Range", "bytes=100-");
+        MockHttpServletResponse unsatisfiable = get(beyond, false);
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */" + png.length, unsatisfiable.getHeader("Content-Range"));
+
+        MockHttpServletRequest changed = new MockHttpServletRequest("GET", "/api/items/1/image");
+        changed.addHeader("Range", "bytes=1-3");
+        changed.addHeader("If-Range", "\"an-older-image\"");
+        MockHttpServletResponse full = get(changed, false);
+        assertEquals(200, full.getStatus());
+        assertArrayEquals(png, full.getContentAsByteArray());
+    }
+}
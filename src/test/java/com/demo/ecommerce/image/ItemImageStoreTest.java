@@ -0,0 +1,109 @@
+package com.demo.ecommerce.image;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.image.ItemImageStore.StoredImage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemImageStoreTest {
+
+    static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+    static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F', 0, 1};
+
+    @TempDir
+    Path dir;
+
+    private InventoryConfig config;
+    private ItemImageStore store;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        config = new InventoryConfig();
+        config.getImages().setDir(dir.toString());
+        config.getImages().setMaxUploadSize(DataSize.ofBytes(64));
+        store = new ItemImageStore(config, new SimpleMeterRegistry());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Identical images share one blob; re-upload moves the item's pointer, also across restarts
+    // ---------------------------------------------------------------------
+    @Test
+    public void testContentAddressedAndReplaced() throws IOException {
+        StoredImage first = store.save(1, new ByteArrayInputStream(PNG));
+        StoredImage shared = store.save(2, new ByteArrayInputStream(PNG));
+
+        assertEquals("image/png", first.contentType());
+        assertEquals(PNG.length, first.size());
+        assertEquals(first.path(), shared.path());
+        assertArrayEquals(PNG, Files.readAllBytes(first.path()));
+        assertEquals("\"" + first.hash() + "\"", first.etag());
+
+        StoredImage replaced = store.save(1, new ByteArrayInputStream(JPEG));
+        assertNotEquals(first.hash(), replaced.hash());
+        assertEquals(replaced, store.find(1).orElseThrow());
+
+        ItemImageStore restarted = new ItemImageStore(config, new SimpleMeterRegistry());
+        assertEquals(replaced, restarted.find(1).orElseThrow());
+        assertEquals(first, restarted.find(2).orElseThrow());
+        assertTrue(restarted.find(3).isEmpty());
+        assertArrayEquals(JPEG, restarted.cachedBytes(replaced));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: Non-images, empty and oversized uploads are rejected and leave nothing behind
+    // ---------------------------------------------------------------------
+    @Test
+    public void testRejectedUploads() throws IOException {
+        IllegalArgumentException notImage = assertThrows(IllegalArgumentException.class,
+                () -> store.save(1, new ByteArrayInputStream("<html>hello</html>".getBytes())));
+        assertTrue(notImage.getMessage().startsWith("Unsupported image format"));
+        assertThrows(IllegalArgumentException.class, () -> store.save(1, new ByteArrayInputStream(new byte[0])));
+
+        byte[] oversized = Arrays.copyOf(PNG, 65);
+        IllegalArgumentException tooLarge = assertThrows(IllegalArgumentException.class,
+                () -> store.save(1, new ByteArrayInputStream(oversized)));
+        assertEquals("Image is larger than 64 bytes", tooLarge.getMessage());
+
+        assertTrue(store.find(1).isEmpty());
+        try (var uploads = Files.list(dir.resolve("uploads"))) {
+            assertEquals(0, uploads.count());
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: Lookups of many item IDs without images stay within pointer-cache-size;
+    //         an image uploaded after a miss is found
+    // ---------------------------------------------------------------------
+    @Test
+    public void testPointerCacheIsBounded() throws Exception {
+        config.getImages().setPointerCacheSize(2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ItemImageStore bounded = new ItemImageStore(config, meterRegistry);
+
+        assertTrue(bounded.find(1).isEmpty());
+        for (long id = 100; id < 1_100; id++) {
+            assertTrue(bounded.find(id).isEmpty());
+        }
+        long deadline = System.currentTimeMillis() + 2_000;
+        double size;
+        while ((size = meterRegistry.get("cache.size").tag("cache", "item_image_pointers").gauge().value()) > 2
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5); // Caffeine evicts in the background
+        }
+        assertTrue(size <= 2, "pointer cache holds " + size + " entries");
+
+        StoredImage image = bounded.save(1, new ByteArrayInputStream(PNG));
+        assertEquals(image, bounded.find(1).orElseThrow());
+    }
+}
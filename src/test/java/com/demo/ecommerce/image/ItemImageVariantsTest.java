@@ -0,0 +1,141 @@
+package com.demo.ecommerce.image;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.image.ItemImageStore.StoredImage;
+import com.demo.ecommerce.image.ItemImageVariants.Size;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemImageVariantsTest {
+
+    @TempDir
+    Path dir;
+
+    private ItemImageStore store;
+    private ItemImageVariants variants;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        InventoryConfig config = new InventoryConfig();
+        config.getImages().setDir(dir.toString());
+        store = new ItemImageStore(config, new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        variants = new ItemImageVariants(config, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        variants.stop();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, 0, 0xFF336699);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage read(StoredImage image) throws IOException {
+        return ImageIO.read(image.path().toFile());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: One job writes every size as a JPEG within its bounding box, keeping the aspect ratio
+    // ---------------------------------------------------------------------
+    @Test
+    public void testVariantsScaledDownToEachSize() throws IOException {
+        StoredImage original = store.save(1, new ByteArrayInputStream(png(2000, 1000)));
+        assertNull(variants.find(original, Size.THUMB)); // not made yet: the original is sent
+
+        variants.generate(original);
+
+        StoredImage thumb = variants.find(original, Size.THUMB);
+        assertEquals("image/jpeg", thumb.contentType());
+        assertEquals(original.hash() + "-thumb", thumb.hash());
+        assertEquals(original.path().getParent(), thumb.path().getParent());
+        BufferedImage thumbPixels = read(thumb);
+        assertEquals(160, thumbPixels.getWidth());
+        assertEquals(80, thumbPixels.getHeight());
+        assertEquals(480, read(variants.find(original, Size.CARD)).getWidth());
+        assertEquals(1200, read(variants.find(original, Size.FULL)).getWidth());
+
+        // Small images are never scaled up
+        StoredImage small = store.save(2, new ByteArrayInputStream(png(100, 50)));
+        variants.generate(small);
+        assertEquals(100, read(variants.find(small, Size.FULL)).getWidth());
+        assertEquals(100, read(variants.find(small, Size.THUMB)).getWidth());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: Asking for a missing variant queues its job; WebP is served as uploaded; unknown sizes are rejected
+    // ---------------------------------------------------------------------
+    @Test
+    public void testMissingVariantQueuedInBackground() throws Exception {
+        StoredImage original = store.save(1, new ByteArrayInputStream(png(600, 600)));
+        assertNull(variants.find(original, Size.CARD));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        StoredImage card;
+        while ((card = variants.find(original, Size.CARD)) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(card);
+        assertEquals(480, read(card).getHeight());
+
+        byte[] webp = {'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'};
+        StoredImage webpImage = store.save(2, new ByteArrayInputStream(webp));
+        assertNull(variants.find(webpImage, Size.THUMB));
+
+        assertEquals(Size.THUMB, Size.fromParam("Thumb"));
+        assertThrows(IllegalArgumentException.class, () -> Size.fromParam("huge"));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: A job that fails on I/O is retried on the next request; an undecodable image is not
+    // ---------------------------------------------------------------------
+    @Test
+    public void testIoFailureIsRetriedDecodeFailureIsNot() throws Exception {
+        StoredImage original = store.save(1, new ByteArrayInputStream(png(600, 600)));
+        // A non-empty directory where the thumb goes: its move fails
+        Path blocked = original.path().resolveSibling(original.hash() + ".thumb.jpg");
+        Files.createDirectories(blocked.resolve("x"));
+        variants.generate(original);
+        assertEquals(1, meterRegistry.counter("image.variants.failed").count());
+
+        Files.delete(blocked.resolve("x"));
+        Files.delete(blocked);
+        assertNull(variants.find(original, Size.THUMB)); // queues the job again
+        long deadline = System.currentTimeMillis() + 5_000;
+        StoredImage thumb;
+        while ((thumb = variants.find(original, Size.THUMB)) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(thumb);
+
+        byte[] corrupt = Arrays.copyOf(png(10, 10), 40); // PNG header, truncated data
+        StoredImage broken = store.save(2, new ByteArrayInputStream(corrupt));
+        variants.generate(broken);
+        assertEquals(2, meterRegistry.counter("image.variants.failed").count());
+        assertNull(variants.find(broken, Size.THUMB)); // not queued again
+        Thread.sleep(200);
+        assertEquals(2, meterRegistry.counter("image.variants.failed").count());
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.ecommerce.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedTimingWheelTest {
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Timeouts fire on their deadline tick, including after full wheel turns
+    // ---------------------------------------------------------------------
+    @Test
+    public void testTimeoutsExpireOnTheirTick() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        wheel.schedule("soon", 25);   // tick 3
+        wheel.schedule("later", 205); // tick 21: same bucket as tick 5, two turns later
+
+        assertEquals(List.of(), wheel.advance(20));
+        assertEquals(List.of("soon"), wheel.advance(30));
+        assertEquals(List.of(), wheel.advance(200));
+        assertEquals(List.of("later"), wheel.advance(210));
+        assertEquals(0, wheel.size());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: Cancelled timeouts never fire; overdue deadlines fire on the next tick
+    // ---------------------------------------------------------------------
+    @Test
+    public void testCancelAndOverdueDeadlines() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        wheel.advance(100);
+
+        HashedTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 150);
+        wheel.schedule("overdue", 50);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(List.of("overdue"), wheel.advance(110));
+        assertEquals(List.of(), wheel.advance(1000));
+    }
+}
@@ -0,0 +1,79 @@
+package com.demo.ecommerce.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryJournalTest {
+
+    @TempDir
+    Path dir;
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Records survive a restart, across rolled segments
+    // ---------------------------------------------------------------------
+    @Test
+    public void testReplayAfterRestart() throws IOException {
+        InventoryJournal journal = new InventoryJournal(dir, true);
+        journal.open(0);
+        journal.sync(journal.append(101L, -3));
+        assertEquals(1, journal.roll());
+        journal.sync(journal.append(102L, -1));
+        journal.close();
+
+        List<InventoryJournal.Entry> entries = new InventoryJournal(dir, true).readAll();
+
+        assertEquals(List.of(
+                new InventoryJournal.Entry(1, 101L, -3),
+                new InventoryJournal.Entry(2, 102L, -1)), entries);
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A torn record at the tail (crash mid-write) ends replay cleanly
+    // ---------------------------------------------------------------------
+    @Test
+    public void testTornTailIsIgnored() throws IOException {
+        InventoryJournal journal = new InventoryJournal(dir, false);
+        journal.open(0);
+        journal.append(7L, -2);
+        journal.append(7L, -5);
+        journal.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(InventoryJournal.RECORD_SIZE + 10);
+        }
+
+        List<InventoryJournal.Entry> entries = new InventoryJournal(dir, false).readAll();
+
+        assertEquals(List.of(new InventoryJournal.Entry(1, 7L, -2)), entries);
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: Sealed segments are removed once checkpointed, the active one stays
+    // ---------------------------------------------------------------------
+    @Test
+    public void testDeleteSealedSegmentsKeepsActive() throws IOException {
+        InventoryJournal journal = new InventoryJournal(dir, false);
+        journal.open(0);
+        journal.append(1L, -1);
+        journal.roll();
+        journal.append(1L, -1);
+        journal.deleteSealedSegments();
+        journal.close();
+
+        assertEquals(List.of(new InventoryJournal.Entry(2, 1L, -1)), new InventoryJournal(dir, false).readAll());
+    }
+}
@@ -0,0 +1,57 @@
+package com.demo.ecommerce.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LowStockIndexTest {
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Items enter below the threshold, stay sorted by stock and leave when restocked
+    // ---------------------------------------------------------------------
+    @Test
+    public void testItemsAreSortedAndLeaveWhenRestocked() {
+        LowStockIndex index = new LowStockIndex(10);
+        StockCounter laptop = new StockCounter(12);
+        StockCounter mouse = new StockCounter(4);
+        StockCounter cable = new StockCounter(9);
+        index.update(1, laptop::get);
+        index.update(2, mouse::get);
+        index.update(3, cable::get);
+
+        assertEquals(List.of(new LowStockIndex.Entry(2, 4), new LowStockIndex.Entry(3, 9)), index.entries());
+
+        laptop.tryDecrement(10, 0);
+        index.update(1, laptop::get);
+        cable.add(1);
+        index.update(3, cable::get);
+
+        assertEquals(List.of(new LowStockIndex.Entry(1, 2), new LowStockIndex.Entry(2, 4)), index.entries());
+        assertEquals(2, index.size());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: Concurrent decrements of one item leave its final quantity in the index
+    // ---------------------------------------------------------------------
+    @Test
+    public void testConcurrentUpdatesKeepLatestQuantity() throws InterruptedException {
+        LowStockIndex index = new LowStockIndex(1_000);
+        StockCounter counter = new StockCounter(900);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 800; i++) {
+            pool.execute(() -> {
+                counter.tryDecrement(1, 0);
+                index.update(7, counter::get);
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of(new LowStockIndex.Entry(7, 100)), index.entries());
+    }
+}
@@ -0,0 +1,188 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dao.ItemDao;
+import com.demo.ecommerce.exception.OrderOutcomeUnknownException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class OrderGroupCommitterTest {
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Concurrent orders on one item are coalesced and never oversell
+    // ---------------------------------------------------------------------
+    @Test
+    public void testHotItemOrdersAreBatchedWithoutOverselling() {
+        AtomicInteger stock = new AtomicInteger(50);
+        ItemDao itemDao = mock(ItemDao.class);
+        when(itemDao.findQuantityForUpdate(anyLong())).thenAnswer(invocation -> stock.get());
+        doAnswer(invocation -> {
+            Map<Long, Integer> deltas = invocation.getArgument(0);
+            deltas.values().forEach(stock::addAndGet);
+            return null;
+        }).when(itemDao).applyStockDeltas(any());
+
+        InventoryConfig inventoryConfig = new InventoryConfig(); // minimumStock = 2
+        inventoryConfig.getGroupCommit().setWindowMicros(2000);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderGroupCommitter committer = new OrderGroupCommitter(
+                itemDao, mock(PlatformTransactionManager.class), inventoryConfig, meterRegistry);
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            results.add(committer.submit(1L, 1));
+        }
+        long accepted = results.stream().map(CompletableFuture::join).filter(Objects::nonNull).count();
+
+        assertEquals(48, accepted);
+        assertEquals(2, stock.get());
+
+        DistributionSummary batchSizes = meterRegistry.get("inventory.group_commit.batch_size").summary();
+        assertTrue(batchSizes.count() < 100, "orders should share commits");
+        assertEquals(100, (long) batchSizes.totalAmount());
+        committer.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A running drain takes an order whose own drain then loses the tryLock; later orders still drain
+    // ---------------------------------------------------------------------
+    @Test
+    public void testNoLostWakeupWhenDrainLosesTheLock() throws Exception {
+        AtomicInteger stock = new AtomicInteger(100);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch finishCommit = new CountDownLatch(1);
+        ItemDao itemDao = mock(ItemDao.class);
+        when(itemDao.findQuantityForUpdate(anyLong())).thenAnswer(invocation -> {
+            committing.countDown();
+            finishCommit.await();
+            return stock.get();
+        });
+        doAnswer(invocation -> {
+            Map<Long, Integer> deltas = invocation.getArgument(0);
+            deltas.values().forEach(stock::addAndGet);
+            return null;
+        }).when(itemDao).applyStockDeltas(any());
+
+        // The submitter reads the batch size after queueing its order and before arming: pause it there
+        CountDownLatch submitterPaused = new CountDownLatch(1);
+        CountDownLatch resumeSubmitter = new CountDownLatch(1);
+        InventoryConfig.GroupCommit groupCommit = spy(new InventoryConfig.GroupCommit());
+        groupCommit.setWindowMicros(50_000);
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("submitter") && submitterPaused.getCount() > 0) {
+                submitterPaused.countDown();
+                resumeSubmitter.await();
+            }
+            return invocation.callRealMethod();
+        }).when(groupCommit).getMaxBatchSize();
+        InventoryConfig inventoryConfig = spy(new InventoryConfig());
+        when(inventoryConfig.getGroupCommit()).thenReturn(groupCommit);
+        OrderGroupCommitter committer = new OrderGroupCommitter(
+                itemDao, mock(PlatformTransactionManager.class), inventoryConfig, new SimpleMeterRegistry());
+
+        // 1. The first order arms the window; the second is queued, its submitter paused before arming
+        CompletableFuture<Integer> first = committer.submit(1L, 1);
+        AtomicReference<CompletableFuture<Integer>> second = new AtomicReference<>();
+        Thread submitter = new Thread(() -> second.set(committer.submit(1L, 2)), "submitter");
+        submitter.start();
+        assertTrue(submitterPaused.await(5, TimeUnit.SECONDS));
+
+        // 2. The window closes: the drain clears armed and takes both orders, then holds the lock committing
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+
+        // 3. The submitter arms again and schedules a drain, which loses the tryLock
+        resumeSubmitter.countDown();
+        submitter.join();
+        Thread.sleep(300);
+
+        // 4. The running drain finds the queue empty and finishes
+        finishCommit.countDown();
+        assertEquals(99, first.get(5, TimeUnit.SECONDS));
+        assertEquals(97, second.get().get(5, TimeUnit.SECONDS));
+
+        // A later order below the batch size must still get a drain of its own
+        assertEquals(96, committer.submit(1L, 1).get(2, TimeUnit.SECONDS));
+        committer.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: A commit slower than commit-timeout-ms still reports its outcome; an order still queued
+    //         behind it times out and is never applied
+    // ---------------------------------------------------------------------
+    @Test
+    public void testTakenOrderWaitsForItsCommitQueuedOrderTimesOut() throws Exception {
+        AtomicInteger stock = new AtomicInteger(100);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch finishCommit = new CountDownLatch(1);
+        ItemDao itemDao = mock(ItemDao.class);
+        when(itemDao.findQuantityForUpdate(anyLong())).thenAnswer(invocation -> {
+            committing.countDown();
+            finishCommit.await(); // e.g. waiting for the row lock
+            return stock.get();
+        });
+        doAnswer(invocation -> {
+            Map<Long, Integer> deltas = invocation.getArgument(0);
+            deltas.values().forEach(stock::addAndGet);
+            return null;
+        }).when(itemDao).applyStockDeltas(any());
+
+        InventoryConfig inventoryConfig = new InventoryConfig();
+        inventoryConfig.getGroupCommit().setWindowMicros(1000);
+        inventoryConfig.getGroupCommit().setCommitTimeoutMs(100);
+        OrderGroupCommitter committer = new OrderGroupCommitter(
+                itemDao, mock(PlatformTransactionManager.class), inventoryConfig, new SimpleMeterRegistry());
+
+        CompletableFuture<Integer> taken = committer.submit(1L, 1);
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = committer.submit(1L, 2); // its drain waits for the running one
+        Thread.sleep(300);
+
+        assertFalse(taken.isDone());
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, timedOut.getCause());
+
+        finishCommit.countDown();
+        assertEquals(99, taken.get(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(99, stock.get()); // the timed-out order was dropped
+        committer.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4: A failing commit leaves the outcome unknown rather than reporting the order as not applied
+    // ---------------------------------------------------------------------
+    @Test
+    public void testFailedCommitIsOutcomeUnknown() {
+        ItemDao itemDao = mock(ItemDao.class);
+        when(itemDao.findQuantityForUpdate(anyLong())).thenReturn(10);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        doThrow(new TransactionSystemException("connection lost")).when(transactionManager).commit(any());
+        OrderGroupCommitter committer = new OrderGroupCommitter(
+                itemDao, transactionManager, new InventoryConfig(), new SimpleMeterRegistry());
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> committer.submit(1L, 1).join());
+        assertInstanceOf(OrderOutcomeUnknownException.class, failure.getCause());
+        committer.stop();
+    }
+}
@@ -0,0 +1,226 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dao.ItemDao;
+import com.demo.ecommerce.dao.OrderLedgerDao;
+import com.demo.ecommerce.model.InventoryCheckpoint;
+import com.demo.ecommerce.model.Item;
+import com.demo.ecommerce.model.LedgerEntryType;
+import com.demo.ecommerce.model.OrderLedgerEntry;
+import com.demo.ecommerce.repository.InventoryCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class OrderLedgerTest {
+
+    private final AtomicInteger stock = new AtomicInteger(10);
+    private final List<OrderLedgerEntry> rows = new CopyOnWriteArrayList<>(); // in-memory ledger: ids are list positions
+    private final AtomicReference<InventoryCheckpoint> checkpoint = new AtomicReference<>();
+    private final AtomicReference<Runnable> onNextRead = new AtomicReference<>();
+    private final AtomicInteger batches = new AtomicInteger();
+    private ItemDao itemDao;
+    private OrderLedgerDao ledgerDao;
+    private InventoryCheckpointRepository checkpointRepository;
+    private OrderLedger ledger;
+
+    @BeforeEach
+    public void setUp() {
+        itemDao = mock(ItemDao.class);
+        when(itemDao.findQuantity(1L)).thenAnswer(invocation -> {
+            Runnable hook = onNextRead.getAndSet(null);
+            if (hook != null) {
+                hook.run();
+            }
+            return stock.get();
+        });
+        when(itemDao.findById(1L)).thenAnswer(invocation -> {
+            Item item = new Item("Laptop", stock.get(), 1000);
+            item.setItemId(1L);
+            return item;
+        });
+        doAnswer(invocation -> {
+            Map<Long, Integer> deltas = invocation.getArgument(0);
+            deltas.values().forEach(stock::addAndGet);
+            return null;
+        }).when(itemDao).applyStockDeltas(any());
+
+        ledgerDao = mock(OrderLedgerDao.class);
+        doAnswer(invocation -> {
+            batches.incrementAndGet();
+            return rows.addAll(invocation.getArgument(0));
+        }).when(ledgerDao).insertBatch(any());
+        when(ledgerDao.maxId()).thenAnswer(invocation -> (long) rows.size());
+        when(ledgerDao.sumDeltas(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            long upTo = invocation.getArgument(1);
+            return rows.subList((int) after, (int) upTo).stream()
+                    .filter(row -> row.getEntryType() != LedgerEntryType.OPENING)
+                    .collect(Collectors.toMap(OrderLedgerEntry::getItemId, OrderLedgerEntry::getQuantityDelta, Integer::sum));
+        });
+
+        checkpointRepository = mock(InventoryCheckpointRepository.class);
+        when(checkpointRepository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(checkpoint.get()));
+        when(checkpointRepository.save(any())).thenAnswer(invocation -> {
+            checkpoint.set(invocation.getArgument(0));
+            return checkpoint.get();
+        });
+
+        InventoryConfig inventoryConfig = new InventoryConfig(); // minimumStock = 2
+        inventoryConfig.getLedger().setProjectIntervalMs(60_000); // project by hand below
+        ledger = new OrderLedger(itemDao, ledgerDao, checkpointRepository,
+                mock(PlatformTransactionManager.class), inventoryConfig);
+        ledger.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        ledger.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Orders are appended without touching the item row, then projected
+    // ---------------------------------------------------------------------
+    @Test
+    public void testOrdersAreAppendedAndProjectedWithoutOverselling() {
+        List<CompletableFuture<Integer>> results = IntStream.range(0, 20)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> ledger.tryAppend(1L, 1, 2)))
+                .toList();
+        long accepted = results.stream().map(CompletableFuture::join).filter(Objects::nonNull).count();
+
+        assertEquals(8, accepted);
+        assertEquals(8, rows.size());
+        assertEquals(10, stock.get(), "orders must not update the item row");
+        verify(itemDao, never()).tryDecrement(anyLong(), anyInt(), anyInt());
+
+        ledger.project();
+        assertEquals(2, stock.get());
+        assertEquals(8L, checkpoint.get().getLastSeq());
+        assertEquals(2, ledger.overlay(itemDao.findById(1L)).getQuantity());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A projection committing while an order reads the stock is not counted twice
+    // ---------------------------------------------------------------------
+    @Test
+    public void testProjectionDuringOrderIsNotCountedTwice() {
+        stock.set(3);
+        ledger.release(1L, 5); // unprojected +5: 8 units available
+
+        // The order has read unprojected (+5) when the projector moves those 5 units into the row
+        onNextRead.set(() -> CompletableFuture.runAsync(ledger::project).join());
+
+        assertNull(ledger.tryAppend(1L, 8, 2), "8 available: taking 8 would leave 0, below the minimum of 2");
+        assertEquals(8, stock.get());
+        assertEquals(6, ledger.tryAppend(1L, 2, 2));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: An opening entry waits for the item's transaction, and is not written if it rolls back
+    // ---------------------------------------------------------------------
+    @Test
+    public void testOpeningEntryIsWrittenAfterCommitOnly() {
+        Item created = new Item("Monitor", 5, 9000);
+        created.setItemId(2L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ledger.open(created);
+            assertTrue(rows.isEmpty());
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync ->
+                    sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(rows.isEmpty());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ledger.open(created);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(LedgerEntryType.OPENING), rows.stream().map(OrderLedgerEntry::getEntryType).toList());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4: Orders decide on the table's quantity, never the item cache; a rebuild marks the cache stale
+    // ---------------------------------------------------------------------
+    @Test
+    public void testOrdersReadUncachedQuantityAndRebuildMarksCacheStale() {
+        assertEquals(7, ledger.tryAppend(1L, 3, 2));
+        verify(itemDao, never()).findById(anyLong());
+        verify(itemDao, never()).findCatalogEntry(anyLong());
+
+        ledger.rebuildProjection();
+        verify(itemDao).markAllQuantitiesStale();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 5: Opening entries of a bulk import chunk are written together, not one round trip per item
+    // ---------------------------------------------------------------------
+    @Test
+    public void testBulkOpeningEntriesAreBatched() {
+        List<Item> created = IntStream.rangeClosed(1, 1_000).mapToObj(i -> {
+            Item item = new Item("Item " + i, i, 100);
+            item.setItemId(100L + i);
+            return item;
+        }).toList();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ledger.open(created);
+            assertTrue(rows.isEmpty());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1_000, rows.size());
+        assertEquals(created.stream().map(Item::getItemId).toList(), rows.stream().map(OrderLedgerEntry::getItemId).toList());
+        assertTrue(batches.get() <= 10, "written in " + batches.get() + " batches"); // max-batch-size 256
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 6: rebuild-on-start recomputes quantities up to the high-water mark before orders are taken
+    // ---------------------------------------------------------------------
+    @Test
+    public void testRebuildOnStart() throws InterruptedException {
+        assertEquals(7, ledger.tryAppend(1L, 3, 2));
+        ledger.project(); // high-water mark 1
+        verify(ledgerDao, never()).rebuildQuantities(anyLong());
+
+        InventoryConfig inventoryConfig = new InventoryConfig();
+        inventoryConfig.getLedger().setProjectIntervalMs(60_000);
+        inventoryConfig.getLedger().setRebuildOnStart(true);
+        OrderLedger restarted = new OrderLedger(itemDao, ledgerDao, checkpointRepository,
+                mock(PlatformTransactionManager.class), inventoryConfig);
+        restarted.start();
+        try {
+            verify(ledgerDao).rebuildQuantities(1L);
+            verify(itemDao).markAllQuantitiesStale();
+        } finally {
+            restarted.stop();
+        }
+    }
+}
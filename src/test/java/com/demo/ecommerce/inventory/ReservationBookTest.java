@@ -0,0 +1,96 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.model.ReservationHold;
+import com.demo.ecommerce.repository.ReservationHoldRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ReservationBookTest {
+
+    private ReservationBook newBook(ReservationHoldRepository repository) {
+        InventoryConfig inventoryConfig = new InventoryConfig();
+        inventoryConfig.getReservation().setTtl(Duration.ofMinutes(5));
+        return new ReservationBook(inventoryConfig, repository, new SimpleMeterRegistry());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Expired holds go back in one batch; taken holds never expire
+    // ---------------------------------------------------------------------
+    @Test
+    public void testExpiredHoldsAreReturnedTogether() {
+        ReservationHoldRepository repository = mock(ReservationHoldRepository.class);
+        ReservationBook book = newBook(repository);
+        List<Map<Long, Integer>> returned = new ArrayList<>();
+        book.onExpiry(returned::add);
+
+        for (int i = 0; i < 1000; i++) {
+            book.hold(1L + i % 2, 1, "alice");
+        }
+        ReservationBook.Reservation confirmed = book.hold(1L, 5, "alice");
+        assertEquals(confirmed, book.take(confirmed.id(), "alice"));
+        assertNull(book.take(confirmed.id(), "alice"));
+        verify(repository, times(1001)).save(any(ReservationHold.class));
+        verify(repository).deleteById(confirmed.id());
+
+        book.expire(System.currentTimeMillis() + Duration.ofMinutes(6).toMillis());
+
+        assertEquals(List.of(Map.of(1L, 500, 2L, 500)), returned);
+        assertEquals(0, book.size());
+        verify(repository).deleteAllByIdInBatch(argThat(ids -> ((List<?>) ids).size() == 1000));
+        book.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: Only the owner can take a hold; anyone else sees it as unknown
+    // ---------------------------------------------------------------------
+    @Test
+    public void testOnlyOwnerCanTakeHold() {
+        ReservationHoldRepository repository = mock(ReservationHoldRepository.class);
+        ReservationBook book = newBook(repository);
+        ReservationBook.Reservation hold = book.hold(7L, 2, "alice");
+
+        assertNull(book.take(hold.id(), "mallory"));
+        assertEquals(1, book.size());
+        verify(repository, never()).deleteById(any());
+
+        assertEquals(hold, book.take(hold.id(), "alice"));
+        assertEquals(0, book.size());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: Stored holds come back on start; overdue ones return their stock
+    // ---------------------------------------------------------------------
+    @Test
+    public void testStoredHoldsAreRestoredOnStart() {
+        ReservationHoldRepository repository = mock(ReservationHoldRepository.class);
+        Instant now = Instant.now();
+        when(repository.findAll()).thenReturn(List.of(
+                new ReservationHold("overdue", 1L, 4, "alice", now.minus(Duration.ofMinutes(1))),
+                new ReservationHold("live", 2L, 3, "bob", now.plus(Duration.ofMinutes(5)))));
+        ReservationBook book = newBook(repository);
+        List<Map<Long, Integer>> returned = new ArrayList<>();
+        book.onExpiry(returned::add);
+
+        book.restore();
+        assertEquals(2, book.size());
+
+        book.expire(System.currentTimeMillis() + 1000);
+        assertEquals(List.of(Map.of(1L, 4)), returned);
+        verify(repository).deleteAllByIdInBatch(List.of("overdue"));
+
+        // The restored live hold keeps its owner
+        assertNull(book.take("live", "alice"));
+        assertEquals(3, book.take("live", "bob").quantity());
+    }
+}
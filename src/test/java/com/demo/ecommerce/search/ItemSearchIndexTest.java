@@ -0,0 +1,116 @@
+package com.demo.ecommerce.search;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dao.ItemDao;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
+import com.demo.ecommerce.model.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ItemSearchIndexTest {
+
+    private final ItemDao itemDao = mock(ItemDao.class);
+    private final ItemSearchIndex index = new ItemSearchIndex(itemDao, new StockFeed(), new InventoryConfig());
+
+    private static Item item(long id, String name) {
+        Item item = new Item(name, 10, 100);
+        item.setItemId(id);
+        return item;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadCatalog(Item... items) {
+        when(itemDao.forEachItem(any())).thenAnswer(invocation -> {
+            Consumer<Item> action = invocation.getArgument(0);
+            for (Item item : items) {
+                action.accept(item);
+            }
+            return (long) items.length;
+        });
+        index.load();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Whole words beat prefixes beat typos; every query word must match
+    // ---------------------------------------------------------------------
+    @Test
+    public void testRanking() {
+        loadCatalog(item(1, "Gaming Mouse"), item(2, "Mouse Pad"), item(3, "Wireless Mouse"),
+                item(4, "Laptop"), item(5, "Laptop Stand"), item(6, "Mousetrap"));
+
+        // Whole word "mouse" first (the name starting with it ahead), then the prefix match
+        assertEquals(List.of(2L, 1L, 3L, 6L), index.search("mouse", 10));
+        assertEquals(List.of(4L, 5L), index.search("LAPTOP", 10)); // exact name first
+        assertEquals(List.of(2L, 1L, 3L), index.search("mosue", 10)); // one swap away
+        assertEquals(List.of(1L), index.search("gam mou", 10));
+        assertEquals(List.of(2L), index.search("mouse", 1));
+        assertEquals(List.of(), index.search("keyboard", 10));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: Exact-name lookup waits for the load and ignores case only, as the database does
+    // ---------------------------------------------------------------------
+    @Test
+    public void testFindByName() {
+        assertNull(index.findByName("Gaming Mouse")); // still loading: the database is asked
+
+        loadCatalog(item(1, "Gaming Mouse"), item(2, "Lap top"));
+        assertTrue(index.isReady());
+        assertEquals(1L, index.findByName("gaming MOUSE"));
+        assertEquals(2L, index.findByName("LAP TOP"));
+        // Extra or missing spaces and punctuation make a different name
+        assertNull(index.findByName("Lap  top"));
+        assertNull(index.findByName("Laptop"));
+        assertNull(index.findByName("Gaming-Mouse"));
+        assertEquals(List.of(2L), index.search("lap  top", 10)); // search still folds them
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: One-edit check covers insertions, deletions, substitutions and swaps only
+    // ---------------------------------------------------------------------
+    @Test
+    public void testWithinOneEdit() {
+        assertTrue(ItemSearchIndex.withinOneEdit("mouse", "mouse"));
+        assertTrue(ItemSearchIndex.withinOneEdit("mous", "mouse"));
+        assertTrue(ItemSearchIndex.withinOneEdit("mousse", "mouse"));
+        assertTrue(ItemSearchIndex.withinOneEdit("house", "mouse"));
+        assertTrue(ItemSearchIndex.withinOneEdit("muose", "mouse"));
+        assertFalse(ItemSearchIndex.withinOneEdit("mice", "mouse"));
+        assertFalse(ItemSearchIndex.withinOneEdit("hoese", "mouse"));
+        assertFalse(ItemSearchIndex.withinOneEdit("mo", "mouse"));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4: Items published as one bulk change are all indexed
+    // ---------------------------------------------------------------------
+    @Test
+    public void testBulkAddIsIndexed() throws InterruptedException {
+        StockFeed stockFeed = new StockFeed();
+        ItemSearchIndex subscribed = new ItemSearchIndex(itemDao, stockFeed, new InventoryConfig());
+        subscribed.start(); // empty catalog
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!subscribed.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        try {
+            stockFeed.publishAll(LongStream.rangeClosed(1, 1_000)
+                    .mapToObj(id -> new StockChange(id, "Widget " + "abcdefghij".charAt((int) (id % 10)), 1, 1, true))
+                    .toList());
+
+            assertEquals(1_000, subscribed.size());
+            assertEquals(5, subscribed.search("widget", 5).size());
+            assertEquals(List.of(3L, 13L), subscribed.search("widget d", 2));
+            assertEquals(1L, subscribed.findByName("Widget B"));
+        } finally {
+            subscribed.stop();
+        }
+    }
+}
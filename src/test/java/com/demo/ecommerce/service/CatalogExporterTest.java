@@ -0,0 +1,94 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.model.Item;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CatalogExporterTest {
+
+    private final ItemService itemService = mock(ItemService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CatalogExporter exporter = new CatalogExporter(itemService, new ObjectMapper(), meterRegistry);
+
+    private static Item item(long id, String name, int quantity, int price) {
+        Item item = new Item(name, quantity, price);
+        item.setItemId(id);
+        return item;
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        when(itemService.forEachItem(any())).thenAnswer(invocation -> {
+            Consumer<Item> action = invocation.getArgument(0);
+            action.accept(item(1, "Laptop", 10, 1200));
+            action.accept(item(2, "Gaming Mouse", 3, 50));
+            return 2L;
+        });
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: NDJSON is one item per line; gzip round-trips
+    // ---------------------------------------------------------------------
+    @Test
+    public void testNdjsonGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, exporter.export(CatalogExporter.Format.NDJSON, out, true));
+
+        String body = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals("{\"itemId\":1,\"itemName\":\"Laptop\",\"quantity\":10,\"price\":1200}\n"
+                + "{\"itemId\":2,\"itemName\":\"Gaming Mouse\",\"quantity\":3,\"price\":50}\n", body);
+        assertEquals(2, meterRegistry.counter("catalog.export.rows", "format", "ndjson").count());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: CSV has a header row, then one row per item
+    // ---------------------------------------------------------------------
+    @Test
+    public void testCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(CatalogExporter.Format.CSV, out, false);
+
+        assertEquals("itemId,itemName,quantity,price\n1,Laptop,10,1200\n2,\"Gaming Mouse\",3,50\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: A client that goes away stops the export with its IOException
+    // ---------------------------------------------------------------------
+    @Test
+    public void testClientAbortStopsExport() {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        IOException e = assertThrows(IOException.class,
+                () -> exporter.export(CatalogExporter.Format.NDJSON, broken, false));
+        assertEquals("Broken pipe", e.getMessage());
+    }
+}
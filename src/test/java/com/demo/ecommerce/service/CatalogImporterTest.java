@@ -0,0 +1,128 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dto.ItemImportResponse;
+import com.demo.ecommerce.dto.ItemImportResponse.RowError;
+import com.demo.ecommerce.model.Item;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class CatalogImporterTest {
+
+    private final ItemService itemService = mock(ItemService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<String>> chunks = new ArrayList<>();
+    private CatalogImporter importer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        InventoryConfig config = new InventoryConfig();
+        config.getBulkImport().setChunkSize(2);
+        importer = new CatalogImporter(itemService, Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(), config, meterRegistry);
+
+        // "Laptop" is already in the catalog as item 7; "Broken" makes the database fail
+        AtomicLong ids = new AtomicLong(100);
+        when(itemService.addNewItems(anyList())).thenAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            chunks.add(items.stream().map(Item::getItemName).toList());
+            if (items.stream().anyMatch(item -> item.getItemName().equals("Broken"))) {
+                throw new DataIntegrityViolationException("Data too long for column 'item_name'");
+            }
+            Map<String, Long> existing = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Item item : items) {
+                if (item.getItemName().equalsIgnoreCase("Laptop")) {
+                    existing.put("Laptop", 7L);
+                } else {
+                    item.setItemId(ids.incrementAndGet());
+                }
+            }
+            return existing;
+        });
+    }
+
+    private ItemImportResponse importText(CatalogExporter.Format format, String text) throws IOException {
+        return importer.importItems(format, new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: CSV (an export, itemId ignored) is added in chunks; bad and duplicate rows are reported and skipped
+    // ---------------------------------------------------------------------
+    @Test
+    public void testCsvChunksAndRowErrors() throws IOException {
+        ItemImportResponse response = importText(CatalogExporter.Format.CSV, """
+                itemId,itemName,quantity,price
+                1,Keyboard,8,1500
+                2,R2D2,5,100
+                3,Monitor,ten,9000
+                4,keyboard,1,1
+                5,Laptop,10,1200
+                6,Gaming Mouse,3,50
+                7,Webcam,0,40
+                """);
+
+        assertEquals(7, response.rows());
+        assertEquals(2, response.imported());
+        assertEquals(5, response.failed());
+        assertEquals(List.of(List.of("Keyboard", "Laptop"), List.of("Gaming Mouse")), chunks);
+
+        List<RowError> errors = response.errors();
+        assertEquals(List.of(2L, 3L, 4L, 5L, 7L), errors.stream().map(RowError::row).toList());
+        assertEquals("Item name must contain only alphabets and spaces", errors.get(0).message());
+        assertEquals("quantity must be a whole number, got 'ten'", errors.get(1).message());
+        assertEquals("Item name 'keyboard' already appears in row 1", errors.get(2).message());
+        assertEquals("Item with name 'Laptop' already exists with ID: 7", errors.get(3).message());
+        assertEquals("Quantity must be greater than 0", errors.get(4).message());
+        assertEquals(2.0, meterRegistry.counter("catalog.import.rows", "outcome", "imported").count());
+
+        IllegalArgumentException noHeader = assertThrows(IllegalArgumentException.class,
+                () -> importText(CatalogExporter.Format.CSV, "name,qty\nKeyboard,8\n"));
+        assertTrue(noHeader.getMessage().startsWith("CSV header must name"));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: NDJSON: a malformed line fails alone; a chunk the database rejects is retried row by row
+    // ---------------------------------------------------------------------
+    @Test
+    public void testNdjsonBadLineAndFailedChunk() throws IOException {
+        ItemImportResponse response = importText(CatalogExporter.Format.NDJSON, """
+                {"itemName":"Keyboard","quantity":8,"price":1500}
+                {"itemName":"Monitor","quantity":5,
+                {"itemName":"Broken","quantity":1,"price":1}
+
+                {"itemName":"Gaming Mouse","quantity":3,"price":50}
+                """);
+
+        assertEquals(4, response.rows());
+        assertEquals(2, response.imported());
+        assertEquals(List.of(
+                List.of("Keyboard", "Broken"),  // rejected as a whole
+                List.of("Keyboard"),            // then one by one
+                List.of("Broken"),
+                List.of("Gaming Mouse")), chunks);
+
+        assertEquals(2, response.errors().size());
+        assertEquals(2, response.errors().get(0).row());
+        assertTrue(response.errors().get(0).message().startsWith("Invalid JSON"));
+        assertEquals(new RowError(3, "Broken", "Could not be saved: Data too long for column 'item_name'"),
+                response.errors().get(1));
+    }
+}
@@ -0,0 +1,134 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
+import com.demo.ecommerce.model.Item;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CatalogSnapshotTest {
+
+    private final ItemService itemService = mock(ItemService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StockFeed stockFeed = new StockFeed();
+    private final ItemVersions itemVersions = new ItemVersions(stockFeed);
+    private final CatalogSnapshot catalogSnapshot = new CatalogSnapshot(itemService, objectMapper, stockFeed,
+            itemVersions, new InventoryConfig(), new SimpleMeterRegistry());
+
+    private static List<Item> catalog(int laptopStock) {
+        Item laptop = new Item("Laptop", laptopStock, 1200);
+        laptop.setItemId(1L);
+        Item mouse = new Item("Gaming Mouse", 3, 50);
+        mouse.setItemId(2L);
+        return new ArrayList<>(List.of(laptop, mouse));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: The snapshot holds the list JSON (plain and gzipped) and is only rebuilt after a change
+    // ---------------------------------------------------------------------
+    @Test
+    public void testRebuiltOnlyAfterChange() throws IOException {
+        when(itemService.findAll()).thenReturn(catalog(10), catalog(9));
+
+        catalogSnapshot.refresh();
+        CatalogSnapshot.Snapshot first = catalogSnapshot.current();
+        assertArrayEquals(objectMapper.writeValueAsBytes(catalog(10)), first.json());
+        assertArrayEquals(first.json(), new GZIPInputStream(new ByteArrayInputStream(first.gzippedJson())).readAllBytes());
+        assertEquals(itemVersions.catalogETag(), first.etag());
+        assertNotEquals(first.etag(), first.gzipETag());
+
+        catalogSnapshot.refresh(); // nothing changed
+        assertSame(first, catalogSnapshot.current());
+        verify(itemService, times(1)).findAll();
+
+        stockFeed.publish(new StockChange(1L, "Laptop", 9, -1, false));
+        assertNull(catalogSnapshot.currentIfFresh()); // stale until the next refresh
+        assertSame(first, catalogSnapshot.current());
+
+        catalogSnapshot.refresh();
+        CatalogSnapshot.Snapshot second = catalogSnapshot.currentIfFresh();
+        assertEquals(9, second.items().get(0).getQuantity());
+        assertEquals(itemVersions.catalogETag(), second.etag());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A failed build keeps the previous snapshot and is retried only once the catalog changes
+    // ---------------------------------------------------------------------
+    @Test
+    public void testFailedBuildKeepsPreviousSnapshot() {
+        when(itemService.findAll())
+                .thenReturn(catalog(10))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(catalog(8));
+
+        catalogSnapshot.refresh();
+        CatalogSnapshot.Snapshot first = catalogSnapshot.current();
+
+        stockFeed.publish(new StockChange(1L, "Laptop", 9, -1, false));
+        catalogSnapshot.refresh();
+        catalogSnapshot.refresh();
+        assertSame(first, catalogSnapshot.current());
+        verify(itemService, times(2)).findAll();
+
+        stockFeed.publish(new StockChange(1L, "Laptop", 8, -1, false));
+        catalogSnapshot.refresh();
+        assertEquals(8, catalogSnapshot.currentIfFresh().items().get(0).getQuantity());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: Rebuilds are requested by stale reads only, and a burst of reads shares one rebuild
+    // ---------------------------------------------------------------------
+    @Test
+    public void testRebuildIsLazyAndSingleFlight() throws Exception {
+        InventoryConfig inventoryConfig = new InventoryConfig();
+        inventoryConfig.getSnapshot().setRefreshInterval(Duration.ofMillis(100));
+        CatalogSnapshot lazy = new CatalogSnapshot(itemService, objectMapper, stockFeed, itemVersions,
+                inventoryConfig, new SimpleMeterRegistry());
+        when(itemService.findAll()).thenReturn(catalog(10), catalog(9));
+
+        // Nobody reads: nothing is built, however the catalog changes
+        stockFeed.publish(new StockChange(1L, "Laptop", 10, 0, false));
+        Thread.sleep(150);
+        verify(itemService, never()).findAll();
+
+        assertNull(lazy.currentIfFresh());
+        for (int i = 0; i < 50; i++) {
+            lazy.currentIfFresh(); // the first build may already be done
+        }
+        CatalogSnapshot.Snapshot first = awaitFresh(lazy);
+        assertEquals(10, first.items().get(0).getQuantity());
+        verify(itemService, times(1)).findAll();
+
+        // A change after the build: the stale snapshot is still served, and a rebuild follows
+        stockFeed.publish(new StockChange(1L, "Laptop", 9, -1, false));
+        assertSame(first, lazy.current());
+        assertEquals(9, awaitFresh(lazy).items().get(0).getQuantity());
+        verify(itemService, times(2)).findAll();
+        lazy.stop();
+    }
+
+    private static CatalogSnapshot.Snapshot awaitFresh(CatalogSnapshot snapshot) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (System.currentTimeMillis() < deadline) {
+            CatalogSnapshot.Snapshot fresh = snapshot.currentIfFresh();
+            if (fresh != null) {
+                return fresh;
+            }
+            Thread.sleep(10);
+        }
+        return fail("snapshot was not rebuilt");
+    }
+}
@@ -0,0 +1,242 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.IdempotencyConfig;
+import com.demo.ecommerce.config.InventoryConfig;
+import com.demo.ecommerce.dto.PlaceOrderRequest;
+import com.demo.ecommerce.dto.SimpleApiResponse;
+import com.demo.ecommerce.exception.IdempotencyKeyInProgressException;
+import com.demo.ecommerce.exception.IdempotencyKeyReusedException;
+import com.demo.ecommerce.exception.InsufficientStockException;
+import com.demo.ecommerce.model.IdempotencyRecord;
+import com.demo.ecommerce.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyServiceTest {
+
+    private static final PlaceOrderRequest ORDER = new PlaceOrderRequest(101L, 3);
+
+    private IdempotencyRecordRepository repository;
+    private PlatformTransactionManager transactionManager;
+    private InventoryConfig inventoryConfig;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    public void setup() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        when(repository.insertPending(anyString(), anyString(), any())).thenReturn(1);
+        when(repository.complete(anyString(), anyInt(), anyString())).thenReturn(1);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        inventoryConfig = new InventoryConfig(); // direct mode
+        idempotencyService = new IdempotencyService(repository, new ObjectMapper(), new IdempotencyConfig(),
+                inventoryConfig, transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        idempotencyService.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: A retry with the same key is answered without running the order again
+    // ---------------------------------------------------------------------
+    @Test
+    public void testRetryIsReplayed() {
+        AtomicInteger executions = new AtomicInteger();
+
+        ResponseEntity<SimpleApiResponse> first = idempotencyService.execute("orders", "key-1", ORDER, SimpleApiResponse.class,
+                () -> ResponseEntity.ok(new SimpleApiResponse("placed #" + executions.incrementAndGet())));
+        ResponseEntity<SimpleApiResponse> retry = idempotencyService.execute("orders", "key-1", ORDER, SimpleApiResponse.class,
+                () -> ResponseEntity.ok(new SimpleApiResponse("placed #" + executions.incrementAndGet())));
+
+        assertEquals(1, executions.get());
+        assertEquals("placed #1", retry.getBody().message());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        verify(repository, times(1)).insertPending(eq("orders:key-1"), anyString(), any());
+        verify(repository, times(1)).complete(eq("orders:key-1"), eq(200), anyString());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A concurrent duplicate waits for the in-flight request
+    // ---------------------------------------------------------------------
+    @Test
+    public void testConcurrentDuplicateWaitsForInFlight() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<SimpleApiResponse>> original = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("orders", "key-2", ORDER, SimpleApiResponse.class, () -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return ResponseEntity.ok(new SimpleApiResponse("placed"));
+                }));
+        started.await();
+
+        CompletableFuture<ResponseEntity<SimpleApiResponse>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("orders", "key-2", ORDER, SimpleApiResponse.class, () -> {
+                    executions.incrementAndGet();
+                    return ResponseEntity.ok(new SimpleApiResponse("placed twice"));
+                }));
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+
+        release.countDown();
+        assertEquals("placed", duplicate.get().getBody().message());
+        assertEquals("placed", original.get().getBody().message());
+        assertEquals(1, executions.get());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: Failed attempts that changed nothing are not remembered, so the client can retry
+    // ---------------------------------------------------------------------
+    @Test
+    public void testFailureIsNotRemembered() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("orders", "key-3", ORDER,
+                SimpleApiResponse.class, () -> { throw new IllegalStateException("boom"); }));
+        verify(repository).deletePending("orders:key-3");
+
+        ResponseEntity<SimpleApiResponse> retry = idempotencyService.execute("orders", "key-3", ORDER, SimpleApiResponse.class,
+                () -> ResponseEntity.ok(new SimpleApiResponse("placed")));
+
+        assertEquals("placed", retry.getBody().message());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4: The same key with a different body is refused, in memory and after a restart
+    // ---------------------------------------------------------------------
+    @Test
+    public void testKeyReusedForAnotherRequestIsRefused() {
+        AtomicReference<IdempotencyRecord> stored = new AtomicReference<>();
+        when(repository.insertPending(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            stored.set(new IdempotencyRecord(invocation.getArgument(0), invocation.getArgument(1), 0, "",
+                    invocation.getArgument(2)));
+            stored.get().setPending(true);
+            return 1;
+        });
+        when(repository.complete(anyString(), anyInt(), anyString())).thenAnswer(invocation -> {
+            stored.get().setStatusCode(invocation.getArgument(1));
+            stored.get().setResponseBody(invocation.getArgument(2));
+            stored.get().setPending(false);
+            return 1;
+        });
+        idempotencyService.execute("orders", "key-4", ORDER, SimpleApiResponse.class,
+                () -> ResponseEntity.ok(new SimpleApiResponse("placed")));
+
+        PlaceOrderRequest other = new PlaceOrderRequest(101L, 30);
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.execute("orders", "key-4", other,
+                SimpleApiResponse.class, () -> ResponseEntity.ok(new SimpleApiResponse("placed again"))));
+
+        // Another instance (or this one after a restart) only has the stored row
+        IdempotencyService restarted = new IdempotencyService(repository, new ObjectMapper(), new IdempotencyConfig(),
+                inventoryConfig, transactionManager);
+        when(repository.findById("orders:key-4")).thenReturn(Optional.of(stored.get()));
+        assertThrows(IdempotencyKeyReusedException.class, () -> restarted.execute("orders", "key-4", other,
+                SimpleApiResponse.class, () -> ResponseEntity.ok(new SimpleApiResponse("placed again"))));
+        assertEquals("placed", restarted.execute("orders", "key-4", ORDER, SimpleApiResponse.class,
+                () -> ResponseEntity.ok(new SimpleApiResponse("placed again"))).getBody().message());
+        restarted.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 5: Direct mode stores the outcome in the order's transaction; a failed commit keeps the key
+    // ---------------------------------------------------------------------
+    @Test
+    public void testDirectModeStoresTheOutcomeInTheOrderTransaction() {
+        idempotencyService.execute("orders", "key-5", ORDER, SimpleApiResponse.class,
+                () -> ResponseEntity.ok(new SimpleApiResponse("placed")));
+
+        InOrder inOrder = inOrder(transactionManager, repository);
+        inOrder.verify(repository).insertPending(eq("orders:key-5"), anyString(), any());
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(repository).complete(eq("orders:key-5"), eq(200), anyString());
+        inOrder.verify(transactionManager).commit(any());
+
+        // The commit fails: it may or may not have reached the database, so the key is kept
+        doThrow(new TransactionSystemException("connection lost")).when(transactionManager).commit(any());
+        AtomicInteger executions = new AtomicInteger();
+        assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyService.execute("orders", "key-6",
+                ORDER, SimpleApiResponse.class, () -> ResponseEntity.ok(new SimpleApiResponse("placed #" + executions.incrementAndGet()))));
+        assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyService.execute("orders", "key-6",
+                ORDER, SimpleApiResponse.class, () -> ResponseEntity.ok(new SimpleApiResponse("placed #" + executions.incrementAndGet()))));
+        assertEquals(1, executions.get());
+        verify(repository, never()).deletePending("orders:key-6");
+
+        // A failed action rolls back with its key
+        SimpleTransactionStatus failed = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(failed);
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("orders", "key-7", ORDER,
+                SimpleApiResponse.class, () -> { throw new IllegalStateException("boom"); }));
+        verify(transactionManager).rollback(failed);
+        verify(repository).deletePending("orders:key-7");
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 6: Modes that decide outside the transaction hold none; only a certain failure frees the key
+    // ---------------------------------------------------------------------
+    @Test
+    public void testOutsideDecisionModesHoldNoTransaction() {
+        inventoryConfig.setMode(InventoryConfig.Mode.ENGINE);
+
+        assertEquals("placed", idempotencyService.execute("orders", "key-8", ORDER, SimpleApiResponse.class,
+                () -> ResponseEntity.ok(new SimpleApiResponse("placed"))).getBody().message());
+        verify(repository).complete(eq("orders:key-8"), eq(200), anyString());
+
+        // Rejected: nothing changed, the key is free again
+        assertThrows(InsufficientStockException.class, () -> idempotencyService.execute("orders", "key-9", ORDER,
+                SimpleApiResponse.class, () -> { throw new InsufficientStockException("Insufficient stock"); }));
+        verify(repository).deletePending("orders:key-9");
+
+        // Unknown outcome (e.g. the stock was taken but the outcome could not be stored): the key is kept
+        when(repository.complete(eq("orders:key-10"), anyInt(), anyString())).thenThrow(new DataAccessResourceFailureException("down"));
+        assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyService.execute("orders", "key-10",
+                ORDER, SimpleApiResponse.class, () -> ResponseEntity.ok(new SimpleApiResponse("placed"))));
+        verify(repository, never()).deletePending("orders:key-10");
+
+        // Another instance holds the key (its pending row), or reserves it first
+        IdempotencyRecord pending = new IdempotencyRecord("orders:key-11", null, 0, "", LocalDateTime.now());
+        pending.setPending(true);
+        when(repository.findById("orders:key-11")).thenReturn(Optional.of(pending));
+        assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyService.execute("orders", "key-11",
+                ORDER, SimpleApiResponse.class, () -> ResponseEntity.ok(new SimpleApiResponse("placed"))));
+        when(repository.insertPending(eq("orders:key-12"), anyString(), any())).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+        assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyService.execute("orders", "key-12",
+                ORDER, SimpleApiResponse.class, () -> ResponseEntity.ok(new SimpleApiResponse("placed"))));
+
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
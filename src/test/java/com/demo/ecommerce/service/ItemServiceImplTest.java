@@ -1,26 +1,48 @@
 package com.demo.ecommerce.service;
 
+import com.demo.ecommerce.config.InventoryConfig;
 import com.demo.ecommerce.dao.ItemDao;
+import com.demo.ecommerce.dto.BatchOrderRequest;
+import com.demo.ecommerce.dto.BatchOrderResponse;
+import com.demo.ecommerce.dto.ItemFilter;
+import com.demo.ecommerce.dto.ItemPage;
+import com.demo.ecommerce.dto.OrderLineStatus;
 import com.demo.ecommerce.dto.PlaceOrderRequest;
+import com.demo.ecommerce.dto.ReservationResponse;
+import com.demo.ecommerce.dto.ReservationStatus;
 import com.demo.ecommerce.exception.InsufficientStockException;
 import com.demo.ecommerce.exception.ItemNotFoundException;
+import com.demo.ecommerce.exception.ReservationNotFoundException;
+import com.demo.ecommerce.inventory.OrderLedger;
+import com.demo.ecommerce.inventory.ReservationBook;
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
 import com.demo.ecommerce.model.Item;
+import com.demo.ecommerce.search.ItemSearchIndex;
 
-import com.demo.grpc.notification.NotificationRequest;
-import com.demo.grpc.notification.NotificationServiceGrpc.NotificationServiceBlockingStub;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,7 +53,19 @@ public class ItemServiceImplTest {
     private ItemDao itemDao;
 
     @Mock
-    private NotificationServiceBlockingStub notificationStub;
+    private NotificationDeduper notificationDeduper;
+
+    @Spy
+    private InventoryConfig inventoryConfig = new InventoryConfig(); // minimumStock = 2
+
+    @Mock
+    private ReservationBook reservationBook;
+
+    @Mock
+    private StockFeed stockFeed;
+
+    @Mock
+    private ItemSearchIndex searchIndex;
 
     @Mock
     private SecurityContext securityContext;
@@ -61,16 +95,17 @@ public class ItemServiceImplTest {
 
         PlaceOrderRequest request = new PlaceOrderRequest(101L, 3);
 
-        when(itemDao.findById(101L)).thenReturn(item);
-        when(itemDao.update(any(Item.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemDao.findCatalogEntry(101L)).thenReturn(item);
+        when(itemDao.tryDecrement(101L, 3, 2)).thenReturn(7);
 
         // ACT
         Item updated = itemService.placeOrder(request);
 
         // ASSERT
         assertEquals(7, updated.getQuantity());
-        verify(notificationStub, never()).notifyInsufficientStock(any());
+        verify(itemDao, never()).update(any());
+        verify(itemDao, never()).findById(any()); // the decrement returns the new stock
+        verify(notificationDeduper, never()).record(any(), anyInt(), any());
     }
 
     // ---------------------------------------------------------------------
@@ -80,15 +115,17 @@ public class ItemServiceImplTest {
     public void testPlaceOrder_ItemNotFound() {
         PlaceOrderRequest request = new PlaceOrderRequest(999L, 2);
 
+        when(itemDao.tryDecrement(999L, 2, 2)).thenReturn(null);
         when(itemDao.findById(999L)).thenReturn(null);
 
         assertThrows(ItemNotFoundException.class, () -> {
             itemService.placeOrder(request);
         });
+        verify(notificationDeduper, never()).record(any(), anyInt(), any());
     }
 
     // ---------------------------------------------------------------------
-    // TEST 3: Insufficient stock + gRPC notification
+    // TEST 3: Insufficient stock + queued gRPC notification
     // ---------------------------------------------------------------------
     @Test
     public void testPlaceOrder_InsufficientStock() {
@@ -99,19 +136,159 @@ public class ItemServiceImplTest {
         PlaceOrderRequest request = new PlaceOrderRequest(200L, 10);
 
         when(itemDao.findById(200L)).thenReturn(item);
+        when(itemDao.tryDecrement(200L, 10, 2)).thenReturn(null);
 
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(userDetails);
         when(userDetails.getUsername()).thenReturn("testUser");
+        when(notificationDeduper.record(200L, 10, "testUser")).thenReturn(NotificationDeduper.Outcome.ENQUEUED);
 
         // ACT & ASSERT
-        assertThrows(InsufficientStockException.class, () -> {
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class, () -> {
             itemService.placeOrder(request);
         });
 
-        // ASSERT that gRPC notification was sent
-        verify(notificationStub, times(1))
-                .notifyInsufficientStock(any(NotificationRequest.class));
+        // ASSERT that the gRPC notification was handed off instead of sent inline
+        assertTrue(ex.getMessage().startsWith("NOTIFICATION ENQUEUED"));
+        verify(notificationDeduper, times(1))
+                .record(200L, 10, "testUser");
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3b: Order that would break the minimum stock is rejected by the DAO guard
+    // ---------------------------------------------------------------------
+    @Test
+    public void testPlaceOrder_RespectsMinimumStock() {
+        Item item = new Item("Monitor", 5, 9000);
+        item.setItemId(300L);
+
+        when(itemDao.findById(300L)).thenReturn(item);
+        when(itemDao.tryDecrement(300L, 4, 2)).thenReturn(null);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn("testUser");
+        when(notificationDeduper.record(300L, 4, "testUser")).thenReturn(NotificationDeduper.Outcome.COALESCED);
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> itemService.placeOrder(new PlaceOrderRequest(300L, 4)));
+
+        assertTrue(ex.getMessage().contains("Available = 3"));
+        assertTrue(ex.getMessage().startsWith("NOTIFICATION COALESCED"));
+        verify(itemDao, never()).update(any());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3c: Batch order sorts lines by itemId and keeps partial successes
+    // ---------------------------------------------------------------------
+    @Test
+    public void testPlaceOrders_PartialSuccessInRequestOrder() {
+        Item keyboard = new Item("Keyboard", 8, 1500);
+        keyboard.setItemId(20L);
+        Item mouse = new Item("Mouse", 3, 500);
+        mouse.setItemId(10L);
+
+        List<PlaceOrderRequest> sorted = List.of(new PlaceOrderRequest(10L, 5), new PlaceOrderRequest(20L, 2));
+        when(itemDao.tryDecrementBatch(sorted, 2)).thenReturn(new int[] {0, 1});
+        when(itemDao.findByIds(List.of(10L, 20L))).thenReturn(List.of(mouse, keyboard));
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn("testUser");
+        when(notificationDeduper.record(10L, 5, "testUser")).thenReturn(NotificationDeduper.Outcome.ENQUEUED);
+
+        BatchOrderResponse response = itemService.placeOrders(new BatchOrderRequest(
+                List.of(new PlaceOrderRequest(20L, 2), new PlaceOrderRequest(10L, 5)), false));
+
+        assertTrue(response.committed());
+        assertEquals(OrderLineStatus.PLACED, response.results().get(0).status());
+        assertEquals(8, response.results().get(0).remainingStock());
+        assertEquals(OrderLineStatus.INSUFFICIENT_STOCK, response.results().get(1).status());
+        verify(notificationDeduper, times(1)).record(10L, 5, "testUser");
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3d: Reservation takes stock up front; releasing it gives the stock back
+    // ---------------------------------------------------------------------
+    @Test
+    public void testReserveAndRelease() {
+        Item item = new Item("Laptop", 10, 1200);
+        item.setItemId(101L);
+        ReservationBook.Reservation hold = new ReservationBook.Reservation("r-1", 101L, 3, "testUser", Instant.now());
+
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn("testUser");
+        when(itemDao.findCatalogEntry(101L)).thenReturn(item);
+        when(itemDao.tryDecrement(101L, 3, 2)).thenReturn(7);
+        when(reservationBook.hold(101L, 3, "testUser")).thenReturn(hold);
+        when(reservationBook.take("r-1", "testUser")).thenReturn(hold).thenReturn(null);
+
+        ReservationResponse reserved = itemService.reserve(new PlaceOrderRequest(101L, 3));
+        assertEquals(ReservationStatus.HELD, reserved.status());
+        assertEquals("r-1", reserved.reservationId());
+
+        ReservationResponse released = itemService.release("r-1");
+        assertEquals(ReservationStatus.RELEASED, released.status());
+        verify(itemDao).applyStockDeltas(Map.of(101L, 3));
+
+        // Already settled: cannot be confirmed afterwards
+        assertThrows(ReservationNotFoundException.class, () -> itemService.confirm("r-1"));
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3e: A hold that cannot be saved gives the already-taken stock back
+    // ---------------------------------------------------------------------
+    @Test
+    public void testReserveReturnsStockWhenHoldFails() {
+        Item item = new Item("Laptop", 10, 1200);
+        item.setItemId(101L);
+
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn("testUser");
+        when(itemDao.findCatalogEntry(101L)).thenReturn(item);
+        when(itemDao.tryDecrement(101L, 3, 2)).thenReturn(7);
+        when(reservationBook.hold(101L, 3, "testUser")).thenThrow(new IllegalStateException("reservation_holds unavailable"));
+
+        assertThrows(IllegalStateException.class, () -> itemService.reserve(new PlaceOrderRequest(101L, 3)));
+        verify(itemDao).applyStockDeltas(Map.of(101L, 3));
+        verify(stockFeed, never()).publish(any());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3f: Several lines for one item each report the stock right after that line
+    // ---------------------------------------------------------------------
+    @Test
+    public void testPlaceOrders_RepeatedItemReportsStockPerLine() {
+        Item mouse = new Item("Mouse", 3, 500); // 12 before the batch: 12 - 3 - 2 - 4
+        mouse.setItemId(10L);
+        Item keyboard = new Item("Keyboard", 7, 1500);
+        keyboard.setItemId(20L);
+
+        List<PlaceOrderRequest> sorted = List.of(new PlaceOrderRequest(10L, 3), new PlaceOrderRequest(10L, 2),
+                new PlaceOrderRequest(10L, 6), new PlaceOrderRequest(10L, 4), new PlaceOrderRequest(20L, 1));
+        when(itemDao.tryDecrementBatch(sorted, 2)).thenReturn(new int[] {1, 1, 0, 1, 1}); // 6 of 7 breaks the minimum
+        when(itemDao.findByIds(List.of(10L, 20L))).thenReturn(List.of(mouse, keyboard));
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn("testUser");
+        when(notificationDeduper.record(10L, 6, "testUser")).thenReturn(NotificationDeduper.Outcome.ENQUEUED);
+
+        BatchOrderResponse response = itemService.placeOrders(new BatchOrderRequest(List.of(
+                new PlaceOrderRequest(10L, 3), new PlaceOrderRequest(20L, 1), new PlaceOrderRequest(10L, 2),
+                new PlaceOrderRequest(10L, 6), new PlaceOrderRequest(10L, 4)), false));
+
+        assertEquals(9, response.results().get(0).remainingStock());
+        assertEquals(7, response.results().get(1).remainingStock());
+        assertEquals(7, response.results().get(2).remainingStock());
+        assertEquals(OrderLineStatus.INSUFFICIENT_STOCK, response.results().get(3).status());
+        assertTrue(response.results().get(3).message().endsWith("Available = 5"));
+        assertEquals(3, response.results().get(4).remainingStock());
+
+        InOrder published = inOrder(stockFeed);
+        published.verify(stockFeed).publish(new StockChange(10L, "Mouse", 9, -3, false));
+        published.verify(stockFeed).publish(new StockChange(10L, "Mouse", 7, -2, false));
+        published.verify(stockFeed).publish(new StockChange(10L, "Mouse", 3, -4, false));
+        published.verify(stockFeed).publish(new StockChange(20L, "Keyboard", 7, -1, false));
     }
 
     // ---------------------------------------------------------------------
@@ -121,6 +298,7 @@ public class ItemServiceImplTest {
     public void testAddNewItem_Success() {
         Item newItem = new Item("Mouse", 15, 500);
 
+        when(searchIndex.findByName("Mouse")).thenReturn(null); // unknown to the index: the database is asked
         when(itemDao.save(any(Item.class)))
                 .thenAnswer(invocation -> {
                     Item saved = invocation.getArgument(0);
@@ -134,6 +312,105 @@ public class ItemServiceImplTest {
         assertEquals("Mouse", saved.getItemName());
         assertEquals(15, saved.getQuantity());
         assertEquals(500, saved.getPrice());
+        verify(itemDao).findByName("Mouse");
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4a: Bulk add skips names already taken, inserts the rest in one call and publishes them
+    //          as one change
+    // ---------------------------------------------------------------------
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAddNewItems_SkipsExistingNames() {
+        Item mouse = new Item("Mouse", 15, 500);
+        Item keyboard = new Item("Keyboard", 8, 1500);
+        Item webcam = new Item("Webcam", 4, 40);
+
+        when(itemDao.findIdsByNames(List.of("Mouse", "Keyboard", "Webcam"))).thenReturn(Map.of("Keyboard", 7L));
+        when(itemDao.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            long id = 200;
+            for (Item item : items) {
+                item.setItemId(id++);
+            }
+            return items;
+        });
+
+        Map<String, Long> existing = itemService.addNewItems(List.of(mouse, keyboard, webcam));
+
+        assertEquals(Map.of("Keyboard", 7L), existing);
+        verify(itemDao).saveAll(List.of(mouse, webcam));
+        assertEquals(200L, mouse.getItemId());
+        assertNull(keyboard.getItemId());
+        assertEquals(201L, webcam.getItemId());
+        verify(stockFeed).publishAll(List.of(
+                new StockChange(200L, "Mouse", 15, 15, true),
+                new StockChange(201L, "Webcam", 4, 4, true)));
+        verify(stockFeed, never()).publish(any());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4b: Keyset page asks the DAO for one extra row to find the next cursor
+    // ---------------------------------------------------------------------
+    @Test
+    public void testFindPageReturnsNextCursor() {
+        ItemFilter filter = new ItemFilter(1, null, null, 500, "Lap");
+        List<Item> rows = new ArrayList<>();
+        for (long id = 11; id <= 13; id++) {
+            Item item = new Item("Laptop " + id, 5, 400);
+            item.setItemId(id);
+            rows.add(item);
+        }
+        when(itemDao.findPage(10L, 3, filter, Set.of())).thenReturn(rows);
+        when(itemDao.findPage(12L, 3, filter, Set.of())).thenReturn(rows.subList(2, 3));
+
+        ItemPage first = itemService.findPage(10L, 2, filter);
+        ItemPage last = itemService.findPage(first.nextCursor(), 2, filter);
+
+        assertEquals(List.of(11L, 12L), first.items().stream().map(Item::getItemId).toList());
+        assertEquals(12L, first.nextCursor());
+        assertEquals(1, last.items().size());
+        assertNull(last.nextCursor());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4c: In ledger mode, low-stock and quantity-filtered listings use the unprojected quantities
+    // ---------------------------------------------------------------------
+    @Test
+    public void testLedgerListingsFilterOnCurrentStock() {
+        Map<Long, Integer> stored = Map.of(1L, 8, 2L, 9, 3L, 20);
+        Map<Long, Integer> unprojected = Map.of(1L, 5, 3L, -15); // current: 13, 9, 5
+        OrderLedger orderLedger = mock(OrderLedger.class);
+        when(orderLedger.unprojectedItemIds()).thenAnswer(invocation -> new HashSet<>(unprojected.keySet()));
+        when(orderLedger.overlay(any())).thenAnswer(invocation -> {
+            Item item = invocation.getArgument(0);
+            item.setQuantity(item.getQuantity() + unprojected.getOrDefault(item.getItemId(), 0));
+            return item;
+        });
+        Function<List<Long>, List<Item>> rows = ids -> ids.stream().map(id -> {
+            Item item = new Item("Item " + id, stored.get(id), 100);
+            item.setItemId(id);
+            return item;
+        }).toList();
+        ItemServiceImpl ledgerService = new ItemServiceImpl(itemDao, notificationDeduper, inventoryConfig,
+                null, null, orderLedger, reservationBook, stockFeed, searchIndex);
+
+        // Threshold 10: item 1 was restocked since the projection, item 3 sold down
+        when(itemDao.findLowStock(10)).thenAnswer(invocation -> rows.apply(List.of(1L, 2L)));
+        when(itemDao.findByIds(Set.of(3L))).thenAnswer(invocation -> rows.apply(List.of(3L)));
+        assertEquals(List.of(3L, 2L), ledgerService.getLowStockItems().stream().map(Item::getItemId).toList());
+
+        // At most 9 units; the DAO reads items 1 and 3 whatever their stored quantity
+        ItemFilter filter = new ItemFilter(null, 9, null, null, null);
+        when(itemDao.findPage(null, 3, filter, Set.of(1L, 3L))).thenAnswer(invocation -> rows.apply(List.of(1L, 2L, 3L)));
+        when(itemDao.findPage(2L, 3, filter, Set.of(1L, 3L))).thenAnswer(invocation -> rows.apply(List.of(3L)));
+        ItemPage first = ledgerService.findPage(null, 2, filter);
+        assertEquals(List.of(2L), first.items().stream().map(Item::getItemId).toList());
+        assertEquals(2L, first.nextCursor());
+        ItemPage last = ledgerService.findPage(first.nextCursor(), 2, filter);
+        assertEquals(List.of(3L), last.items().stream().map(Item::getItemId).toList());
+        assertEquals(5, last.items().get(0).getQuantity());
+        assertNull(last.nextCursor());
     }
 
     // ---------------------------------------------------------------------
@@ -0,0 +1,56 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.inventory.StockFeed;
+import com.demo.ecommerce.inventory.StockFeed.StockChange;
+import com.demo.ecommerce.model.Item;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemVersionsTest {
+
+    private final StockFeed stockFeed = new StockFeed();
+    private final ItemVersions itemVersions = new ItemVersions(stockFeed);
+
+    private static Item item(long version, int quantity) {
+        Item item = new Item("Laptop", quantity, 1200);
+        item.setItemId(1L);
+        item.setVersion(version);
+        return item;
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: The item ETag changes with the row version and with the served stock
+    // ---------------------------------------------------------------------
+    @Test
+    public void testItemETag() {
+        assertEquals("\"3-10\"", itemVersions.itemETag(item(3, 10)));
+        assertEquals(itemVersions.itemETag(item(3, 10)), itemVersions.itemETag(item(3, 10)));
+        assertNotEquals(itemVersions.itemETag(item(3, 10)), itemVersions.itemETag(item(4, 10)));
+        assertNotEquals(itemVersions.itemETag(item(3, 10)), itemVersions.itemETag(item(3, 9))); // engine stock ahead of the row
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: The catalog ETag moves only once a change has committed
+    // ---------------------------------------------------------------------
+    @Test
+    public void testCatalogETagMovesAfterCommit() {
+        String before = itemVersions.catalogETag();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stockFeed.publish(new StockChange(1L, "Laptop", 9, -1, false));
+            stockFeed.markChanged();
+            assertEquals(before, itemVersions.catalogETag());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNotEquals(before, itemVersions.catalogETag());
+        assertEquals(2, stockFeed.version());
+    }
+}
@@ -0,0 +1,155 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import com.demo.grpc.notification.NotificationRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class NotificationDeduperTest {
+
+    // ---------------------------------------------------------------------
+    // TEST 1: A stock-out storm becomes one immediate alert plus one summary per window
+    // ---------------------------------------------------------------------
+    @Test
+    public void testRejectionsAreCoalescedPerItem() throws Exception {
+        NotificationDispatcher dispatcher = mock(NotificationDispatcher.class);
+        when(dispatcher.enqueue(any())).thenReturn(true);
+        NotificationConfig config = new NotificationConfig();
+        config.setDedupeWindow(Duration.ofMillis(200));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationDeduper deduper = new NotificationDeduper(dispatcher, null, config, meterRegistry);
+        deduper.stop(); // sweep by hand
+
+        assertEquals(NotificationDeduper.Outcome.ENQUEUED, deduper.record(7L, 2, "alice"));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(NotificationDeduper.Outcome.COALESCED, deduper.record(7L, 1, "user-" + (i % 10)));
+        }
+        assertEquals(NotificationDeduper.Outcome.ENQUEUED, deduper.record(8L, 1, "bob")); // other item
+        assertEquals(100, meterRegistry.counter("notifications.suppressed").count());
+
+        deduper.sweep(); // window still open: nothing yet
+        verify(dispatcher, times(2)).enqueue(any());
+
+        Thread.sleep(250);
+        deduper.sweep();
+
+        ArgumentCaptor<NotificationRequest> sent = ArgumentCaptor.forClass(NotificationRequest.class);
+        verify(dispatcher, times(3)).enqueue(sent.capture());
+        NotificationRequest summary = sent.getAllValues().get(2);
+        assertEquals("7", summary.getItemId());
+        assertEquals(100, summary.getRequestedQty());
+        assertEquals(100, summary.getAggregatedOrders());
+        assertEquals(10, summary.getDistinctUsers(), 1);
+
+        // Quiet windows close, so the next rejection is reported at once again
+        Thread.sleep(250);
+        deduper.sweep();
+        assertEquals(NotificationDeduper.Outcome.ENQUEUED, deduper.record(8L, 1, "bob"));
+        verify(dispatcher, times(4)).enqueue(any());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A zero window disables deduplication
+    // ---------------------------------------------------------------------
+    @Test
+    public void testZeroWindowSendsEveryRejection() {
+        NotificationDispatcher dispatcher = mock(NotificationDispatcher.class);
+        when(dispatcher.enqueue(any())).thenReturn(true);
+        NotificationConfig config = new NotificationConfig();
+        config.setDedupeWindow(Duration.ZERO);
+        NotificationDeduper deduper = new NotificationDeduper(dispatcher, null, config, new SimpleMeterRegistry());
+
+        List.of("a", "b", "c").forEach(user -> deduper.record(7L, 1, user));
+
+        verify(dispatcher, times(3)).enqueue(any());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: Summed quantities past Integer.MAX_VALUE saturate instead of corrupting the order count
+    // ---------------------------------------------------------------------
+    @Test
+    public void testLargeQuantitiesDoNotOverflowIntoOrders() throws Exception {
+        NotificationDispatcher dispatcher = mock(NotificationDispatcher.class);
+        when(dispatcher.enqueue(any())).thenReturn(true);
+        NotificationConfig config = new NotificationConfig();
+        config.setDedupeWindow(Duration.ofMillis(50));
+        NotificationDeduper deduper = new NotificationDeduper(dispatcher, null, config, new SimpleMeterRegistry());
+        deduper.stop();
+
+        deduper.record(7L, 1, "alice");
+        for (int i = 0; i < 3; i++) {
+            deduper.record(7L, 1_500_000_000, "alice");
+        }
+        Thread.sleep(60);
+        deduper.sweep();
+
+        ArgumentCaptor<NotificationRequest> sent = ArgumentCaptor.forClass(NotificationRequest.class);
+        verify(dispatcher, times(2)).enqueue(sent.capture());
+        NotificationRequest summary = sent.getAllValues().get(1);
+        assertEquals(Integer.MAX_VALUE, summary.getRequestedQty());
+        assertEquals(3, summary.getAggregatedOrders());
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4: Rejections racing the sweeper are each reported exactly once
+    // ---------------------------------------------------------------------
+    @Test
+    public void testConcurrentSweepsLoseNoRejection() throws Exception {
+        NotificationDispatcher dispatcher = mock(NotificationDispatcher.class, withSettings().stubOnly());
+        List<NotificationRequest> sent = Collections.synchronizedList(new ArrayList<>());
+        when(dispatcher.enqueue(any())).thenAnswer(invocation -> sent.add(invocation.getArgument(0)));
+        NotificationConfig config = new NotificationConfig();
+        config.setDedupeWindow(Duration.ofNanos(1)); // every sweep closes the window
+        NotificationDeduper deduper = new NotificationDeduper(dispatcher, null, config, new SimpleMeterRegistry());
+        deduper.stop();
+
+        int threads = 4;
+        int perThread = 20_000;
+        AtomicBoolean done = new AtomicBoolean();
+        Thread sweeper = new Thread(() -> {
+            while (!done.get()) {
+                deduper.sweep();
+            }
+        });
+        sweeper.start();
+        Thread[] recorders = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String user = "user-" + t;
+            recorders[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    deduper.record(7L, 2, user);
+                }
+            });
+            recorders[t].start();
+        }
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+        done.set(true);
+        sweeper.join();
+        deduper.sweep();
+        deduper.sweep();
+
+        long orders = 0;
+        long quantity = 0;
+        synchronized (sent) {
+            for (NotificationRequest request : sent) {
+                orders += request.getAggregatedOrders();
+                quantity += request.getRequestedQty();
+            }
+        }
+        assertEquals((long) threads * perThread, orders);
+        assertEquals(2L * threads * perThread, quantity);
+    }
+}
@@ -0,0 +1,155 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import com.demo.ecommerce.grpc.StandInNotificationServer;
+import com.demo.grpc.notification.NotificationRequest;
+import com.demo.grpc.notification.NotificationResponse;
+import com.demo.grpc.notification.NotificationServiceGrpc;
+import com.demo.grpc.notification.NotificationServiceGrpc.NotificationServiceFutureStub;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class NotificationDispatcherTest {
+
+    private static final NotificationRequest REQUEST = NotificationRequest.newBuilder()
+            .setItemId("1").setOrderId("order-1").setRequestedQty(3).setUserId("testUser").build();
+
+    // ---------------------------------------------------------------------
+    // TEST 1: Transient failures are retried; every call carries a deadline
+    // ---------------------------------------------------------------------
+    @Test
+    public void testUnavailableIsRetriedUntilSent() {
+        NotificationServiceFutureStub stub = mock(NotificationServiceFutureStub.class);
+        when(stub.withDeadlineAfter(anyLong(), any(TimeUnit.class))).thenReturn(stub);
+        when(stub.notifyInsufficientStock(REQUEST))
+                .thenReturn(Futures.immediateFailedFuture(Status.UNAVAILABLE.asRuntimeException()))
+                .thenReturn(Futures.immediateFailedFuture(Status.DEADLINE_EXCEEDED.asRuntimeException()))
+                .thenReturn(Futures.immediateFuture(NotificationResponse.getDefaultInstance()));
+
+        NotificationConfig config = new NotificationConfig();
+        config.setTransport(NotificationConfig.Transport.UNARY);
+        config.setInitialBackoff(Duration.ofMillis(5));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(stub, config, meterRegistry);
+
+        assertTrue(dispatcher.enqueue(REQUEST));
+
+        verify(stub, timeout(2000).times(3)).notifyInsufficientStock(REQUEST);
+        verify(stub, times(3)).withDeadlineAfter(2000, TimeUnit.MILLISECONDS);
+        assertEquals(2, meterRegistry.counter("notifications.retried").count());
+        dispatcher.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: A full queue rejects new notifications under DROP_NEWEST
+    // ---------------------------------------------------------------------
+    @Test
+    public void testFullQueueDropsNewest() {
+        NotificationServiceFutureStub stub = mock(NotificationServiceFutureStub.class);
+        when(stub.withDeadlineAfter(anyLong(), any(TimeUnit.class))).thenReturn(stub);
+        when(stub.notifyInsufficientStock(any())).thenReturn(SettableFuture.create()); // never answers
+
+        NotificationConfig config = new NotificationConfig();
+        config.setTransport(NotificationConfig.Transport.UNARY);
+        config.setQueueCapacity(2);
+        config.setMaxInFlight(1);
+        config.setOverflowPolicy(NotificationConfig.OverflowPolicy.DROP_NEWEST);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(stub, config, meterRegistry);
+
+        assertTrue(dispatcher.enqueue(REQUEST));
+        verify(stub, timeout(2000)).notifyInsufficientStock(REQUEST); // the only in-flight slot is taken
+
+        long accepted = IntStream.range(0, 10).filter(i -> dispatcher.enqueue(REQUEST)).count();
+
+        // Two fit in the queue, plus possibly one the dispatcher holds while waiting for a slot
+        assertTrue(accepted >= 2 && accepted <= 3, "accepted " + accepted);
+        assertEquals(10 - accepted, (long) meterRegistry.counter("notifications.dropped").count());
+        dispatcher.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 3: Stream transport delivers a stock-out storm over a few long-lived streams
+    // ---------------------------------------------------------------------
+    @Test
+    public void testStreamTransportAgainstStandInServer() throws Exception {
+        NotificationConfig config = new NotificationConfig(); // STREAM transport
+        config.getStandIn().setName("dispatcher-test-stream");
+        config.setStreamMaxMessages(2_000);
+        StandInNotificationServer standIn = new StandInNotificationServer(config);
+        standIn.start();
+        ManagedChannel channel = InProcessChannelBuilder.forName("dispatcher-test-stream").build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(
+                NotificationServiceGrpc.newFutureStub(channel), config, meterRegistry);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(dispatcher.enqueue(REQUEST));
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (meterRegistry.counter("notifications.sent").count() < 10_000 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(10_000, standIn.received());
+        assertEquals(10_000, meterRegistry.counter("notifications.sent").count());
+        assertTrue(meterRegistry.get("notifications.batch_size").summary().count() < 10_000, "notifications should be coalesced");
+
+        dispatcher.stop();
+        channel.shutdownNow();
+        standIn.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 4: A server without the batch RPC gets unary calls instead
+    // ---------------------------------------------------------------------
+    @Test
+    public void testFallsBackToUnaryWhenStreamIsUnimplemented() throws Exception {
+        Server unaryOnly = InProcessServerBuilder.forName("dispatcher-test-unary")
+                .addService(new NotificationServiceGrpc.NotificationServiceImplBase() {
+                    @Override
+                    public void notifyInsufficientStock(NotificationRequest request, StreamObserver<NotificationResponse> observer) {
+                        observer.onNext(NotificationResponse.getDefaultInstance());
+                        observer.onCompleted();
+                    }
+                })
+                .build()
+                .start();
+        ManagedChannel channel = InProcessChannelBuilder.forName("dispatcher-test-unary").build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(
+                NotificationServiceGrpc.newFutureStub(channel), new NotificationConfig(), meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            dispatcher.enqueue(REQUEST);
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.counter("notifications.sent").count() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(5, meterRegistry.counter("notifications.sent").count());
+        assertEquals(0, meterRegistry.counter("notifications.failed").count());
+
+        dispatcher.stop();
+        channel.shutdownNow();
+        unaryOnly.shutdownNow();
+    }
+}
@@ -0,0 +1,107 @@
+package com.demo.ecommerce.service;
+
+import com.demo.ecommerce.config.NotificationConfig;
+import com.demo.ecommerce.dao.NotificationOutboxDao;
+import com.demo.ecommerce.dao.NotificationOutboxDao.PendingNotification;
+import com.demo.ecommerce.grpc.StandInNotificationServer;
+import com.demo.grpc.notification.NotificationRequest;
+import com.demo.grpc.notification.NotificationServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class NotificationOutboxRelayTest {
+
+    private static final byte[] PAYLOAD = NotificationRequest.newBuilder()
+            .setItemId("1").setOrderId("order-1").setRequestedQty(3).setUserId("testUser").build()
+            .toByteArray();
+
+    private static NotificationConfig config(String standInName) {
+        NotificationConfig config = new NotificationConfig();
+        config.getStandIn().setName(standInName);
+        config.getOutbox().setPollInterval(Duration.ofHours(1)); // batches are driven by the test
+        return config;
+    }
+
+    private static List<PendingNotification> pending(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> new PendingNotification(id, PAYLOAD, LocalDateTime.now()))
+                .toList();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 1: A claimed batch goes out as one stream after the claim commits, and is marked delivered
+    // ---------------------------------------------------------------------
+    @Test
+    public void testBatchIsSentAndMarkedDelivered() throws Exception {
+        NotificationConfig config = config("outbox-relay-test-ok");
+        StandInNotificationServer standIn = new StandInNotificationServer(config);
+        standIn.start();
+        ManagedChannel channel = InProcessChannelBuilder.forName("outbox-relay-test-ok").build();
+
+        NotificationOutboxDao outboxDao = mock(NotificationOutboxDao.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> leaseUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(outboxDao.claimPending(eq(200), now.capture(), leaseUntil.capture())).thenReturn(pending(3));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationOutboxRelay relay = new NotificationOutboxRelay(outboxDao, transactionManager,
+                NotificationServiceGrpc.newStub(channel), config, meterRegistry);
+
+        assertEquals(3, relay.relayBatch());
+
+        assertEquals(3, standIn.received());
+        assertEquals(config.getOutbox().getLease(), Duration.between(now.getValue(), leaseUntil.getValue()));
+        // The claim commits before the send; the rows are marked delivered outside that transaction
+        InOrder inOrder = inOrder(outboxDao, transactionManager);
+        inOrder.verify(outboxDao).claimPending(eq(200), any(), any());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(outboxDao).markDelivered(eq(List.of(1L, 2L, 3L)), any());
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(outboxDao, never()).recordFailedAttempt(any());
+        assertEquals(3, meterRegistry.counter("notifications.outbox.delivered").count());
+
+        relay.stop();
+        channel.shutdownNow();
+        standIn.stop();
+    }
+
+    // ---------------------------------------------------------------------
+    // TEST 2: An unreachable server leaves the rows pending with an attempt recorded
+    // ---------------------------------------------------------------------
+    @Test
+    public void testFailedBatchStaysPending() {
+        NotificationConfig config = config("outbox-relay-test-missing"); // no server under this name
+        config.setDeadline(Duration.ofMillis(500));
+        ManagedChannel channel = InProcessChannelBuilder.forName("outbox-relay-test-missing").build();
+
+        NotificationOutboxDao outboxDao = mock(NotificationOutboxDao.class);
+        when(outboxDao.claimPending(eq(200), any(), any())).thenReturn(pending(2));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationOutboxRelay relay = new NotificationOutboxRelay(outboxDao, mock(PlatformTransactionManager.class),
+                NotificationServiceGrpc.newStub(channel), config, meterRegistry);
+
+        assertEquals(-1, relay.relayBatch());
+
+        verify(outboxDao).recordFailedAttempt(List.of(1L, 2L));
+        verify(outboxDao, never()).markDelivered(any(), any());
+        assertEquals(1, meterRegistry.counter("notifications.outbox.failed_batches").count());
+
+        relay.stop();
+        channel.shutdownNow();
+    }
+}